@@ -0,0 +1,35 @@
+package com.jt.tours.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+
+/**
+ * Runs the benchmarks and writes the results as JSON so they can be compared between releases.
+ *
+ * Usage: BenchmarkRunner &lt;result file&gt; [JMH command line options]
+ *
+ * Created by Jason Tao on 6/29/2020
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+
+        if(args.length < 1) {
+            throw new IllegalArgumentException("Usage: BenchmarkRunner <result file> [JMH options]");
+        }
+
+        CommandLineOptions commandLineOptions = new CommandLineOptions(Arrays.copyOfRange(args, 1, args.length));
+        Options options = new OptionsBuilder()
+                .parent(commandLineOptions)
+                .resultFormat(ResultFormatType.JSON)
+                .result(args[0])
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,38 @@
+package com.jt.tours.benchmark;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the label lookups used by the attribute converters for every loaded tour.
+ *
+ * Created by Jason Tao on 6/29/2020
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnumLookupBenchmark {
+
+    // The last label of each enum, the worst case of the linear scan.
+    @Param({"Varies"})
+    public String difficultyLabel;
+
+    @Param({"West Coast"})
+    public String regionLabel;
+
+    @Benchmark
+    public DifficultyEnum difficultyFindByLabel() {
+        return DifficultyEnum.findByLabel(difficultyLabel);
+    }
+
+    @Benchmark
+    public RegionEnum regionFindByLabel() {
+        return RegionEnum.findByLabel(regionLabel);
+    }
+}
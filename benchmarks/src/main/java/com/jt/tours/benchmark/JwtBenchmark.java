@@ -0,0 +1,79 @@
+package com.jt.tours.benchmark;
+
+import com.jt.tours.security.AuthUserGroupRegistry;
+import com.jt.tours.security.domain.AuthUserGroup;
+import com.jt.tours.security.domain.AuthUserGroupEnum;
+import com.jt.tours.security.jwt.JwtKey;
+import com.jt.tours.security.jwt.JwtKeyRing;
+import com.jt.tours.security.jwt.JwtTokenProvider;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.openjdk.jmh.annotations.*;
+
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks signing and verifying the JWT tokens with each supported algorithm. getClaimsFromToken verifies
+ * with the parser the provider builds once; getClaimsWithNewParser builds a parser per call as the provider
+ * used to, which isolates the cost of the parser setup from the cost of the signature.
+ *
+ * Created by Jason Tao on 6/29/2020
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtBenchmark {
+
+    @Param({"HS512", "RS256", "ES256"})
+    private String algorithm;
+
+    private JwtKey key;
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    private Set<AuthUserGroup> authUserGroups;
+
+    private String token;
+
+    @Setup
+    public void setUp() throws NoSuchAlgorithmException {
+        key = createKey(SignatureAlgorithm.forName(algorithm));
+        jwtTokenProvider = new JwtTokenProvider(JwtKeyRing.of(key), new AuthUserGroupRegistry(null), Duration.ofMinutes(15));
+        authUserGroups = Set.of(AuthUserGroup.builder()
+                .authGroup(AuthUserGroupEnum.CSR_USER)
+                .description("CSR User group access").build());
+        token = jwtTokenProvider.createToken("csr_tom", authUserGroups);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return jwtTokenProvider.createToken("csr_tom", authUserGroups);
+    }
+
+    @Benchmark
+    public Claims getClaimsFromToken() {
+        return jwtTokenProvider.getClaimsFromToken(token);
+    }
+
+    @Benchmark
+    public Claims getClaimsWithNewParser() {
+        return Jwts.parser().setSigningKey(key.getVerificationKey()).parseClaimsJws(token).getBody();
+    }
+
+    private JwtKey createKey(SignatureAlgorithm signatureAlgorithm) throws NoSuchAlgorithmException {
+        if(signatureAlgorithm.isHmac()) {
+            return JwtKey.hmac(JwtKeyRing.DEFAULT_KID, "benchmark-secret");
+        }
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(signatureAlgorithm.isRsa() ? "RSA" : "EC");
+        generator.initialize(signatureAlgorithm.isRsa() ? 2048 : 256);
+        return JwtKey.asymmetric(algorithm.toLowerCase(), signatureAlgorithm, generator.generateKeyPair());
+    }
+}
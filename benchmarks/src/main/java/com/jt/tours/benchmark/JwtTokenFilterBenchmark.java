@@ -0,0 +1,78 @@
+package com.jt.tours.benchmark;
+
+import com.jt.tours.security.AuthUserGroupRegistry;
+import com.jt.tours.security.CsrUserDetailsService;
+import com.jt.tours.security.domain.AuthUserGroup;
+import com.jt.tours.security.domain.AuthUserGroupEnum;
+import com.jt.tours.security.filters.JwtTokenFilter;
+import com.jt.tours.security.jwt.JwtClaimsCache;
+import com.jt.tours.security.jwt.JwtKey;
+import com.jt.tours.security.jwt.JwtKeyRing;
+import com.jt.tours.security.jwt.JwtTokenProvider;
+import com.jt.tours.security.jwt.TokenRevocationList;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import javax.servlet.ServletException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks a request carrying a bearer token through the JwtTokenFilter, from the header to the
+ * authenticated security context.
+ *
+ * Created by Jason Tao on 6/29/2020
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JwtTokenFilterBenchmark {
+
+    private JwtTokenFilter jwtTokenFilter;
+
+    private String authorizationHeader;
+
+    @Setup
+    public void setUp() {
+        // The authority groups are only loaded from the repository for registrations, not for JWT requests.
+        AuthUserGroupRegistry authUserGroupRegistry = new AuthUserGroupRegistry(null);
+        JwtTokenProvider jwtTokenProvider = new JwtTokenProvider(JwtKeyRing.of(JwtKey.hmac(JwtKeyRing.DEFAULT_KID, "benchmark-secret")),
+                authUserGroupRegistry, Duration.ofMinutes(15));
+        JwtClaimsCache jwtClaimsCache = new JwtClaimsCache(jwtTokenProvider, new SimpleMeterRegistry(), 10_000);
+
+        // The user repository and the user cache are only used for username and password logins, not for JWT requests.
+        CsrUserDetailsService csrUserDetailsService = new CsrUserDetailsService(null, jwtTokenProvider, null, authUserGroupRegistry);
+        // Nothing revoked: the check stops at the Bloom filter, as for almost every request. The repository
+        // is only used to load and persist revocations.
+        TokenRevocationList tokenRevocationList = new TokenRevocationList(null, 100_000);
+        jwtTokenFilter = new JwtTokenFilter(csrUserDetailsService, jwtTokenProvider, jwtClaimsCache, tokenRevocationList);
+
+        authorizationHeader = "Bearer " + jwtTokenProvider.createToken("csr_tom", Set.of(AuthUserGroup.builder()
+                .authGroup(AuthUserGroupEnum.CSR_USER)
+                .description("CSR User group access").build()));
+    }
+
+    @Benchmark
+    public Object filterBearerRequest() throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/tours/1/ratings");
+        request.addHeader("Authorization", authorizationHeader);
+
+        jwtTokenFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        return SecurityContextHolder.getContext().getAuthentication();
+    }
+
+    @TearDown(Level.Invocation)
+    public void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+}
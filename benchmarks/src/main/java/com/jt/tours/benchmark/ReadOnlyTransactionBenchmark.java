@@ -0,0 +1,106 @@
+package com.jt.tours.benchmark;
+
+import com.jt.tours.TourPackageApplication;
+import com.jt.tours.domain.TourRating;
+import com.jt.tours.service.impl.TourRatingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Benchmarks loading a large page of tour ratings in a read write transaction, which snapshots every rating for
+ * dirty checking and flushes at commit, against a read only transaction, and against the read only service path.
+ * Run it with the GC profiler to see the allocation per page as well as the time:
+ *
+ *   ../mvnw package exec:exec -Djmh.args="ReadOnlyTransactionBenchmark -prof gc"   (from the benchmarks directory)
+ *
+ * Created by Jason Tao on 7/13/2020
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReadOnlyTransactionBenchmark {
+
+    private static final Long TOUR_ID = 1L;
+
+    private static final String PAGE_QUERY = "select r from TourRating r where r.tour.id = :tourId order by r.id";
+
+    private static final int RATING_COUNT = 10_000;
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+
+    private EntityManager entityManager;
+
+    private TourRatingService tourRatingService;
+
+    private TransactionTemplate readWriteTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(TourPackageApplication.class)
+                .profiles("development-h2")
+                .properties(
+                        "server.port=0",
+                        "tour.sql.log-sample-rate=0",
+                        "security.jwt.token.secret-key=benchmark-secret",
+                        "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE")
+                .run();
+        // The shared entity manager binds to the transaction of the template.
+        entityManager = context.getBean(EntityManager.class);
+        tourRatingService = context.getBean(TourRatingService.class);
+
+        PlatformTransactionManager transactionManager = context.getBean(PlatformTransactionManager.class);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+
+        Long[] customerIds = LongStream.rangeClosed(1_000_000L, 1_000_000L + RATING_COUNT - 1)
+                .boxed().toArray(Long[]::new);
+        tourRatingService.createNewRatings(TOUR_ID, customerIds, 4);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<TourRating> readWriteTransaction() {
+        return readWriteTransaction.execute(status -> loadPage());
+    }
+
+    @Benchmark
+    public List<TourRating> readOnlyTransaction() {
+        return readOnlyTransaction.execute(status -> loadPage());
+    }
+
+    @Benchmark
+    public List<TourRating> getTourRatings() {
+        return tourRatingService.getTourRatings(TOUR_ID, PageRequest.of(0, pageSize, Sort.by("id"))).getContent();
+    }
+
+    private List<TourRating> loadPage() {
+        return entityManager.createQuery(PAGE_QUERY, TourRating.class)
+                .setParameter("tourId", TOUR_ID)
+                .setMaxResults(pageSize)
+                .getResultList();
+    }
+}
@@ -0,0 +1,43 @@
+package com.jt.tours.benchmark;
+
+import com.jt.tours.domain.Tour;
+import com.jt.tours.domain.TourRating;
+import com.jt.tours.web.rest.dto.TourRatingDTO;
+import com.jt.tours.web.rest.dto.mapper.TourRatingMapper;
+import com.jt.tours.web.rest.dto.mapper.TourRatingMapperImpl;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the MapStruct conversion of a tour rating to its DTO.
+ *
+ * Created by Jason Tao on 6/29/2020
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TourRatingMapperBenchmark {
+
+    private TourRatingMapper tourRatingMapper;
+
+    private TourRating tourRating;
+
+    @Setup
+    public void setUp() {
+        tourRatingMapper = new TourRatingMapperImpl();
+        tourRating = TourRating.builder()
+                .tour(new Tour())
+                .customerId(42L)
+                .ratingScore(4)
+                .comment("Great tour, would do it again").build();
+    }
+
+    @Benchmark
+    public TourRatingDTO tourRatingToTourRatingDTO() {
+        return tourRatingMapper.tourRatingToTourRatingDTO(tourRating);
+    }
+}
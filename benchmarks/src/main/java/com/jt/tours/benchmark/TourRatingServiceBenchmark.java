@@ -0,0 +1,100 @@
+package com.jt.tours.benchmark;
+
+import com.jt.tours.TourPackageApplication;
+import com.jt.tours.domain.TourRating;
+import com.jt.tours.service.impl.TourRatingService;
+import com.jt.tours.web.rest.assembler.RatingAssembler;
+import com.jt.tours.web.rest.dto.TourRatingDTO;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * Benchmarks the rating service and the HATEOAS assembler inside a running application context backed by an
+ * in-memory H2 database seeded with ratingCount ratings.
+ *
+ * Created by Jason Tao on 6/29/2020
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TourRatingServiceBenchmark {
+
+    private static final Long TOUR_ID = 1L;
+
+    @Param({"100", "10000"})
+    public int ratingCount;
+
+    private ConfigurableApplicationContext context;
+
+    private TourRatingService tourRatingService;
+
+    private RatingAssembler ratingAssembler;
+
+    private TourRating tourRating;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(TourPackageApplication.class)
+                .profiles("development-h2")
+                .properties(
+                        "server.port=0",
+                        "tour.sql.log-sample-rate=0",
+                        "security.jwt.token.secret-key=benchmark-secret",
+                        "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE")
+                .run();
+        tourRatingService = context.getBean(TourRatingService.class);
+        ratingAssembler = context.getBean(RatingAssembler.class);
+
+        Long[] customerIds = LongStream.rangeClosed(1_000_000L, 1_000_000L + ratingCount - 1)
+                .boxed().toArray(Long[]::new);
+        tourRatingService.createNewRatings(TOUR_ID, customerIds, 4);
+
+        List<TourRating> ratings = tourRatingService.getTourRatingsAfter(TOUR_ID, 0L, 1);
+        tourRating = ratings.get(0);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    /**
+     * The link builders resolve the base URI from the current request.
+     */
+    @State(Scope.Thread)
+    public static class RequestState {
+
+        @Setup(Level.Trial)
+        public void bindRequest() {
+            RequestContextHolder.setRequestAttributes(
+                    new ServletRequestAttributes(new MockHttpServletRequest("GET", "/api/v1/ratings")));
+        }
+
+        @TearDown(Level.Trial)
+        public void resetRequest() {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+    @Benchmark
+    public Double getAverageRatingScore() {
+        return tourRatingService.getAverageRatingScore(TOUR_ID);
+    }
+
+    @Benchmark
+    public TourRatingDTO ratingAssemblerToModel(RequestState requestState) {
+        return ratingAssembler.toModel(tourRating);
+    }
+}
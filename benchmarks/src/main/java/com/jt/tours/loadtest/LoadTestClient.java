@@ -0,0 +1,196 @@
+package com.jt.tours.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * One simulated API client. It signs in once through the login endpoint and then issues the operations the
+ * runner picks, remembering the ratings it created so it can later update, patch and delete them.
+ *
+ * Created by Jason Tao on 6/30/2020
+ */
+public class LoadTestClient {
+
+    private static final int TOUR_PAGE_SIZE = 20;
+    private static final int BULK_CUSTOMERS = 5;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final HttpClient httpClient;
+
+    private final String baseUri;
+
+    private final List<Long> tourIds;
+
+    private final int tourPages;
+
+    // Customers created by this client, each client owning a distinct range.
+    private long nextCustomerId;
+
+    // {tourId, customerId} of the ratings created by this client and not deleted yet.
+    private final Deque<long[]> createdRatings = new ArrayDeque<>();
+
+    // Ratings sent by the current create or bulk request, kept once the response confirms them.
+    private final List<long[]> pendingRatings = new ArrayList<>();
+
+    private String token;
+
+    public LoadTestClient(HttpClient httpClient, String baseUri, List<Long> tourIds, int clientIndex) {
+        this.httpClient = httpClient;
+        this.baseUri = baseUri;
+        this.tourIds = tourIds;
+        this.tourPages = Math.max(1, (tourIds.size() + TOUR_PAGE_SIZE - 1) / TOUR_PAGE_SIZE);
+        this.nextCustomerId = (clientIndex + 1) * 10_000_000L;
+    }
+
+    /**
+     * Sign in through UserController.login and keep the token for the following requests.
+     */
+    public void login() throws IOException, InterruptedException {
+
+        String body = "{\"username\":\"" + LoadTestDataSeeder.USERNAME + "\",\"password\":\"" + LoadTestDataSeeder.PASSWORD + "\"}";
+        HttpResponse<String> response = httpClient.send(HttpRequest.newBuilder(URI.create(baseUri + "/users/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        if(response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed with status " + response.statusCode() + ": " + response.body());
+        }
+        token = OBJECT_MAPPER.readTree(response.body()).get("accessToken").asText();
+    }
+
+    /**
+     * Issue one operation. Updates, patches and deletes need a rating created by this client; without one a
+     * rating is created instead.
+     *
+     * @param operation the operation picked by the runner
+     * @param outcome receives the operation actually issued and the response status
+     */
+    public void execute(LoadTestOperation operation, Outcome outcome) throws IOException, InterruptedException {
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if(createdRatings.isEmpty() && (operation == LoadTestOperation.UPDATE
+                || operation == LoadTestOperation.PATCH || operation == LoadTestOperation.DELETE)) {
+            operation = LoadTestOperation.CREATE;
+        }
+
+        HttpRequest request;
+        switch(operation) {
+            case LIST_TOURS:
+                request = get("/tours?page=" + random.nextInt(tourPages) + "&size=" + TOUR_PAGE_SIZE);
+                break;
+            case TOUR_RATINGS:
+                request = get("/tours/" + randomTourId() + "/ratings?size=20");
+                break;
+            case AVERAGE:
+                request = get("/tours/" + randomTourId() + "/ratings/average");
+                break;
+            case CREATE: {
+                long tourId = randomTourId();
+                long customerId = nextCustomerId++;
+                pendingRatings.add(new long[] {tourId, customerId});
+                request = json("POST", "/tours/" + tourId + "/ratings", ratingJson(customerId, randomScore(), "Created by the load test"));
+                break;
+            }
+            case UPDATE: {
+                long[] rating = newestCreatedRating();
+                request = json("PUT", "/tours/" + rating[0] + "/ratings", ratingJson(rating[1], randomScore(), "Updated by the load test"));
+                break;
+            }
+            case PATCH: {
+                long[] rating = newestCreatedRating();
+                request = json("PATCH", "/tours/" + rating[0] + "/ratings", "{\"customerId\":" + rating[1] + ",\"ratingScore\":" + randomScore() + "}");
+                break;
+            }
+            case DELETE: {
+                long[] rating = createdRatings.pollFirst();
+                request = authorized("/tours/" + rating[0] + "/ratings/" + rating[1]).DELETE().build();
+                break;
+            }
+            case BULK: {
+                long tourId = randomTourId();
+                StringJoiner customers = new StringJoiner(",");
+                for(int i = 0; i < BULK_CUSTOMERS; i++) {
+                    long customerId = nextCustomerId++;
+                    pendingRatings.add(new long[] {tourId, customerId});
+                    customers.add(String.valueOf(customerId));
+                }
+                request = authorized("/tours/" + tourId + "/ratings/" + randomScore() + "?customers=" + customers)
+                        .POST(HttpRequest.BodyPublishers.noBody()).build();
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported operation " + operation);
+        }
+
+        HttpResponse<Void> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            // A rejected create must not feed the later updates and deletes with a rating that does not exist.
+            if(response.statusCode() / 100 == 2) {
+                createdRatings.addAll(pendingRatings);
+            }
+        } finally {
+            pendingRatings.clear();
+        }
+        outcome.operation = operation;
+        outcome.status = response.statusCode();
+    }
+
+    private HttpRequest get(String path) {
+        return authorized(path).GET().build();
+    }
+
+    private HttpRequest json(String method, String path, String body) {
+        return authorized(path)
+                .header("Content-Type", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private HttpRequest.Builder authorized(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUri + path))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+    }
+
+    private String ratingJson(long customerId, int score, String comment) {
+        return "{\"customerId\":" + customerId + ",\"ratingScore\":" + score + ",\"comment\":\"" + comment + "\"}";
+    }
+
+    private long randomTourId() {
+        return tourIds.get(ThreadLocalRandom.current().nextInt(tourIds.size()));
+    }
+
+    private long[] newestCreatedRating() {
+        // Recent ratings are the most likely to be edited.
+        return createdRatings.peekLast();
+    }
+
+    private int randomScore() {
+        return 1 + ThreadLocalRandom.current().nextInt(5);
+    }
+
+    /**
+     * What an execution actually did, reused across calls to keep the client loop allocation free.
+     */
+    public static class Outcome {
+
+        LoadTestOperation operation;
+
+        int status;
+    }
+}
@@ -0,0 +1,162 @@
+package com.jt.tours.loadtest;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import com.jt.tours.domain.TourRating;
+import com.jt.tours.service.impl.TourFacetService;
+import com.jt.tours.service.impl.TourRatingService;
+import com.jt.tours.service.impl.TourSearchService;
+import com.jt.tours.service.impl.UserService;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.StringJoiner;
+
+/**
+ * Seeds the embedded database with generated tours and ratings shaped like the rows of V1_2__AddTours.sql,
+ * then refreshes the state the application derives from them (rating aggregates, search and facet indexes
+ * and caches). The generator uses a fixed seed so runs are comparable.
+ *
+ * Created by Jason Tao on 6/30/2020
+ */
+public class LoadTestDataSeeder {
+
+    static final String USERNAME = "loadtest";
+    static final String PASSWORD = "loadtest-password";
+
+    // Seeded customers start here so they never collide with the customers the clients create.
+    static final long SEED_CUSTOMER_BASE = 100_000_000L;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private static final String[] PACKAGE_CODES = {"BC", "CC", "CH", "CY", "DS", "KC", "NW", "SC", "TC"};
+
+    private static final String[] PLACES = {"Big Sur", "Monterey", "Yosemite", "Mojave", "Napa", "Tahoe",
+            "Death Valley", "Santa Barbara", "Joshua Tree", "Redwood", "Catalina", "Sierra"};
+
+    private static final String[] THEMES = {"Retreat", "Hike", "Cycling Tour", "Wine Tasting", "Hot Springs",
+            "Wildlife Watch", "Snowboard Camp", "Family Adventure", "Desert Crossing", "Coastal Drive"};
+
+    private static final String[] WORDS = {"trail", "coast", "canyon", "forest", "guided", "historic", "lodge",
+            "picnic", "sunset", "valley", "waterfall", "vineyard", "mountain", "lake", "beach", "camp", "river",
+            "scenic", "peak", "park", "ocean", "wildflower", "redwood", "desert", "spa", "breakfast", "kayak"};
+
+    private final Random random = new Random(20200630L);
+
+    private final ApplicationContext context;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoadTestDataSeeder(ApplicationContext context) {
+        this.context = context;
+        this.jdbcTemplate = context.getBean(JdbcTemplate.class);
+    }
+
+    /**
+     * Seed the tours, the ratings and the load test user.
+     *
+     * @param tourCount number of tours to generate
+     * @param ratingCount number of ratings to generate
+     * @return identifiers of every tour in the database
+     */
+    public List<Long> seed(int tourCount, int ratingCount) {
+
+        insertTours(tourCount);
+        List<Long> tourIds = jdbcTemplate.queryForList("select id from tour order by id", Long.class);
+        insertRatings(tourIds, ratingCount);
+
+        context.getBean(UserService.class).register(USERNAME, PASSWORD, "Load", "Test", "loadtest@travel.com");
+
+        // The aggregates, the indexes and the caches were built from the migrated rows only.
+        context.getBean(TourRatingService.class).rebuildRatingAggregates();
+        context.getBean(TourSearchService.class).buildIndex();
+        context.getBean(TourFacetService.class).buildIndex();
+        CacheManager cacheManager = context.getBean(CacheManager.class);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+
+        return tourIds;
+    }
+
+    private void insertTours(int tourCount) {
+
+        String sql = "insert into tour (tour_package_code, tour_title, description, blurb, bullets, difficulty, " +
+                "duration, price, region, keywords) values (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for(int i = 0; i < tourCount; i++) {
+            String place = pick(PLACES);
+            int days = 1 + random.nextInt(7);
+            batch.add(new Object[] {
+                    pick(PACKAGE_CODES),
+                    place + " " + pick(THEMES) + " " + (i + 1),
+                    sentence(20, 120),
+                    sentence(80, 1500),
+                    bullets(),
+                    pick(DifficultyEnum.values()).getLabel(),
+                    days + (days == 1 ? " day" : " days"),
+                    String.valueOf(100 + random.nextInt(60) * 50),
+                    pick(RegionEnum.values()).getLabel(),
+                    place + ", " + capitalize(pick(WORDS)) + ", " + capitalize(pick(WORDS))
+            });
+            if(batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if(!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    private void insertRatings(List<Long> tourIds, int ratingCount) {
+
+        String sql = "insert into tour_rating (tour_id, customer_id, rating_score, comment) values (?, ?, ?, ?)";
+
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for(int i = 0; i < ratingCount; i++) {
+            int score = 1 + random.nextInt(5);
+            batch.add(new Object[] {
+                    tourIds.get(random.nextInt(tourIds.size())),
+                    SEED_CUSTOMER_BASE + i,
+                    score,
+                    TourRating.toComment(score)
+            });
+            if(batch.size() == BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(sql, batch);
+                batch.clear();
+            }
+        }
+        if(!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+    }
+
+    private String sentence(int minLength, int maxLength) {
+        int length = minLength + random.nextInt(maxLength - minLength + 1);
+        StringBuilder sentence = new StringBuilder(capitalize(pick(WORDS)));
+        while(sentence.length() < length) {
+            sentence.append(' ').append(pick(WORDS));
+        }
+        return sentence.append('.').toString();
+    }
+
+    private String bullets() {
+        StringJoiner bullets = new StringJoiner(", ");
+        for(int i = 0; i < 3 + random.nextInt(3); i++) {
+            bullets.add(capitalize(pick(WORDS)) + " " + pick(WORDS) + " " + pick(WORDS));
+        }
+        return bullets.toString();
+    }
+
+    private String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    private <T> T pick(T[] values) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,59 @@
+package com.jt.tours.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The API calls replayed by the load test, with their default share of the traffic. The default mix is read
+ * heavy like the production traffic: browsing tours and ratings dominates and writes are a few percent.
+ *
+ * Created by Jason Tao on 6/30/2020
+ */
+public enum LoadTestOperation {
+
+    LIST_TOURS("list_tours", "GET /tours", 30),
+    TOUR_RATINGS("tour_ratings", "GET /tours/{id}/ratings", 30),
+    AVERAGE("average", "GET /tours/{id}/ratings/average", 20),
+    CREATE("create", "POST /tours/{id}/ratings", 6),
+    UPDATE("update", "PUT /tours/{id}/ratings", 4),
+    PATCH("patch", "PATCH /tours/{id}/ratings", 4),
+    DELETE("delete", "DELETE /tours/{id}/ratings/{customerId}", 4),
+    BULK("bulk", "POST /tours/{id}/ratings/{score}", 2);
+
+    private String label;
+
+    private String endpoint;
+
+    private int defaultWeight;
+
+    LoadTestOperation(String label, String endpoint, int defaultWeight) {
+        this.label = label;
+        this.endpoint = endpoint;
+        this.defaultWeight = defaultWeight;
+    }
+
+    public static LoadTestOperation findByLabel(String label) {
+        for(LoadTestOperation operation : values()) {
+            if(operation.label.equalsIgnoreCase(label)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown load test operation: " + label);
+    }
+
+    public static Map<LoadTestOperation, Integer> defaultMix() {
+        Map<LoadTestOperation, Integer> mix = new EnumMap<>(LoadTestOperation.class);
+        for(LoadTestOperation operation : values()) {
+            mix.put(operation, operation.defaultWeight);
+        }
+        return mix;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+}
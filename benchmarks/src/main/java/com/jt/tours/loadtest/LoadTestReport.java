@@ -0,0 +1,112 @@
+package com.jt.tours.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms and error counts per operation. Latencies are recorded in microseconds and reported in
+ * milliseconds, as a summary table and as one HdrHistogram percentile distribution file (.hgrm) per operation,
+ * which can be plotted with the HdrHistogram plotter.
+ *
+ * Created by Jason Tao on 6/30/2020
+ */
+public class LoadTestReport {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final double MICROS_PER_MILLI = 1000.0;
+
+    private final Map<LoadTestOperation, Histogram> latencies = new EnumMap<>(LoadTestOperation.class);
+
+    private final Map<LoadTestOperation, LongAdder> errors = new EnumMap<>(LoadTestOperation.class);
+
+    public LoadTestReport() {
+        for(LoadTestOperation operation : LoadTestOperation.values()) {
+            latencies.put(operation, new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    public void record(LoadTestOperation operation, long latencyNanos, boolean success) {
+        latencies.get(operation).recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+        if(!success) {
+            errors.get(operation).increment();
+        }
+    }
+
+    public void recordError(LoadTestOperation operation) {
+        errors.get(operation).increment();
+    }
+
+    /**
+     * Print the summary table.
+     *
+     * @param out the stream to print to
+     * @param elapsedSeconds length of the measured period
+     */
+    public void print(PrintStream out, double elapsedSeconds) {
+
+        String format = "%-40s %9s %7s %10s %9s %9s %9s %9s %9s%n";
+        out.printf(format, "endpoint", "count", "errors", "req/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms");
+
+        long totalCount = 0;
+        long totalErrors = 0;
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        for(LoadTestOperation operation : LoadTestOperation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if(histogram.getTotalCount() == 0) {
+                continue;
+            }
+            printRow(out, format, operation.getEndpoint(), histogram, errors.get(operation).sum(), elapsedSeconds);
+            totalCount += histogram.getTotalCount();
+            totalErrors += errors.get(operation).sum();
+            total.add(histogram);
+        }
+        if(totalCount > 0) {
+            printRow(out, format, "all", total, totalErrors, elapsedSeconds);
+        }
+    }
+
+    /**
+     * Write the percentile distribution of each operation to &lt;directory&gt;/&lt;operation&gt;.hgrm.
+     *
+     * @param directory the output directory, created if needed
+     */
+    public void write(Path directory) throws IOException {
+
+        Files.createDirectories(directory);
+        for(LoadTestOperation operation : LoadTestOperation.values()) {
+            Histogram histogram = latencies.get(operation);
+            if(histogram.getTotalCount() == 0) {
+                continue;
+            }
+            try(PrintStream out = new PrintStream(Files.newOutputStream(directory.resolve(operation.getLabel() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+        }
+    }
+
+    private void printRow(PrintStream out, String format, String endpoint, Histogram histogram, long errorCount, double elapsedSeconds) {
+        out.printf(format, endpoint,
+                histogram.getTotalCount(),
+                errorCount,
+                String.format("%.1f", histogram.getTotalCount() / elapsedSeconds),
+                millis(histogram.getValueAtPercentile(50.0)),
+                millis(histogram.getValueAtPercentile(95.0)),
+                millis(histogram.getValueAtPercentile(99.0)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private String millis(long micros) {
+        return String.format("%.2f", micros / MICROS_PER_MILLI);
+    }
+}
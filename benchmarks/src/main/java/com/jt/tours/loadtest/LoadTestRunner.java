@@ -0,0 +1,132 @@
+package com.jt.tours.loadtest;
+
+import com.jt.tours.TourPackageApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replays a configurable mix of API traffic against an embedded instance of the application running the
+ * development-h2 profile, then reports the throughput and the latency percentiles of each endpoint.
+ *
+ * The database is seeded with generated tours and ratings before the clients sign in. Each client runs in its
+ * own thread and issues requests back to back for the warm up and the measured durations; only the measured
+ * period is recorded. See LoadTestSettings for the arguments.
+ *
+ * Created by Jason Tao on 6/30/2020
+ */
+public class LoadTestRunner {
+
+    public static void main(String[] args) throws Exception {
+
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TourPackageApplication.class)
+                .profiles("development-h2")
+                .properties(
+                        "server.port=0",
+                        "tour.sql.log-sample-rate=0",
+                        "logging.level.root=WARN",
+                        "security.jwt.token.secret-key=loadtest-secret",
+                        "security.jwt.token.access-validity=PT2H",
+                        "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_ON_EXIT=FALSE")
+                .run();
+
+        try {
+            System.out.printf("Seeding %d tours and %d ratings...%n", settings.getTours(), settings.getRatings());
+            List<Long> tourIds = new LoadTestDataSeeder(context).seed(settings.getTours(), settings.getRatings());
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            LoadTestReport report = run(settings, "http://localhost:" + port + "/api/v1", tourIds);
+
+            report.print(System.out, settings.getDuration().toMillis() / 1000.0);
+            report.write(settings.getOutput());
+            System.out.println("Histograms written to " + settings.getOutput().toAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    private static LoadTestReport run(LoadTestSettings settings, String baseUri, List<Long> tourIds) throws Exception {
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_1_1)
+                .build();
+
+        List<LoadTestClient> clients = new ArrayList<>();
+        for(int i = 0; i < settings.getThreads(); i++) {
+            LoadTestClient client = new LoadTestClient(httpClient, baseUri, tourIds, i);
+            client.login();
+            clients.add(client);
+        }
+
+        LoadTestOperation[] operations = weightedOperations(settings.getMix());
+        LoadTestReport report = new LoadTestReport();
+        long measureFrom = System.nanoTime() + settings.getWarmup().toNanos();
+        long measureUntil = measureFrom + settings.getDuration().toNanos();
+
+        System.out.printf("Running %d clients for %ds (plus %ds warm up)...%n", settings.getThreads(),
+                settings.getDuration().getSeconds(), settings.getWarmup().getSeconds());
+
+        ExecutorService executor = Executors.newFixedThreadPool(settings.getThreads());
+        List<Future<?>> futures = new ArrayList<>();
+        for(LoadTestClient client : clients) {
+            futures.add(executor.submit(() -> {
+                LoadTestClient.Outcome outcome = new LoadTestClient.Outcome();
+                long start;
+                while((start = System.nanoTime()) < measureUntil) {
+                    LoadTestOperation operation = operations[ThreadLocalRandom.current().nextInt(operations.length)];
+                    try {
+                        client.execute(operation, outcome);
+                        if(start >= measureFrom) {
+                            report.record(outcome.operation, System.nanoTime() - start, outcome.status < 400);
+                        }
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return null;
+                    } catch(Exception e) {
+                        if(start >= measureFrom) {
+                            report.recordError(operation);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for(Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        return report;
+    }
+
+    /**
+     * Expand the weights into a lookup table, so picking an operation is a single random index.
+     */
+    private static LoadTestOperation[] weightedOperations(Map<LoadTestOperation, Integer> mix) {
+        List<LoadTestOperation> operations = new ArrayList<>();
+        mix.forEach((operation, weight) -> {
+            for(int i = 0; i < weight; i++) {
+                operations.add(operation);
+            }
+        });
+        if(operations.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix has no positive weight");
+        }
+        return operations.toArray(new LoadTestOperation[0]);
+    }
+}
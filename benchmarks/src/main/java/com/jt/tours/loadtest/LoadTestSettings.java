@@ -0,0 +1,104 @@
+package com.jt.tours.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Settings of a load test run, parsed from "--name=value" command line arguments.
+ *
+ * --tours       number of generated tours seeded on top of the migrated ones (default 200)
+ * --ratings     number of generated ratings spread over the tours (default 50000)
+ * --threads     number of concurrent clients (default 16)
+ * --warmup      warm up duration in seconds, not recorded (default 10)
+ * --duration    measured duration in seconds (default 60)
+ * --mix         operation weights, e.g. "list_tours=30,tour_ratings=30,average=20,create=5" (default mix otherwise)
+ * --output      directory the histograms are written to (default target/loadtest)
+ *
+ * Created by Jason Tao on 6/30/2020
+ */
+public class LoadTestSettings {
+
+    private int tours = 200;
+
+    private int ratings = 50_000;
+
+    private int threads = 16;
+
+    private Duration warmup = Duration.ofSeconds(10);
+
+    private Duration duration = Duration.ofSeconds(60);
+
+    private Map<LoadTestOperation, Integer> mix = LoadTestOperation.defaultMix();
+
+    private Path output = Paths.get("target", "loadtest");
+
+    public static LoadTestSettings parse(String[] args) {
+
+        Map<String, String> values = new HashMap<>();
+        for(String arg : args) {
+            if(!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value but got: " + arg);
+            }
+            values.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+
+        LoadTestSettings settings = new LoadTestSettings();
+        values.forEach((name, value) -> {
+            switch(name) {
+                case "tours": settings.tours = Integer.parseInt(value); break;
+                case "ratings": settings.ratings = Integer.parseInt(value); break;
+                case "threads": settings.threads = Integer.parseInt(value); break;
+                case "warmup": settings.warmup = Duration.ofSeconds(Long.parseLong(value)); break;
+                case "duration": settings.duration = Duration.ofSeconds(Long.parseLong(value)); break;
+                case "mix": settings.mix = parseMix(value); break;
+                case "output": settings.output = Paths.get(value); break;
+                default: throw new IllegalArgumentException("Unknown load test setting: " + name);
+            }
+        });
+        return settings;
+    }
+
+    private static Map<LoadTestOperation, Integer> parseMix(String value) {
+        Map<LoadTestOperation, Integer> mix = new EnumMap<>(LoadTestOperation.class);
+        for(String entry : value.split(",")) {
+            String[] weight = entry.trim().split("=");
+            if(weight.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but got: " + entry);
+            }
+            mix.put(LoadTestOperation.findByLabel(weight[0].trim()), Integer.parseInt(weight[1].trim()));
+        }
+        return mix;
+    }
+
+    public int getTours() {
+        return tours;
+    }
+
+    public int getRatings() {
+        return ratings;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public Duration getWarmup() {
+        return warmup;
+    }
+
+    public Duration getDuration() {
+        return duration;
+    }
+
+    public Map<LoadTestOperation, Integer> getMix() {
+        return mix;
+    }
+
+    public Path getOutput() {
+        return output;
+    }
+}
@@ -0,0 +1,22 @@
+package com.jt.tours.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Cache configuration for this application. The caches are backed by Caffeine and sized in application.yml.
+ *
+ * Created by Jason Tao on 6/23/2020
+ */
+@Configuration
+@EnableCaching
+public class CacheConfiguration {
+
+    // Pages of tours, either all the tours or the tours of a tour package. The tours and the tour packages looked
+    // up by id are not cached: Spring Data REST loads the item to update through findById and merges the request
+    // into it, which must never be an instance shared with the readers.
+    public static final String TOUR_PAGES_CACHE = "tourPages";
+
+    // Tour packages looked up by name or all of them.
+    public static final String TOUR_PACKAGES_CACHE = "tourPackages";
+}
@@ -0,0 +1,75 @@
+package com.jt.tours.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sizes the HikariCP pools from the cores of the host and the connection limit of the database, rather than
+ * the fixed default of 10:
+ *
+ *  by cores     cores * 2 + 1, the usual starting point for a pool in front of a database on SSDs
+ *  by database  (database max connections - reserved connections) / application instances
+ *
+ * The pool gets the smaller of the two; a positive tour.datasource.pool.maximum-size overrides both. A small,
+ * fixed pool keeps the database from thrashing, and the wait for a connection shows in the hikaricp.connections
+ * meters (active, idle, pending, acquire, usage, timeout) rather than in the database.
+ *
+ * The pool is sized before initialization, once the spring.datasource.hikari settings are bound and before the
+ * data source is wrapped for the SQL monitoring (see SqlDataSourceWrapper).
+ *
+ * Created by Jason Tao on 7/11/2020
+ */
+@Slf4j
+@Component
+public class DataSourcePoolSizer implements BeanPostProcessor {
+
+    private final int maximumSize;
+
+    private final int databaseMaxConnections;
+
+    private final int reservedConnections;
+
+    private final int instances;
+
+    public DataSourcePoolSizer(@Value("${tour.datasource.pool.maximum-size:0}") int maximumSize,
+                               @Value("${tour.datasource.pool.database-max-connections:150}") int databaseMaxConnections,
+                               @Value("${tour.datasource.pool.reserved-connections:10}") int reservedConnections,
+                               @Value("${tour.datasource.pool.instances:1}") int instances) {
+        this.maximumSize = maximumSize;
+        this.databaseMaxConnections = databaseMaxConnections;
+        this.reservedConnections = reservedConnections;
+        this.instances = instances;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+
+        if(bean instanceof HikariDataSource) {
+            size((HikariDataSource) bean);
+        }
+        return bean;
+    }
+
+    /**
+     * Size a pool that is not a bean of its own, such as the pools behind the routing data source.
+     *
+     * @param dataSource the pool, not started yet
+     */
+    public void size(HikariDataSource dataSource) {
+        dataSource.setMaximumPoolSize(poolSize());
+        log.info("Sized connection pool {} to {} connections", dataSource.getPoolName(), dataSource.getMaximumPoolSize());
+    }
+
+    int poolSize() {
+
+        if(maximumSize > 0) {
+            return maximumSize;
+        }
+        int byCores = Runtime.getRuntime().availableProcessors() * 2 + 1;
+        int byDatabase = (databaseMaxConnections - reservedConnections) / Math.max(1, instances);
+        return Math.max(1, Math.min(byCores, byDatabase));
+    }
+}
@@ -0,0 +1,68 @@
+package com.jt.tours.config;
+
+import com.jt.tours.metrics.SqlDataSourceWrapper;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Connection pool of the streamed rating exports (see TourRatingExportService).
+ *
+ * An export holds its connection for as long as the client reads, minutes for a large table. On the application
+ * pool every export would trip the 20s leak detection and log a false "Connection leak detection triggered" stack,
+ * and the threshold cannot simply be raised above the export duration: HikariCP disables it beyond max-lifetime.
+ * The exports get a small pool of their own instead, without leak detection, which also keeps them from taking the
+ * connections of the API requests. It shares the spring.datasource url and hikari settings, reads from the primary,
+ * publishes the hikaricp.connections meters as tour-pool-export and its statements go through the SqlStatementMonitor.
+ *
+ * Created by Jason Tao on 6/25/2020
+ */
+@Slf4j
+@Component
+public class ExportConnectionPool implements DisposableBean {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    private final HikariDataSource dataSource;
+
+    // the pool, with its statements monitored
+    private final DataSource monitoredDataSource;
+
+    public ExportConnectionPool(DataSourceProperties dataSourceProperties, Environment environment, MeterRegistry meterRegistry,
+                                SqlDataSourceWrapper sqlDataSourceWrapper,
+                                @Value("${tour.rating.export.pool-size:2}") int poolSize) {
+
+        dataSource = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind(HIKARI_PREFIX, Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(dataSource.getPoolName() + "-export");
+        dataSource.setLeakDetectionThreshold(0);
+        dataSource.setMaximumPoolSize(Math.max(1, poolSize));
+        // No connection is held between the exports.
+        dataSource.setMinimumIdle(0);
+        dataSource.setReadOnly(true);
+        dataSource.setMetricRegistry(meterRegistry);
+        monitoredDataSource = sqlDataSourceWrapper.wrap(dataSource, dataSource.getPoolName());
+        log.info("Sized connection pool {} to {} connections", dataSource.getPoolName(), dataSource.getMaximumPoolSize());
+    }
+
+    /**
+     * @return the pool; an export beyond its size waits for a connection up to the connection timeout.
+     */
+    public DataSource getDataSource() {
+        return monitoredDataSource;
+    }
+
+    @Override
+    public void destroy() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,104 @@
+package com.jt.tours.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Replaces the single spring.datasource pool with a primary pool and one pool per read replica behind a
+ * ReplicaRoutingDataSource, when tour.datasource.replicas is configured. Every pool gets the spring.datasource.hikari
+ * settings, is sized by DataSourcePoolSizer and publishes the hikaricp.connections meters under its pool name.
+ *
+ * The read only transactions, i.e. the @Transactional(readOnly = true) service methods and the Spring Data
+ * repository reads, go to the replicas; everything else, including Flyway, goes to the primary.
+ *
+ * Created by Jason Tao on 7/12/2020
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicaDataSourceProperties.class)
+@ConditionalOnProperty(prefix = "tour.datasource.replicas[0]", name = "url")
+public class ReplicaDataSourceConfiguration {
+
+    private static final String HIKARI_PREFIX = "spring.datasource.hikari";
+
+    private final Environment environment;
+
+    private final DataSourcePoolSizer dataSourcePoolSizer;
+
+    private final MeterRegistry meterRegistry;
+
+    public ReplicaDataSourceConfiguration(Environment environment, DataSourcePoolSizer dataSourcePoolSizer,
+                                          MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.dataSourcePoolSizer = dataSourcePoolSizer;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(DataSourceProperties dataSourceProperties,
+                                                             ReplicaDataSourceProperties replicaProperties) {
+
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        configure(primary, null);
+
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        List<ReplicaDataSourceProperties.Replica> replicaEntries = replicaProperties.getReplicas();
+        for(int index = 0; index < replicaEntries.size(); index++) {
+            ReplicaDataSourceProperties.Replica entry = replicaEntries.get(index);
+            HikariDataSource replica = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .url(entry.getUrl())
+                    .username(entry.getUsername())
+                    .password(entry.getPassword())
+                    .driverClassName(entry.getDriverClassName() != null
+                            ? entry.getDriverClassName() : dataSourceProperties.determineDriverClassName())
+                    .build();
+            String name = primary.getPoolName() + "-replica-" + (index + 1);
+            configure(replica, name);
+            // The driver then rejects any write that would reach a replica by mistake.
+            replica.setReadOnly(true);
+            replicas.put(name, replica);
+        }
+        ReplicaRoutingDataSource routingDataSource = new ReplicaRoutingDataSource(primary, replicas, replicaProperties.getMaxReplicaLag());
+        routingDataSource.registerMetrics(meterRegistry);
+        return routingDataSource;
+    }
+
+    /**
+     * The data source of the application. The proxy defers fetching a connection until the first statement, by
+     * which time the read only flag of the transaction is known to the router.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * Apply the shared spring.datasource.hikari settings, the pool size and the metrics to a pool that is not a
+     * bean of its own.
+     */
+    private void configure(HikariDataSource dataSource, String poolName) {
+        Binder.get(environment).bind(HIKARI_PREFIX, Bindable.ofInstance(dataSource));
+        if(poolName != null) {
+            dataSource.setPoolName(poolName);
+        }
+        dataSourcePoolSizer.size(dataSource);
+        dataSource.setMetricRegistry(meterRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package com.jt.tours.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas of the database (tour.datasource). Example:
+ *
+ * tour.datasource.replicas[0].url=jdbc:mysql://mysql-replica-1:3306/TourPackageDb?useSSL=true&useCursorFetch=true
+ * tour.datasource.replicas[0].username=reader
+ * tour.datasource.replicas[0].password=password
+ * tour.datasource.max-replica-lag=PT5S
+ *
+ * The replicas share the spring.datasource.hikari settings of the primary pool. Without any replica, the
+ * application runs on the single spring.datasource pool.
+ *
+ * Created by Jason Tao on 7/12/2020
+ */
+@Data
+@ConfigurationProperties(prefix = "tour.datasource")
+public class ReplicaDataSourceProperties {
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    // Replicas lagging further behind the primary are skipped until they catch up.
+    private Duration maxReplicaLag = Duration.ofSeconds(5);
+
+    @Data
+    public static class Replica {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+
+        // defaults to the driver of the primary
+        private String driverClassName;
+    }
+}
@@ -0,0 +1,192 @@
+package com.jt.tours.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Data source sending the read only transactions to the replicas, in turn, and everything else to the primary.
+ *
+ * The replicas are checked every few seconds: a replica that cannot be reached, whose replication stopped or that
+ * lags behind the primary by more than the max replica lag is skipped until it recovers. When no replica is
+ * available, or the connection to the chosen one fails, the read goes to the primary.
+ *
+ * The routing looks at the read only flag of the current transaction, which Spring sets after the transaction
+ * manager has begun the transaction; the data source must be wrapped in a LazyConnectionDataSourceProxy so the
+ * connection is only fetched on the first statement.
+ *
+ * Meters: tours.datasource.replica.lag {replica} seconds behind the primary, -1 when unavailable.
+ *
+ * Created by Jason Tao on 7/12/2020
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private static final String LAG_METRIC = "tours.datasource.replica.lag";
+
+    private final DataSource primary;
+
+    private final List<Replica> replicas = new ArrayList<>();
+
+    private final Duration maxReplicaLag;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * @param primary the read write data source
+     * @param replicas the read only data sources by name
+     * @param maxReplicaLag the replication lag beyond which a replica is skipped
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, Duration maxReplicaLag) {
+        this.primary = primary;
+        this.maxReplicaLag = maxReplicaLag;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+
+        if(TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Replica replica = nextAvailableReplica();
+            if(replica != null) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException ex) {
+                    replica.markUnavailable(ex);
+                }
+            }
+        }
+        return primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // Connections with other credentials are not routed.
+        return primary.getConnection(username, password);
+    }
+
+    /**
+     * Measure the lag of every replica and take the lagging and unreachable ones out of the rotation.
+     */
+    @Scheduled(fixedDelayString = "${tour.datasource.replica-check-interval-ms:5000}")
+    public void checkReplicas() {
+        replicas.forEach(this::check);
+    }
+
+    /**
+     * Publish the lag of every replica.
+     *
+     * @param meterRegistry the registry
+     */
+    public void registerMetrics(MeterRegistry meterRegistry) {
+        replicas.forEach(replica -> Gauge.builder(LAG_METRIC, replica, r -> r.lagSeconds)
+                .tag("replica", replica.name)
+                .baseUnit("seconds")
+                .register(meterRegistry));
+    }
+
+    /**
+     * Close the pools on shutdown, since they are not beans of their own.
+     */
+    public void close() {
+        closeQuietly(primary);
+        replicas.forEach(replica -> closeQuietly(replica.dataSource));
+    }
+
+    private void closeQuietly(DataSource dataSource) {
+        if(dataSource instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dataSource).close();
+            } catch (Exception ex) {
+                log.warn("Failed to close a data source: {}", ex.getMessage());
+            }
+        }
+    }
+
+    private Replica nextAvailableReplica() {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(1, size));
+        for(int offset = 0; offset < size; offset++) {
+            Replica replica = replicas.get((start + offset) % size);
+            if(replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void check(Replica replica) {
+        try (Connection connection = replica.dataSource.getConnection()) {
+            long lagSeconds = lagSeconds(connection);
+            boolean available = lagSeconds >= 0 && lagSeconds <= maxReplicaLag.getSeconds();
+            if(available != replica.available) {
+                log.warn("Replica {} is {} (lag {}s)", replica.name, available ? "back in rotation" : "out of rotation", lagSeconds);
+            }
+            replica.lagSeconds = lagSeconds;
+            replica.available = available;
+        } catch (SQLException ex) {
+            replica.markUnavailable(ex);
+        }
+    }
+
+    /**
+     * @return the seconds the replica is behind the primary, 0 for a database without replication status
+     * (such as an H2 stand in), -1 when the replication is stopped.
+     */
+    private long lagSeconds(Connection connection) throws SQLException {
+
+        String product = connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT);
+        if(!product.contains("mysql")) {
+            return connection.isValid(2) ? 0 : -1;
+        }
+        // Needs the REPLICATION CLIENT privilege.
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SHOW SLAVE STATUS")) {
+            if(!resultSet.next()) {
+                // Not a replica, e.g. the primary itself in a development setup.
+                return 0;
+            }
+            long secondsBehind = resultSet.getLong("Seconds_Behind_Master");
+            return resultSet.wasNull() ? -1 : secondsBehind;
+        }
+    }
+
+    private static class Replica {
+
+        private final String name;
+
+        private final DataSource dataSource;
+
+        private volatile boolean available = true;
+
+        private volatile long lagSeconds;
+
+        Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        void markUnavailable(SQLException ex) {
+            if(available) {
+                log.warn("Replica {} is out of rotation: {}", name, ex.getMessage());
+            }
+            available = false;
+            lagSeconds = -1;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package com.jt.tours.config;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.turbo.TurboFilter;
+import ch.qos.logback.core.spi.FilterReply;
+import org.slf4j.Marker;
+import org.slf4j.MarkerFactory;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Logback turbo filter for the lines logged on every request (JWT filter, controllers and lookups), which
+ * are logged at DEBUG with the REQUEST marker. It is configured in logback-spring.xml:
+ *
+ *  all      every request line is logged as long as the logger is enabled for INFO
+ *  sampled  only sampleRate of the request lines go through, and only if the logger is enabled for DEBUG
+ *
+ * Created by Jason Tao on 7/2/2020
+ */
+public class RequestChatterFilter extends TurboFilter {
+
+    public static final Marker REQUEST = MarkerFactory.getMarker("REQUEST");
+
+    public static final String ALL_MODE = "all";
+    public static final String SAMPLED_MODE = "sampled";
+
+    private String mode = SAMPLED_MODE;
+
+    private double sampleRate = 0.01;
+
+    @Override
+    public FilterReply decide(Marker marker, Logger logger, Level level, String format, Object[] params, Throwable t) {
+
+        if(marker == null || !marker.contains(REQUEST)) {
+            return FilterReply.NEUTRAL;
+        }
+        if(ALL_MODE.equalsIgnoreCase(mode)) {
+            // Accept regardless of the DEBUG level, but keep honoring a logger turned down below INFO.
+            return logger.getEffectiveLevel().isGreaterOrEqual(Level.WARN) ? FilterReply.DENY : FilterReply.ACCEPT;
+        }
+        // Sampled: leave the level check to the logger for the sampled lines.
+        return ThreadLocalRandom.current().nextDouble() < sampleRate ? FilterReply.NEUTRAL : FilterReply.DENY;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public void setSampleRate(double sampleRate) {
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,14 @@
+package com.jt.tours.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enables the scheduled background jobs of this application, such as the tour rating aggregate reconciliation.
+ *
+ * Created by Jason Tao on 6/20/2020
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfiguration {
+}
@@ -15,6 +15,7 @@ import java.io.Serializable;
 @Data
 @NoArgsConstructor
 @Entity
+@EntityListeners(TourEntityListener.class)
 public class Tour implements Serializable {
 
     @Id
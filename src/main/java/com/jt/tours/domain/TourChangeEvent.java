@@ -0,0 +1,21 @@
+package com.jt.tours.domain;
+
+import lombok.Getter;
+
+/**
+ * Application event published whenever a tour is created, updated or removed.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+@Getter
+public class TourChangeEvent {
+
+    private final Tour tour;
+
+    private final boolean removed;
+
+    public TourChangeEvent(Tour tour, boolean removed) {
+        this.tour = tour;
+        this.removed = removed;
+    }
+}
@@ -0,0 +1,33 @@
+package com.jt.tours.domain;
+
+import org.springframework.context.ApplicationEventPublisher;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA entity listener that turns tour writes into TourChangeEvent so in-memory views of the catalog stay in sync.
+ * Hibernate obtains it from the Spring bean container, so the publisher is injected.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+public class TourEntityListener {
+
+    private final ApplicationEventPublisher applicationEventPublisher;
+
+    public TourEntityListener(ApplicationEventPublisher applicationEventPublisher) {
+        this.applicationEventPublisher = applicationEventPublisher;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Tour tour) {
+        applicationEventPublisher.publishEvent(new TourChangeEvent(tour, false));
+    }
+
+    @PostRemove
+    public void onRemove(Tour tour) {
+        applicationEventPublisher.publishEvent(new TourChangeEvent(tour, true));
+    }
+}
@@ -23,8 +23,11 @@ public class TourRating implements Serializable {
     @ApiModelProperty(notes = "The database generated tour rating id.")
     private Long id;
 
-    @ManyToOne
+    // Lazy so that listing ratings only needs the tour id held by the proxy, not the tour row.
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "tour_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ApiModelProperty(notes = "The tour id corresponds to the tour rating.")
     private Tour tour;
 
@@ -54,7 +57,7 @@ public class TourRating implements Serializable {
      * @param score
      * @return
      */
-    private String toComment(Integer score) {
+    public static String toComment(Integer score) {
         switch (score) {
             case 1:return "Terrible";
             case 2:return "Poor";
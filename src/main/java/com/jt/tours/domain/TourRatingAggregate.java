@@ -0,0 +1,111 @@
+package com.jt.tours.domain;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.*;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+/**
+ * Running aggregate of the tour ratings for a tour. It keeps the rating count, the sum of the scores and
+ * a histogram of the 1 to 5 scores so the average can be served without scanning the tour ratings.
+ *
+ * Created by Jason Tao on 6/20/2020
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "tour_rating_aggregate")
+public class TourRatingAggregate implements Serializable {
+
+    @Id
+    @Column(name = "tour_id")
+    @ApiModelProperty(notes = "The tour id corresponds to the aggregate.")
+    private Long tourId;
+
+    @Column(name = "rating_count", nullable = false)
+    @ApiModelProperty(notes = "Number of ratings given to the tour.")
+    private long ratingCount;
+
+    @Column(name = "rating_sum", nullable = false)
+    @ApiModelProperty(notes = "Sum of all the rating scores given to the tour.")
+    private long ratingSum;
+
+    @Column(name = "score_one_count", nullable = false)
+    private long scoreOneCount;
+
+    @Column(name = "score_two_count", nullable = false)
+    private long scoreTwoCount;
+
+    @Column(name = "score_three_count", nullable = false)
+    private long scoreThreeCount;
+
+    @Column(name = "score_four_count", nullable = false)
+    private long scoreFourCount;
+
+    @Column(name = "score_five_count", nullable = false)
+    private long scoreFiveCount;
+
+    @Builder
+    public TourRatingAggregate(Long tourId, long ratingCount, long ratingSum, long scoreOneCount, long scoreTwoCount,
+                               long scoreThreeCount, long scoreFourCount, long scoreFiveCount) {
+        this.tourId = tourId;
+        this.ratingCount = ratingCount;
+        this.ratingSum = ratingSum;
+        this.scoreOneCount = scoreOneCount;
+        this.scoreTwoCount = scoreTwoCount;
+        this.scoreThreeCount = scoreThreeCount;
+        this.scoreFourCount = scoreFourCount;
+        this.scoreFiveCount = scoreFiveCount;
+    }
+
+    /**
+     * Add a rating score to the aggregate.
+     *
+     * @param score the rating score
+     */
+    public void addScore(Integer score) {
+        adjust(score, 1);
+    }
+
+    /**
+     * Remove a rating score from the aggregate.
+     *
+     * @param score the rating score
+     */
+    public void removeScore(Integer score) {
+        adjust(score, -1);
+    }
+
+    /**
+     * Calculate the average rating score.
+     *
+     * @return the average score, null if the tour has no rating.
+     */
+    public Double getAverage() {
+        return ratingCount > 0 ? (double) ratingSum / ratingCount : null;
+    }
+
+    /**
+     * Apply the delta to the count, the sum and the histogram bucket of the score.
+     * Scores outside of 1 to 5 are counted towards the count and sum only.
+     *
+     * @param score the rating score
+     * @param delta +1 when adding a score, -1 when removing it
+     */
+    private void adjust(Integer score, int delta) {
+        if(score == null) {
+            return;
+        }
+        ratingCount += delta;
+        ratingSum += (long) score * delta;
+        switch (score) {
+            case 1: scoreOneCount += delta; break;
+            case 2: scoreTwoCount += delta; break;
+            case 3: scoreThreeCount += delta; break;
+            case 4: scoreFourCount += delta; break;
+            case 5: scoreFiveCount += delta; break;
+            default: break;
+        }
+    }
+}
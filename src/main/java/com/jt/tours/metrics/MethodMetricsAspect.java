@@ -0,0 +1,187 @@
+package com.jt.tours.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a latency timer for every call into the services, the repositories, the JWT signing and parsing and
+ * the password hashing. The timers are published with histogram buckets (see the management.metrics.distribution
+ * properties), so the Prometheus endpoint can serve percentiles. The calls that threw are the timers with an
+ * exception tag other than none, their count is the error count.
+ *
+ * The timers are registered once per advised method and exception rather than built on every call.
+ *
+ * Meters:
+ *  tours.service            {class, method, exception}   service calls
+ *  tours.repository         {class, method, exception}   repository calls
+ *  tours.security.jwt       {operation, exception}       token signing and parsing
+ *  tours.security.password  {operation, exception}       BCrypt encoding and matching, i.e. the login hash cost
+ *
+ * Created by Jason Tao on 7/1/2020
+ */
+@Aspect
+@Component
+public class MethodMetricsAspect {
+
+    static final String SERVICE_METRIC = "tours.service";
+    static final String REPOSITORY_METRIC = "tours.repository";
+    static final String JWT_METRIC = "tours.security.jwt";
+    static final String PASSWORD_METRIC = "tours.security.password";
+
+    private static final String NO_EXCEPTION = "none";
+    private static final String REPOSITORY_PACKAGE = "com.jt.tours.repository";
+
+    private final MeterRegistry meterRegistry;
+
+    // target class -> advised method -> timers; keyed by the target too, as the repositories share the inherited methods
+    private final Map<Class<?>, Map<Method, MethodTimers>> timers = new ConcurrentHashMap<>();
+
+    /**
+     * The registry is resolved lazily: aspects are created before the other beans, and an eagerly created
+     * registry would miss the meter filters configured from the management.metrics properties.
+     */
+    @Autowired
+    public MethodMetricsAspect(@Lazy MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Pointcut("execution(public * *(..)) && (target(com.jt.tours.service.ITourRatingService) " +
+            "|| target(com.jt.tours.service.impl.UserService) || target(com.jt.tours.security.CsrUserDetailsService))")
+    public void serviceMethod() {}
+
+    @Pointcut("execution(public * *(..)) && (target(com.jt.tours.repository.TourRatingRepository) " +
+            "|| target(com.jt.tours.repository.TourRepository) || target(com.jt.tours.repository.UserRepository))")
+    public void repositoryMethod() {}
+
+    @Pointcut("execution(public * com.jt.tours.security.jwt.JwtTokenProvider.createToken(..))")
+    public void jwtSign() {}
+
+    @Pointcut("execution(public * com.jt.tours.security.jwt.JwtTokenProvider.getClaimsFromToken(..))")
+    public void jwtParse() {}
+
+    @Pointcut("execution(public * org.springframework.security.crypto.password.PasswordEncoder+.*(..))")
+    public void passwordEncoderMethod() {}
+
+    @Around("serviceMethod()")
+    public Object timeService(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, SERVICE_METRIC, null);
+    }
+
+    @Around("repositoryMethod()")
+    public Object timeRepository(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, REPOSITORY_METRIC, null);
+    }
+
+    @Around("jwtSign()")
+    public Object timeJwtSign(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, JWT_METRIC, "sign");
+    }
+
+    @Around("jwtParse()")
+    public Object timeJwtParse(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, JWT_METRIC, "parse");
+    }
+
+    @Around("passwordEncoderMethod()")
+    public Object timePasswordEncoder(ProceedingJoinPoint joinPoint) throws Throwable {
+        return time(joinPoint, PASSWORD_METRIC, null);
+    }
+
+    private Object time(ProceedingJoinPoint joinPoint, String metric, String operation) throws Throwable {
+
+        MethodTimers methodTimers = timersOf(joinPoint.getTarget().getClass(),
+                ((MethodSignature) joinPoint.getSignature()).getMethod(), metric, operation);
+
+        long start = System.nanoTime();
+        String exception = NO_EXCEPTION;
+        try {
+            return joinPoint.proceed();
+        } catch(Throwable throwable) {
+            exception = throwable.getClass().getSimpleName();
+            throw throwable;
+        } finally {
+            methodTimers.get(exception).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Look up the timers of an advised method, registering them on its first call.
+     */
+    private MethodTimers timersOf(Class<?> targetClass, Method method, String metric, String operation) {
+
+        Map<Method, MethodTimers> methodTimers = timers.get(targetClass);
+        if(methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(targetClass, key -> new ConcurrentHashMap<>());
+        }
+        MethodTimers found = methodTimers.get(method);
+        if(found != null) {
+            return found;
+        }
+        return methodTimers.computeIfAbsent(method, key -> {
+            if(operation != null) {
+                return new MethodTimers(metric, "operation", operation);
+            }
+            if(PASSWORD_METRIC.equals(metric)) {
+                return new MethodTimers(metric, "operation", method.getName());
+            }
+            return new MethodTimers(metric, "class", classTag(targetClass), "method", method.getName());
+        });
+    }
+
+    /**
+     * The repositories are JDK proxies, so tag them with their repository interface rather than the proxy class.
+     */
+    private String classTag(Class<?> targetClass) {
+        for(Class<?> type : targetClass.getInterfaces()) {
+            if(type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return targetClass.getSimpleName();
+    }
+
+    /**
+     * The timers of an advised method, one per exception tag.
+     */
+    private class MethodTimers {
+
+        private final String metric;
+
+        private final String[] tags;
+
+        private final Timer success;
+
+        // exception simple name -> timer
+        private final Map<String, Timer> failures = new ConcurrentHashMap<>();
+
+        MethodTimers(String metric, String... tags) {
+            this.metric = metric;
+            this.tags = tags;
+            this.success = register(NO_EXCEPTION);
+        }
+
+        Timer get(String exception) {
+            return NO_EXCEPTION.equals(exception) ? success : failures.computeIfAbsent(exception, this::register);
+        }
+
+        private Timer register(String exception) {
+            return Timer.builder(metric)
+                    .tags(tags)
+                    .tag("exception", exception)
+                    .register(meterRegistry);
+        }
+    }
+}
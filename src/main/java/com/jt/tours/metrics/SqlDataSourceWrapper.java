@@ -0,0 +1,53 @@
+package com.jt.tours.metrics;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the data source of the application in a datasource-proxy, so every statement goes through the
+ * SqlStatementMonitor. Only the dataSource bean is wrapped: with read replicas it is the proxy in front of the
+ * routing data source, so the statements sent to the replicas are monitored along with those of the primary.
+ *
+ * The pools are sized before initialization (see DataSourcePoolSizer), while the bean is still the HikariDataSource.
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+@Component
+public class SqlDataSourceWrapper implements BeanPostProcessor {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    // Resolved on first use, a post processor must not pull the monitor's dependencies in early.
+    private final ObjectProvider<SqlStatementMonitor> sqlStatementMonitor;
+
+    public SqlDataSourceWrapper(ObjectProvider<SqlStatementMonitor> sqlStatementMonitor) {
+        this.sqlStatementMonitor = sqlStatementMonitor;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+
+        if(bean instanceof DataSource && DATA_SOURCE_BEAN.equals(beanName)) {
+            return wrap((DataSource) bean, DATA_SOURCE_BEAN);
+        }
+        return bean;
+    }
+
+    /**
+     * Wrap a data source that is not a bean of its own, such as the pool of the exports.
+     *
+     * @param dataSource the data source
+     * @param name the name of the data source
+     * @return the data source monitored by the SqlStatementMonitor
+     */
+    public DataSource wrap(DataSource dataSource, String name) {
+        return ProxyDataSourceBuilder.create(dataSource)
+                .name(name)
+                .listener(sqlStatementMonitor.getObject())
+                .build();
+    }
+}
@@ -0,0 +1,141 @@
+package com.jt.tours.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements issued by each HTTP request, so the N+1 selects show in the metrics rather than in a
+ * log of every statement. Requests issuing more than tour.sql.request-statement-warn-threshold statements are
+ * logged at WARN.
+ *
+ * An async request, such as a login or a streamed export, is recorded once it completes: its statements are
+ * kept in a request attribute across the dispatches, and those of the tasks it submitted are counted through
+ * SqlRequestStatsTaskDecorator.
+ *
+ * Meters: tours.sql.request.statements  statements per HTTP request
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+@Slf4j
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class SqlRequestStatsFilter extends OncePerRequestFilter {
+
+    static final String REQUEST_STATEMENTS_METRIC = "tours.sql.request.statements";
+
+    private static final String REQUEST_STATS_ATTRIBUTE = SqlRequestStatsFilter.class.getName() + ".STATS";
+
+    private final SqlStatementMonitor sqlStatementMonitor;
+
+    private final MeterRegistry meterRegistry;
+
+    private final int warnThreshold;
+
+    // registered on first use, the registry is not configured yet when the filter is created
+    private volatile DistributionSummary requestStatements;
+
+    public SqlRequestStatsFilter(SqlStatementMonitor sqlStatementMonitor, @Lazy MeterRegistry meterRegistry,
+                                 @Value("${tour.sql.request-statement-warn-threshold:50}") int warnThreshold) {
+        this.sqlStatementMonitor = sqlStatementMonitor;
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        SqlStatementMonitor.RequestStats stats = (SqlStatementMonitor.RequestStats) request.getAttribute(REQUEST_STATS_ATTRIBUTE);
+        if(stats == null) {
+            stats = sqlStatementMonitor.startRequest();
+            request.setAttribute(REQUEST_STATS_ATTRIBUTE, stats);
+        } else {
+            // A dispatch of an async request.
+            sqlStatementMonitor.attach(stats);
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            sqlStatementMonitor.detach();
+            if(request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new RecordOnComplete(request, stats));
+            } else if(!isAsyncDispatch(request)) {
+                record(request, stats);
+            }
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    private void record(HttpServletRequest request, SqlStatementMonitor.RequestStats stats) {
+
+        long statements = stats.getStatements();
+        requestStatements().record(statements);
+        if(statements > warnThreshold) {
+            log.warn("{} {} issued {} SQL statements in {} ms", request.getMethod(), request.getRequestURI(),
+                    statements, stats.getElapsedMillis());
+        }
+    }
+
+    private DistributionSummary requestStatements() {
+        DistributionSummary summary = requestStatements;
+        if(summary == null) {
+            summary = DistributionSummary.builder(REQUEST_STATEMENTS_METRIC).register(meterRegistry);
+            requestStatements = summary;
+        }
+        return summary;
+    }
+
+    /**
+     * Records the statements of an async request once it completed, timed out or failed.
+     */
+    private class RecordOnComplete implements AsyncListener {
+
+        private final HttpServletRequest request;
+
+        private final SqlStatementMonitor.RequestStats stats;
+
+        RecordOnComplete(HttpServletRequest request, SqlStatementMonitor.RequestStats stats) {
+            this.request = request;
+            this.stats = stats;
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            record(request, stats);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // Followed by onComplete.
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // Still the same request.
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.jt.tours.metrics;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Carries the statement count of the HTTP request over to the tasks it submits, so the statements they issue are
+ * counted with the request (see SqlRequestStatsFilter). Applied to the login pool (see LoginExecutor) and, as the
+ * only TaskDecorator bean, by Spring Boot to the applicationTaskExecutor that runs the async requests, such as the
+ * rating exports.
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+@Component
+public class SqlRequestStatsTaskDecorator implements TaskDecorator {
+
+    private final SqlStatementMonitor sqlStatementMonitor;
+
+    public SqlRequestStatsTaskDecorator(SqlStatementMonitor sqlStatementMonitor) {
+        this.sqlStatementMonitor = sqlStatementMonitor;
+    }
+
+    @Override
+    public Runnable decorate(Runnable task) {
+
+        SqlStatementMonitor.RequestStats request = sqlStatementMonitor.currentRequest();
+        if(request == null) {
+            return task;
+        }
+        return () -> {
+            // A task run on the submitting thread itself must leave its request attached.
+            SqlStatementMonitor.RequestStats previous = sqlStatementMonitor.currentRequest();
+            sqlStatementMonitor.attach(request);
+            try {
+                task.run();
+            } finally {
+                if(previous != null) {
+                    sqlStatementMonitor.attach(previous);
+                } else {
+                    sqlStatementMonitor.detach();
+                }
+            }
+        };
+    }
+}
@@ -0,0 +1,323 @@
+package com.jt.tours.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Watches every JDBC statement of the application (see SqlDataSourceWrapper) instead of printing them all with
+ * show-sql:
+ *
+ *  slow query log   statements slower than tour.sql.slow-threshold are logged at WARN
+ *  sampled log      tour.sql.log-sample-rate of the statements are logged at INFO
+ *  per request      the statements of the current HTTP request are counted (see SqlRequestStatsFilter), including
+ *                   those of the tasks it hands to the login pool and to the async executor of the streamed
+ *                   exports (see SqlRequestStatsTaskDecorator)
+ *  statistics       the statements are aggregated by their normalized SQL, literals and IN lists folded into ?,
+ *                   and served slowest first by the sqlstats actuator endpoint
+ *
+ * The parameters are only logged and kept (those of the slowest execution of each statement) when
+ * tour.sql.log-parameters is set, since they hold user data.
+ *
+ * Meters: tours.sql {type, outcome} statement execution time.
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+@Slf4j
+@Component
+public class SqlStatementMonitor implements QueryExecutionListener {
+
+    static final String SQL_METRIC = "tours.sql";
+
+    // Statements beyond the limit are aggregated under this key, so odd queries cannot grow the map unbounded.
+    static final String OTHER_STATEMENTS = "(other statements)";
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin \\(\\?(?:, ?\\?)*\\)");
+
+    private static final int MAX_PARAMETERS_LENGTH = 500;
+
+    private final MeterRegistry meterRegistry;
+
+    private final long slowThresholdMillis;
+
+    private final double logSampleRate;
+
+    private final boolean logParameters;
+
+    private final int maxStatements;
+
+    // normalized SQL -> statistics
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+
+    // statement type -> timer, per outcome
+    private final Map<String, Timer> successTimers = new ConcurrentHashMap<>();
+    private final Map<String, Timer> errorTimers = new ConcurrentHashMap<>();
+
+    // statements of the HTTP request served by the current thread, null outside a request
+    private final ThreadLocal<RequestStats> requestStats = new ThreadLocal<>();
+
+    /**
+     * The registry is resolved lazily: the monitor is created along with the data source, before the meter
+     * filters are configured.
+     */
+    @Autowired
+    public SqlStatementMonitor(@Lazy MeterRegistry meterRegistry,
+                               @Value("${tour.sql.slow-threshold:200ms}") Duration slowThreshold,
+                               @Value("${tour.sql.log-sample-rate:0}") double logSampleRate,
+                               @Value("${tour.sql.log-parameters:false}") boolean logParameters,
+                               @Value("${tour.sql.max-statements:1000}") int maxStatements) {
+        this.meterRegistry = meterRegistry;
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.logSampleRate = logSampleRate;
+        this.logParameters = logParameters;
+        this.maxStatements = maxStatements;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+        // Everything is recorded once the statement completed.
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo executionInfo, List<QueryInfo> queryInfoList) {
+
+        long elapsedMillis = executionInfo.getElapsedTime();
+        boolean success = executionInfo.isSuccess();
+
+        RequestStats request = requestStats.get();
+        if(request != null) {
+            request.record(elapsedMillis);
+        }
+
+        for(QueryInfo queryInfo : queryInfoList) {
+            String sql = normalize(queryInfo.getQuery());
+            String parameters = logParameters ? parameters(queryInfo) : null;
+
+            statsOf(sql).record(elapsedMillis, success, parameters);
+            timerOf(typeOf(sql), success).record(elapsedMillis, TimeUnit.MILLISECONDS);
+
+            if(elapsedMillis >= slowThresholdMillis) {
+                log.warn("Slow SQL ({} ms{}): {}{}", elapsedMillis, batchOf(executionInfo), sql,
+                        parameters != null ? " " + parameters : "");
+            } else if(logSampleRate > 0 && ThreadLocalRandom.current().nextDouble() < logSampleRate) {
+                log.info("SQL ({} ms{}): {}{}", elapsedMillis, batchOf(executionInfo), sql,
+                        parameters != null ? " " + parameters : "");
+            }
+        }
+    }
+
+    /**
+     * Start counting the statements of the HTTP request served by the current thread.
+     *
+     * @return the statements of the request, to attach to the threads that go on serving it
+     */
+    public RequestStats startRequest() {
+        RequestStats request = new RequestStats();
+        requestStats.set(request);
+        return request;
+    }
+
+    /**
+     * @return the statements of the HTTP request served by the current thread, null outside a request
+     */
+    public RequestStats currentRequest() {
+        return requestStats.get();
+    }
+
+    /**
+     * Count the statements of the current thread into those of a request started on another thread.
+     *
+     * @param request the statements of the request
+     */
+    public void attach(RequestStats request) {
+        requestStats.set(request);
+    }
+
+    /**
+     * Stop counting the statements of the current thread into those of a request.
+     */
+    public void detach() {
+        requestStats.remove();
+    }
+
+    /**
+     * Stop counting the statements of the current HTTP request.
+     *
+     * @return the statements issued since startRequest
+     */
+    public RequestStats endRequest() {
+        RequestStats request = requestStats.get();
+        requestStats.remove();
+        return request != null ? request : new RequestStats();
+    }
+
+    /**
+     * @param limit maximum number of statements to return
+     * @param order one of total (default), mean, max or count
+     * @return the most expensive statements first
+     */
+    public List<SqlStatementSummary> topStatements(int limit, String order) {
+        return statements.entrySet().stream()
+                .map(entry -> entry.getValue().summarize(entry.getKey()))
+                .sorted(comparatorOf(order).reversed())
+                .limit(Math.max(0, limit))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Drop the aggregated statistics.
+     */
+    public void reset() {
+        statements.clear();
+    }
+
+    /**
+     * Fold the literals and IN lists into placeholders, so the executions of a statement aggregate together
+     * whatever their values.
+     */
+    static String normalize(String sql) {
+        String normalized = WHITESPACE.matcher(sql.trim()).replaceAll(" ");
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        return IN_LIST.matcher(normalized).replaceAll("in (?)");
+    }
+
+    private StatementStats statsOf(String sql) {
+        StatementStats stats = statements.get(sql);
+        if(stats != null) {
+            return stats;
+        }
+        String key = statements.size() < maxStatements ? sql : OTHER_STATEMENTS;
+        return statements.computeIfAbsent(key, ignored -> new StatementStats());
+    }
+
+    private Timer timerOf(String type, boolean success) {
+        Map<String, Timer> timers = success ? successTimers : errorTimers;
+        Timer timer = timers.get(type);
+        if(timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(type, ignored -> Timer.builder(SQL_METRIC)
+                .tag("type", type)
+                .tag("outcome", success ? "success" : "error")
+                .register(meterRegistry));
+    }
+
+    private String typeOf(String sql) {
+        int end = sql.indexOf(' ');
+        String verb = (end > 0 ? sql.substring(0, end) : sql).toLowerCase(Locale.ROOT);
+        switch(verb) {
+            case "select":
+            case "insert":
+            case "update":
+            case "delete":
+                return verb;
+            default:
+                return "other";
+        }
+    }
+
+    private String batchOf(ExecutionInfo executionInfo) {
+        return executionInfo.isBatch() ? ", batch of " + executionInfo.getBatchSize() : "";
+    }
+
+    private String parameters(QueryInfo queryInfo) {
+        String parameters = queryInfo.getParametersList().stream()
+                .map(parameterSet -> parameterSet.stream()
+                        .map(ParameterSetOperation::getArgs)
+                        .filter(args -> args.length > 1)
+                        .map(args -> String.valueOf(args[1]))
+                        .collect(Collectors.joining(", ", "[", "]")))
+                .collect(Collectors.joining(", "));
+        return parameters.length() > MAX_PARAMETERS_LENGTH ? parameters.substring(0, MAX_PARAMETERS_LENGTH) + "..." : parameters;
+    }
+
+    private Comparator<SqlStatementSummary> comparatorOf(String order) {
+        switch(order == null ? "total" : order.toLowerCase(Locale.ROOT)) {
+            case "mean":
+                return Comparator.comparingDouble(SqlStatementSummary::getMeanMillis);
+            case "max":
+                return Comparator.comparingLong(SqlStatementSummary::getMaxMillis);
+            case "count":
+                return Comparator.comparingLong(SqlStatementSummary::getCount);
+            default:
+                return Comparator.comparingLong(SqlStatementSummary::getTotalMillis);
+        }
+    }
+
+    /**
+     * Statements issued while serving one HTTP request, by the request thread and the tasks it handed over.
+     */
+    public static class RequestStats {
+
+        private final LongAdder statements = new LongAdder();
+
+        private final LongAdder elapsedMillis = new LongAdder();
+
+        void record(long elapsedMillis) {
+            this.statements.increment();
+            this.elapsedMillis.add(elapsedMillis);
+        }
+
+        public long getStatements() {
+            return statements.sum();
+        }
+
+        public long getElapsedMillis() {
+            return elapsedMillis.sum();
+        }
+    }
+
+    /**
+     * Running totals of one normalized statement.
+     */
+    private static class StatementStats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        // parameters of the slowest execution, when the parameters are logged
+        private volatile String slowestParameters;
+
+        void record(long elapsedMillis, boolean success, String parameters) {
+            count.increment();
+            totalMillis.add(elapsedMillis);
+            if(!success) {
+                errors.increment();
+            }
+            if(elapsedMillis > maxMillis.getAndAccumulate(elapsedMillis, Math::max) || slowestParameters == null) {
+                slowestParameters = parameters;
+            }
+        }
+
+        SqlStatementSummary summarize(String sql) {
+            return new SqlStatementSummary(sql, count.sum(), errors.sum(), totalMillis.sum(), maxMillis.get(), slowestParameters);
+        }
+    }
+}
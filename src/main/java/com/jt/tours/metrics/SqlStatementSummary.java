@@ -0,0 +1,38 @@
+package com.jt.tours.metrics;
+
+import lombok.Getter;
+
+/**
+ * Aggregated executions of a normalized SQL statement, as served by the sqlstats actuator endpoint.
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+@Getter
+public class SqlStatementSummary {
+
+    // The statement with its literals folded into placeholders.
+    private final String sql;
+
+    private final long count;
+
+    private final long errors;
+
+    private final long totalMillis;
+
+    private final double meanMillis;
+
+    private final long maxMillis;
+
+    // Parameters of the slowest execution, null unless tour.sql.log-parameters is set.
+    private final String slowestParameters;
+
+    public SqlStatementSummary(String sql, long count, long errors, long totalMillis, long maxMillis, String slowestParameters) {
+        this.sql = sql;
+        this.count = count;
+        this.errors = errors;
+        this.totalMillis = totalMillis;
+        this.meanMillis = count == 0 ? 0 : (double) totalMillis / count;
+        this.maxMillis = maxMillis;
+        this.slowestParameters = slowestParameters;
+    }
+}
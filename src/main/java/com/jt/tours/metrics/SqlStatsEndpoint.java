@@ -0,0 +1,40 @@
+package com.jt.tours.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Actuator endpoint serving the most expensive SQL statements since startup or the last reset:
+ *
+ *  GET    /actuator/sqlstats?limit=20&sort=total   top statements by total, mean or max time, or by count
+ *  DELETE /actuator/sqlstats                      drop the statistics, e.g. before a load test
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+@Component
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final SqlStatementMonitor sqlStatementMonitor;
+
+    public SqlStatsEndpoint(SqlStatementMonitor sqlStatementMonitor) {
+        this.sqlStatementMonitor = sqlStatementMonitor;
+    }
+
+    @ReadOperation
+    public List<SqlStatementSummary> topStatements(@Nullable Integer limit, @Nullable String sort) {
+        return sqlStatementMonitor.topStatements(limit != null ? limit : DEFAULT_LIMIT, sort);
+    }
+
+    @DeleteOperation
+    public void reset() {
+        sqlStatementMonitor.reset();
+    }
+}
@@ -0,0 +1,69 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.security.domain.RefreshToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Refresh Token Repository Interface
+ *
+ * Created by Jason Tao on 7/5/2020
+ */
+@RepositoryRestResource(exported = false)
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Find the refresh token by the hash of its value.
+     *
+     * @param tokenHash the SHA-256 hash of the token
+     * @return the refresh token if found; otherwise empty.
+     */
+    Optional<RefreshToken> findByTokenHash(String tokenHash);
+
+    /**
+     * Revoke the token unless it is already revoked. Only one of concurrent refreshes with the same token wins.
+     *
+     * @param id the refresh token identifier
+     * @param revokedAt the revocation time
+     * @return 1 if the token was revoked by this call, 0 if it was already revoked
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :revokedAt where t.id = :id and t.revokedAt is null")
+    int revoke(@Param("id") Long id, @Param("revokedAt") Instant revokedAt);
+
+    /**
+     * Read the revocation time of a token from the database, bypassing the persistence context.
+     *
+     * @param id the refresh token identifier
+     * @return the revocation time if the token is revoked; otherwise empty.
+     */
+    @Query("select t.revokedAt from RefreshToken t where t.id = :id")
+    Optional<Instant> findRevokedAtById(@Param("id") Long id);
+
+    /**
+     * Revoke every token of a family that is not revoked yet.
+     *
+     * @param familyId the family identifier
+     * @param revokedAt the revocation time
+     * @return the number of tokens revoked
+     */
+    @Modifying
+    @Query("update RefreshToken t set t.revokedAt = :revokedAt where t.familyId = :familyId and t.revokedAt is null")
+    int revokeFamily(@Param("familyId") String familyId, @Param("revokedAt") Instant revokedAt);
+
+    /**
+     * Delete the tokens that expired before the given time.
+     *
+     * @param expiresAt the time limit
+     * @return the number of tokens deleted
+     */
+    @Modifying
+    @Query("delete from RefreshToken t where t.expiresAt < :expiresAt")
+    int deleteExpiredBefore(@Param("expiresAt") Instant expiresAt);
+}
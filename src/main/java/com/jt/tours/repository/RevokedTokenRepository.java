@@ -0,0 +1,41 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.security.domain.RevokedToken;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Revoked Token Repository Interface
+ *
+ * Created by Jason Tao on 7/6/2020
+ */
+@RepositoryRestResource(exported = false)
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+
+    /**
+     * Find the tokens revoked since the given time that are not expired yet.
+     *
+     * @param revokedAt the lower bound of the revocation time
+     * @param expiresAt the lower bound of the expiration time
+     * @return list of revoked tokens
+     */
+    List<RevokedToken> findByRevokedAtGreaterThanEqualAndExpiresAtAfter(Instant revokedAt, Instant expiresAt);
+
+    /**
+     * Delete the revoked tokens that expired before the given time.
+     *
+     * @param expiresAt the time limit
+     * @return the number of tokens deleted
+     */
+    @Modifying
+    @Transactional
+    @Query("delete from RevokedToken t where t.expiresAt < :expiresAt")
+    int deleteExpiredBefore(@Param("expiresAt") Instant expiresAt);
+}
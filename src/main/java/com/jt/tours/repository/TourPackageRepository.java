@@ -1,15 +1,23 @@
 package com.jt.tours.repository;
 
 import com.jt.tours.domain.TourPackage;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Optional;
 
+import static com.jt.tours.config.CacheConfiguration.TOUR_PACKAGES_CACHE;
+import static com.jt.tours.config.CacheConfiguration.TOUR_PAGES_CACHE;
+
 /**
- * Tour Package Repository Interface
+ * Tour Package Repository Interface. Lookups by name and the list of packages are served from the catalog caches,
+ * which are cleared on every write. Tours embed their package, so package writes clear the tour pages as well.
+ * findById is not cached, since Spring Data REST merges the PUT and PATCH requests into the package it returns.
  *
  * Created by Jason Tao on 5/30/2020
  */
@@ -22,35 +30,48 @@ public interface TourPackageRepository extends CrudRepository<TourPackage, Strin
      * @param name name of the tour
      * @return the tour package if found; otherwise empty.
      */
+    @Cacheable(cacheNames = TOUR_PACKAGES_CACHE, key = "'name:' + #p0")
+    @Transactional(readOnly = true)
     Optional<TourPackage> findByName(String name);
 
+    @Override
+    @Cacheable(cacheNames = TOUR_PACKAGES_CACHE, key = "'all'")
+    @Transactional(readOnly = true)
+    Iterable<TourPackage> findAll();
+
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = {TOUR_PACKAGES_CACHE, TOUR_PAGES_CACHE}, allEntries = true)
     <S extends TourPackage> S save(S tour);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = {TOUR_PACKAGES_CACHE, TOUR_PAGES_CACHE}, allEntries = true)
     <S extends TourPackage> Iterable<S> saveAll(Iterable<S> iterable);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = {TOUR_PACKAGES_CACHE, TOUR_PAGES_CACHE}, allEntries = true)
     void deleteById(String code);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = {TOUR_PACKAGES_CACHE, TOUR_PAGES_CACHE}, allEntries = true)
     void delete(TourPackage var1);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = {TOUR_PACKAGES_CACHE, TOUR_PAGES_CACHE}, allEntries = true)
     void deleteAll(Iterable<? extends TourPackage> iterable);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = {TOUR_PACKAGES_CACHE, TOUR_PAGES_CACHE}, allEntries = true)
     void deleteAll();
 }
@@ -0,0 +1,32 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.domain.TourRatingAggregate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.data.rest.core.annotation.RepositoryRestResource;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+/**
+ * Tour Rating Aggregate Repository Interface
+ *
+ * Created by Jason Tao on 6/20/2020
+ */
+@RepositoryRestResource(exported = false)
+public interface TourRatingAggregateRepository extends JpaRepository<TourRatingAggregate, Long>,
+        TourRatingAggregateUpsertRepository {
+
+    /**
+     * Find the aggregate of a tour and lock the row for the rest of the transaction so concurrent
+     * rating writes are applied one after the other.
+     *
+     * @param tourId is the tour identifier
+     * @return the aggregate if found; otherwise empty.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from TourRatingAggregate a where a.tourId = :tourId")
+    Optional<TourRatingAggregate> findByTourIdForUpdate(@Param("tourId") Long tourId);
+}
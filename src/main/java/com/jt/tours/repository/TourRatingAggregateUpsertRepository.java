@@ -0,0 +1,17 @@
+package com.jt.tours.repository;
+
+/**
+ * Creation of the tour rating aggregate rows within the transaction of the rating write.
+ *
+ * Created by Jason Tao on 6/20/2020
+ */
+public interface TourRatingAggregateUpsertRepository {
+
+    /**
+     * Insert the empty aggregate of a tour unless it exists already, in the current transaction. When two first
+     * ratings of a tour race, the second one waits for the first to commit and then finds the row.
+     *
+     * @param tourId is the tour identifier
+     */
+    void insertIfAbsent(Long tourId);
+}
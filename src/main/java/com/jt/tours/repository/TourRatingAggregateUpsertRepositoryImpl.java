@@ -0,0 +1,59 @@
+package com.jt.tours.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Locale;
+
+/**
+ * JDBC implementation of the aggregate row creation. It runs on the connection of the current transaction, so
+ * the first rating of a tour does not take a second connection from the pool.
+ *
+ * Created by Jason Tao on 6/20/2020
+ */
+@Slf4j
+public class TourRatingAggregateUpsertRepositoryImpl implements TourRatingAggregateUpsertRepository {
+
+    // MySQL: a duplicate key takes the exclusive lock of the existing row, the one the rating write locks next.
+    // A plain insert failing on the duplicate would take a shared lock instead, and two first ratings both
+    // upgrading their shared lock would deadlock.
+    private static final String UPSERT_AGGREGATE_MYSQL_SQL =
+            "insert into tour_rating_aggregate (tour_id) values (?) on duplicate key update tour_id = tour_id";
+
+    private static final String INSERT_AGGREGATE_SQL = "insert into tour_rating_aggregate (tour_id) values (?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Boolean mysql;
+
+    public TourRatingAggregateUpsertRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void insertIfAbsent(Long tourId) {
+
+        if(isMysql()) {
+            jdbcTemplate.update(UPSERT_AGGREGATE_MYSQL_SQL, tourId);
+            return;
+        }
+        try {
+            jdbcTemplate.update(INSERT_AGGREGATE_SQL, tourId);
+        } catch (DuplicateKeyException ex) {
+            // Only the failed statement is rolled back, the transaction goes on.
+            log.debug("Aggregate of tour {} created concurrently", tourId);
+        }
+    }
+
+    private boolean isMysql() {
+        Boolean isMysql = mysql;
+        if(isMysql == null) {
+            isMysql = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+            mysql = isMysql;
+        }
+        return isMysql;
+    }
+}
@@ -0,0 +1,24 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.web.rest.dto.TourRatingBatchResult;
+
+import java.util.List;
+
+/**
+ * Bulk insert operations for tour ratings that bypass the entity manager.
+ *
+ * Created by Jason Tao on 6/21/2020
+ */
+public interface TourRatingBulkRepository {
+
+    /**
+     * Insert the same rating score for multiple customers using JDBC batching. Customers that already
+     * rated the tour are reported as duplicates instead of failing the whole submission.
+     *
+     * @param tourId is the tour identifier
+     * @param customerIds the customer identifiers
+     * @param ratingScore score of the tour rating
+     * @return summary of the inserted and duplicate ratings
+     */
+    TourRatingBatchResult insertRatings(Long tourId, List<Long> customerIds, Integer ratingScore);
+}
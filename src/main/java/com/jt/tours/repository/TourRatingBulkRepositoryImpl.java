@@ -0,0 +1,163 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.domain.TourRating;
+import com.jt.tours.web.rest.dto.TourRatingBatchResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.BatchUpdateException;
+import java.sql.Statement;
+import java.util.*;
+
+/**
+ * JDBC batching implementation of the tour rating bulk insert.
+ *
+ * Created by Jason Tao on 6/21/2020
+ */
+@Slf4j
+public class TourRatingBulkRepositoryImpl implements TourRatingBulkRepository {
+
+    private static final String INSERT_RATING_SQL =
+            "insert into tour_rating (tour_id, customer_id, rating_score, comment) values (?, ?, ?, ?)";
+
+    private static final String SELECT_RATED_CUSTOMERS_SQL =
+            "select customer_id from tour_rating where tour_id = :tourId and customer_id in (:customerIds)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    // Number of rows sent to the database per batch.
+    private final int batchSize;
+
+    public TourRatingBulkRepositoryImpl(JdbcTemplate jdbcTemplate,
+                                        NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                                        @Value("${tour.rating.bulk.batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public TourRatingBatchResult insertRatings(Long tourId, List<Long> customerIds, Integer ratingScore) {
+
+        List<Long> duplicateCustomerIds = new ArrayList<>();
+
+        // Customers repeated within the submission only get a single rating.
+        Set<Long> uniqueCustomerIds = new LinkedHashSet<>();
+        customerIds.forEach(customerId -> {
+            if(!uniqueCustomerIds.add(customerId)) {
+                duplicateCustomerIds.add(customerId);
+            }
+        });
+
+        // Skip the customers that already rated the tour before sending any insert.
+        List<Long> pendingCustomerIds = new ArrayList<>(uniqueCustomerIds);
+        Set<Long> ratedCustomerIds = findRatedCustomers(tourId, pendingCustomerIds);
+        pendingCustomerIds.removeIf(customerId -> {
+            if(ratedCustomerIds.contains(customerId)) {
+                duplicateCustomerIds.add(customerId);
+                return true;
+            }
+            return false;
+        });
+
+        String comment = TourRating.toComment(ratingScore);
+        int inserted = 0;
+        for(List<Long> chunk : partition(pendingCustomerIds)) {
+            inserted += insertChunk(tourId, chunk, ratingScore, comment, duplicateCustomerIds);
+        }
+
+        log.debug("Inserted {} tour ratings for tour {} with {} duplicates", inserted, tourId, duplicateCustomerIds.size());
+        return TourRatingBatchResult.builder()
+                .tourId(tourId)
+                .requested(customerIds.size())
+                .inserted(inserted)
+                .duplicateCustomerIds(duplicateCustomerIds)
+                .build();
+    }
+
+    /**
+     * Insert a chunk of ratings as a single JDBC batch. If a concurrent submission rated one of the customers in
+     * the meantime, the rows the driver did not confirm are retried one by one.
+     *
+     * @return number of rows inserted
+     */
+    private int insertChunk(Long tourId, List<Long> chunk, Integer ratingScore, String comment, List<Long> duplicateCustomerIds) {
+
+        List<Object[]> batchArgs = new ArrayList<>(chunk.size());
+        chunk.forEach(customerId -> batchArgs.add(new Object[]{tourId, customerId, ratingScore, comment}));
+
+        try {
+            jdbcTemplate.batchUpdate(INSERT_RATING_SQL, batchArgs);
+            return chunk.size();
+        } catch (DuplicateKeyException ex) {
+
+            int[] updateCounts = findUpdateCounts(ex);
+            int inserted = 0;
+            for(int i = 0; i < chunk.size(); i++) {
+                if(i < updateCounts.length && updateCounts[i] != Statement.EXECUTE_FAILED) {
+                    // The driver confirmed this row.
+                    inserted++;
+                } else if(insertRow(batchArgs.get(i))) {
+                    inserted++;
+                } else {
+                    duplicateCustomerIds.add(chunk.get(i));
+                }
+            }
+            return inserted;
+        }
+    }
+
+    /**
+     * Insert a single rating row.
+     *
+     * @return true if inserted, false if the customer already rated the tour.
+     */
+    private boolean insertRow(Object[] args) {
+        try {
+            jdbcTemplate.update(INSERT_RATING_SQL, args);
+            return true;
+        } catch (DuplicateKeyException ex) {
+            return false;
+        }
+    }
+
+    /**
+     * Find which of the customers already rated the tour.
+     */
+    private Set<Long> findRatedCustomers(Long tourId, List<Long> customerIds) {
+        Set<Long> ratedCustomerIds = new HashSet<>();
+        for(List<Long> chunk : partition(customerIds)) {
+            ratedCustomerIds.addAll(namedParameterJdbcTemplate.queryForList(SELECT_RATED_CUSTOMERS_SQL,
+                    new MapSqlParameterSource("tourId", tourId).addValue("customerIds", chunk), Long.class));
+        }
+        return ratedCustomerIds;
+    }
+
+    /**
+     * Extract the per row update counts reported by the driver for a failed batch. Rows past the end of the
+     * array were not processed and rows marked as failed were rolled back, so both are safe to retry.
+     */
+    private int[] findUpdateCounts(Throwable ex) {
+        for(Throwable cause = ex; cause != null; cause = cause.getCause()) {
+            if(cause instanceof BatchUpdateException) {
+                int[] updateCounts = ((BatchUpdateException) cause).getUpdateCounts();
+                return updateCounts != null ? updateCounts : new int[0];
+            }
+        }
+        return new int[0];
+    }
+
+    private List<List<Long>> partition(List<Long> ids) {
+        List<List<Long>> chunks = new ArrayList<>();
+        for(int from = 0; from < ids.size(); from += batchSize) {
+            chunks.add(ids.subList(from, Math.min(from + batchSize, ids.size())));
+        }
+        return chunks;
+    }
+}
@@ -1,19 +1,29 @@
 package com.jt.tours.repository;
 
 import com.jt.tours.domain.TourRating;
+import com.jt.tours.domain.TourRatingAggregate;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 
+import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.annotations.QueryHints.READ_ONLY;
+
 /**
+ * The listing finders load their ratings read only: Hibernate keeps no snapshot of them for dirty checking, even
+ * when they run inside a read write transaction. The ratings they return must not be modified.
+ *
  * Created by Jason Tao on 5/30/2020
  */
 @RepositoryRestResource(exported = false)
-public interface TourRatingRepository extends JpaRepository<TourRating, Long> {
+public interface TourRatingRepository extends JpaRepository<TourRating, Long>, TourRatingBulkRepository {
 
     /**
      * Find a list of TourRating by tour id.
@@ -21,6 +31,7 @@ public interface TourRatingRepository extends JpaRepository<TourRating, Long> {
      * @param tourId is the tour identifier
      * @return list of any found TourRatings
      */
+    @QueryHints(value = @QueryHint(name = READ_ONLY, value = "true"), forCounting = false)
     List<TourRating> findByTourId(Long tourId);
 
     /**
@@ -30,6 +41,7 @@ public interface TourRatingRepository extends JpaRepository<TourRating, Long> {
      * @param pageable details for the desired page
      * @return page of the any found TourRatings
      */
+    @QueryHints(value = @QueryHint(name = READ_ONLY, value = "true"), forCounting = false)
     Page<TourRating> findByTourId(Long tourId, Pageable pageable);
 
     /**
@@ -41,4 +53,53 @@ public interface TourRatingRepository extends JpaRepository<TourRating, Long> {
      */
     Optional<TourRating> findByTourIdAndCustomerId(Long tourId, Long customerId);
 
+    /**
+     * Return the TourRatings of a tour that come after a rating id, in id order, without counting the total.
+     *
+     * @param tourId is the tour identifier
+     * @param afterId the last rating id already seen
+     * @param pageable limit of the number of ratings to return
+     * @return list of any found TourRatings
+     */
+    @QueryHints(value = @QueryHint(name = READ_ONLY, value = "true"), forCounting = false)
+    List<TourRating> findByTourIdAndIdGreaterThanOrderByIdAsc(Long tourId, Long afterId, Pageable pageable);
+
+    /**
+     * Return the TourRatings that come after a rating id, in id order, without counting the total.
+     *
+     * @param afterId the last rating id already seen
+     * @param pageable limit of the number of ratings to return
+     * @return list of any found TourRatings
+     */
+    @QueryHints(value = @QueryHint(name = READ_ONLY, value = "true"), forCounting = false)
+    List<TourRating> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    /**
+     * Recompute the rating aggregate of every rated tour from the tour ratings.
+     *
+     * @return list of aggregates, one per rated tour
+     */
+    @Query("select new com.jt.tours.domain.TourRatingAggregate(r.tour.id, count(r), sum(r.ratingScore), " +
+            "sum(case when r.ratingScore = 1 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 2 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 3 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 4 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 5 then 1 else 0 end)) " +
+            "from TourRating r where r.tour is not null group by r.tour.id")
+    List<TourRatingAggregate> computeAggregates();
+
+    /**
+     * Compute the rating aggregate of a single tour from its tour ratings.
+     *
+     * @param tourId is the tour identifier
+     * @return the aggregate if the tour has ratings; otherwise empty.
+     */
+    @Query("select new com.jt.tours.domain.TourRatingAggregate(r.tour.id, count(r), sum(r.ratingScore), " +
+            "sum(case when r.ratingScore = 1 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 2 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 3 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 4 then 1 else 0 end), " +
+            "sum(case when r.ratingScore = 5 then 1 else 0 end)) " +
+            "from TourRating r where r.tour.id = :tourId group by r.tour.id")
+    Optional<TourRatingAggregate> computeAggregate(@Param("tourId") Long tourId);
 }
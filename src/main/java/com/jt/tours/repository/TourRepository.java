@@ -1,6 +1,8 @@
 package com.jt.tours.repository;
 
 import com.jt.tours.domain.Tour;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.repository.PagingAndSortingRepository;
@@ -8,9 +10,13 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.data.rest.core.annotation.RepositoryRestResource;
 import org.springframework.data.rest.core.annotation.RestResource;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
+
+import static com.jt.tours.config.CacheConfiguration.TOUR_PAGES_CACHE;
 
 /**
- * Tour Repository Interface
+ * Tour Repository Interface. The pages of tours are served from the catalog cache, which is cleared on every write.
+ * findById is not cached, since Spring Data REST merges the PUT and PATCH requests into the tour it returns.
  *
  * Created by Jason Tao on 5/30/2020
  */
@@ -24,35 +30,48 @@ public interface TourRepository extends PagingAndSortingRepository<Tour, Long> {
      * @param pageable pageable detail for searching the correct page
      * @return page of tours if found; otherwise empty.
      */
+    @Cacheable(cacheNames = TOUR_PAGES_CACHE)
+    @Transactional(readOnly = true)
     Page<Tour> findByTourPackageCode(@Param("code") String code, Pageable pageable);
 
+    @Override
+    @Cacheable(cacheNames = TOUR_PAGES_CACHE)
+    @Transactional(readOnly = true)
+    Page<Tour> findAll(Pageable pageable);
+
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = TOUR_PAGES_CACHE, allEntries = true)
     <S extends Tour> S save(S tour);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = TOUR_PAGES_CACHE, allEntries = true)
     <S extends Tour> Iterable<S> saveAll(Iterable<S> iterable);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = TOUR_PAGES_CACHE, allEntries = true)
     void deleteById(Long id);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = TOUR_PAGES_CACHE, allEntries = true)
     void delete(Tour var1);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = TOUR_PAGES_CACHE, allEntries = true)
     void deleteAll(Iterable<? extends Tour> iterable);
 
     @Override
     @RestResource(exported = false)
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
+    @CacheEvict(cacheNames = TOUR_PAGES_CACHE, allEntries = true)
     void deleteAll();
 }
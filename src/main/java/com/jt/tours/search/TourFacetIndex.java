@@ -0,0 +1,231 @@
+package com.jt.tours.search;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import com.jt.tours.domain.Tour;
+
+import java.util.*;
+
+/**
+ * In-memory bitmap indexes over the tour facets. Every tour gets a position (in tour id order) and each value of
+ * the difficulty, region, package code and price bucket facets owns a bitmap of the positions having that value.
+ * A query is answered with bitmap unions and intersections, and the facet counts are the cardinality of each
+ * value's bitmap intersected with the filters of the other facets.
+ *
+ * The bitmaps are rebuilt into a new immutable snapshot on every write, which suits a catalog that changes a few
+ * times a day; reads never lock.
+ *
+ * Created by Jason Tao on 6/28/2020
+ */
+public class TourFacetIndex {
+
+    public static final String DIFFICULTY_FACET = "difficulty";
+    public static final String REGION_FACET = "region";
+    public static final String PACKAGE_FACET = "package";
+    public static final String PRICE_FACET = "price";
+
+    private final int priceBucketWidth;
+
+    // tour id -> tour, the source the snapshots are built from
+    private final Map<Long, Tour> tours = new TreeMap<>();
+
+    private volatile Snapshot snapshot;
+
+    public TourFacetIndex(int priceBucketWidth) {
+        this.priceBucketWidth = Math.max(1, priceBucketWidth);
+        this.snapshot = new Snapshot(Collections.emptyList(), this.priceBucketWidth);
+    }
+
+    /**
+     * Replace the whole content of the index.
+     *
+     * @param allTours every tour of the catalog
+     */
+    public synchronized void rebuild(Iterable<Tour> allTours) {
+        tours.clear();
+        allTours.forEach(tour -> tours.put(tour.getId(), tour));
+        snapshot = new Snapshot(tours.values(), priceBucketWidth);
+    }
+
+    /**
+     * Add or replace a tour in the index.
+     *
+     * @param tour the tour
+     */
+    public synchronized void index(Tour tour) {
+        tours.put(tour.getId(), tour);
+        snapshot = new Snapshot(tours.values(), priceBucketWidth);
+    }
+
+    /**
+     * Remove a tour from the index.
+     *
+     * @param tourId the tour identifier
+     */
+    public synchronized void remove(Long tourId) {
+        if(tours.remove(tourId) != null) {
+            snapshot = new Snapshot(tours.values(), priceBucketWidth);
+        }
+    }
+
+    /**
+     * Find a page of the tours matching the query along with the facet counts.
+     *
+     * @param query the facet filters
+     * @param offset index of the first matching tour to return
+     * @param limit maximum number of tours to return
+     * @return the matching tours and the facet counts
+     */
+    public TourFacetResult filter(TourFacetQuery query, long offset, int limit) {
+        return snapshot.filter(query, offset, limit);
+    }
+
+    /**
+     * Immutable set of bitmaps over a fixed list of tours.
+     */
+    private static class Snapshot {
+
+        private final int priceBucketWidth;
+        private final Tour[] tours;
+        private final BitSet all;
+        private final Map<DifficultyEnum, BitSet> difficulties = new EnumMap<>(DifficultyEnum.class);
+        private final Map<RegionEnum, BitSet> regions = new EnumMap<>(RegionEnum.class);
+        private final Map<String, BitSet> packages = new TreeMap<>();
+        // price bucket lower bound -> positions with a price in the bucket
+        private final NavigableMap<Integer, BitSet> priceBuckets = new TreeMap<>();
+
+        Snapshot(Collection<Tour> sortedTours, int priceBucketWidth) {
+            this.priceBucketWidth = priceBucketWidth;
+            this.tours = sortedTours.toArray(new Tour[0]);
+            this.all = new BitSet(tours.length);
+            for(int position = 0; position < tours.length; position++) {
+                Tour tour = tours[position];
+                all.set(position);
+                if(tour.getDifficulty() != null) {
+                    difficulties.computeIfAbsent(tour.getDifficulty(), key -> new BitSet()).set(position);
+                }
+                if(tour.getRegion() != null) {
+                    regions.computeIfAbsent(tour.getRegion(), key -> new BitSet()).set(position);
+                }
+                if(tour.getTourPackage() != null) {
+                    packages.computeIfAbsent(tour.getTourPackage().getCode(), key -> new BitSet()).set(position);
+                }
+                if(tour.getPrice() != null) {
+                    priceBuckets.computeIfAbsent(bucketOf(tour.getPrice()), key -> new BitSet()).set(position);
+                }
+            }
+        }
+
+        TourFacetResult filter(TourFacetQuery query, long offset, int limit) {
+
+            BitSet difficultyMatches = union(difficulties, query.getDifficulties());
+            BitSet regionMatches = union(regions, query.getRegions());
+            BitSet packageMatches = union(packages, query.getPackageCodes());
+            BitSet priceMatches = priceRange(query.getMinPrice(), query.getMaxPrice(), query.hasPriceRange());
+
+            BitSet matches = intersect(difficultyMatches, regionMatches, packageMatches, priceMatches);
+
+            // Each facet is counted against the filters of the other facets, so picking a value does not hide its siblings.
+            Map<String, Map<String, Integer>> facetCounts = new LinkedHashMap<>();
+            facetCounts.put(DIFFICULTY_FACET, count(difficulties, intersect(regionMatches, packageMatches, priceMatches)));
+            facetCounts.put(REGION_FACET, count(regions, intersect(difficultyMatches, packageMatches, priceMatches)));
+            facetCounts.put(PACKAGE_FACET, count(packages, intersect(difficultyMatches, regionMatches, priceMatches)));
+            facetCounts.put(PRICE_FACET, countPriceBuckets(intersect(difficultyMatches, regionMatches, packageMatches)));
+
+            List<Tour> page = new ArrayList<>(Math.min(limit, tours.length));
+            long skipped = 0;
+            for(int position = matches.nextSetBit(0); position >= 0 && page.size() < limit; position = matches.nextSetBit(position + 1)) {
+                if(skipped++ >= offset) {
+                    page.add(tours[position]);
+                }
+            }
+            return new TourFacetResult(page, matches.cardinality(), facetCounts);
+        }
+
+        private <K> BitSet union(Map<K, BitSet> bitmaps, Set<K> values) {
+            if(values.isEmpty()) {
+                return all;
+            }
+            BitSet union = new BitSet(tours.length);
+            values.forEach(value -> {
+                BitSet bitmap = bitmaps.get(value);
+                if(bitmap != null) {
+                    union.or(bitmap);
+                }
+            });
+            return union;
+        }
+
+        private BitSet priceRange(Integer minPrice, Integer maxPrice, boolean hasPriceRange) {
+            if(!hasPriceRange) {
+                return all;
+            }
+            int min = minPrice != null ? minPrice : Integer.MIN_VALUE;
+            int max = maxPrice != null ? maxPrice : Integer.MAX_VALUE;
+            BitSet range = new BitSet(tours.length);
+            if(min > max) {
+                return range;
+            }
+            for(Map.Entry<Integer, BitSet> bucket : priceBuckets.subMap(bucketOf(min), true, bucketOf(max), true).entrySet()) {
+                long bucketMin = bucket.getKey();
+                long bucketMax = bucketMin + priceBucketWidth - 1;
+                if(bucketMin >= min && bucketMax <= max) {
+                    // Bucket entirely inside the range.
+                    range.or(bucket.getValue());
+                } else {
+                    // Bucket on the edge of the range; check each price.
+                    BitSet bits = bucket.getValue();
+                    for(int position = bits.nextSetBit(0); position >= 0; position = bits.nextSetBit(position + 1)) {
+                        int price = tours[position].getPrice();
+                        if(price >= min && price <= max) {
+                            range.set(position);
+                        }
+                    }
+                }
+            }
+            return range;
+        }
+
+        private BitSet intersect(BitSet first, BitSet... others) {
+            BitSet intersection = (BitSet) first.clone();
+            for(BitSet other : others) {
+                intersection.and(other);
+            }
+            return intersection;
+        }
+
+        private <K> Map<String, Integer> count(Map<K, BitSet> bitmaps, BitSet filter) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            bitmaps.forEach((value, bitmap) -> counts.put(label(value), cardinality(bitmap, filter)));
+            return counts;
+        }
+
+        private Map<String, Integer> countPriceBuckets(BitSet filter) {
+            Map<String, Integer> counts = new LinkedHashMap<>();
+            priceBuckets.forEach((bucketMin, bitmap) ->
+                    counts.put(bucketMin + "-" + (bucketMin + priceBucketWidth - 1), cardinality(bitmap, filter)));
+            return counts;
+        }
+
+        private int cardinality(BitSet bitmap, BitSet filter) {
+            BitSet intersection = (BitSet) bitmap.clone();
+            intersection.and(filter);
+            return intersection.cardinality();
+        }
+
+        private String label(Object value) {
+            if(value instanceof DifficultyEnum) {
+                return ((DifficultyEnum) value).getLabel();
+            }
+            if(value instanceof RegionEnum) {
+                return ((RegionEnum) value).getLabel();
+            }
+            return String.valueOf(value);
+        }
+
+        private int bucketOf(int price) {
+            // Long arithmetic so that the lowest bucket does not overflow.
+            return (int) Math.max(Integer.MIN_VALUE, Math.floorDiv((long) price, priceBucketWidth) * priceBucketWidth);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.jt.tours.search;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Facet filters of a tour query. An empty set does not filter on the facet; within a facet the values are OR-ed
+ * and the facets are AND-ed together.
+ *
+ * Created by Jason Tao on 6/28/2020
+ */
+@Getter
+public class TourFacetQuery {
+
+    private final Set<DifficultyEnum> difficulties;
+
+    private final Set<RegionEnum> regions;
+
+    private final Set<String> packageCodes;
+
+    // Inclusive price bounds, null when unbounded.
+    private final Integer minPrice;
+
+    private final Integer maxPrice;
+
+    @Builder
+    public TourFacetQuery(Set<DifficultyEnum> difficulties, Set<RegionEnum> regions, Set<String> packageCodes,
+                          Integer minPrice, Integer maxPrice) {
+        this.difficulties = difficulties == null ? Collections.emptySet() : difficulties;
+        this.regions = regions == null ? Collections.emptySet() : regions;
+        this.packageCodes = packageCodes == null ? Collections.emptySet() : packageCodes;
+        this.minPrice = minPrice;
+        this.maxPrice = maxPrice;
+    }
+
+    public boolean hasPriceRange() {
+        return minPrice != null || maxPrice != null;
+    }
+}
@@ -0,0 +1,31 @@
+package com.jt.tours.search;
+
+import com.jt.tours.domain.Tour;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The tours matching a facet query along with the number of matching tours per facet value.
+ *
+ * Created by Jason Tao on 6/28/2020
+ */
+@Getter
+public class TourFacetResult {
+
+    // The requested page of matching tours, ordered by tour id.
+    private final List<Tour> tours;
+
+    // Number of matching tours across all pages.
+    private final int total;
+
+    // facet name -> facet value -> number of matching tours
+    private final Map<String, Map<String, Integer>> facetCounts;
+
+    public TourFacetResult(List<Tour> tours, int total, Map<String, Map<String, Integer>> facetCounts) {
+        this.tours = tours;
+        this.total = total;
+        this.facetCounts = facetCounts;
+    }
+}
@@ -0,0 +1,22 @@
+package com.jt.tours.search;
+
+import com.jt.tours.domain.Tour;
+import lombok.Getter;
+
+/**
+ * A tour matched by a search along with its relevance score.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+@Getter
+public class TourSearchHit {
+
+    private final Tour tour;
+
+    private final float score;
+
+    public TourSearchHit(Tour tour, float score) {
+        this.tour = tour;
+        this.score = score;
+    }
+}
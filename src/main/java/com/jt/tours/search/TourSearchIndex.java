@@ -0,0 +1,137 @@
+package com.jt.tours.search;
+
+import com.jt.tours.domain.Tour;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory inverted index over the text fields of the tours. Every term maps to the tours containing it with a
+ * weight that sums the field boosts of each occurrence; the keywords and the title weigh more than the long
+ * descriptions. Queries are ranked by the sum of weight * idf of the matched terms.
+ *
+ * Reads are lock free; writes are serialized and replace the posting maps they touch.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+public class TourSearchIndex {
+
+    static final float KEYWORDS_BOOST = 4.0f;
+    static final float TITLE_BOOST = 3.0f;
+    static final float DESCRIPTION_BOOST = 1.5f;
+    static final float BLURB_BOOST = 1.0f;
+    static final float BULLETS_BOOST = 1.0f;
+
+    // term -> (tour id -> boosted term frequency)
+    private final Map<String, Map<Long, Float>> postings = new ConcurrentHashMap<>();
+
+    // tour id -> terms indexed for the tour, used to remove its postings
+    private final Map<Long, Set<String>> tourTerms = new ConcurrentHashMap<>();
+
+    // tour id -> indexed tour
+    private final Map<Long, Tour> tours = new ConcurrentHashMap<>();
+
+    /**
+     * Add or replace a tour in the index.
+     *
+     * @param tour the tour
+     */
+    public synchronized void index(Tour tour) {
+
+        remove(tour.getId());
+
+        Map<String, Float> weights = new HashMap<>();
+        addField(weights, tour.getKeywords(), KEYWORDS_BOOST);
+        addField(weights, tour.getTourTitle(), TITLE_BOOST);
+        addField(weights, tour.getDescription(), DESCRIPTION_BOOST);
+        addField(weights, tour.getBlurb(), BLURB_BOOST);
+        addField(weights, tour.getKeyBullets(), BULLETS_BOOST);
+
+        weights.forEach((term, weight) -> {
+            Map<Long, Float> posting = new HashMap<>(postings.getOrDefault(term, Collections.emptyMap()));
+            posting.put(tour.getId(), weight);
+            postings.put(term, Collections.unmodifiableMap(posting));
+        });
+        tourTerms.put(tour.getId(), weights.keySet());
+        tours.put(tour.getId(), tour);
+    }
+
+    /**
+     * Remove a tour from the index.
+     *
+     * @param tourId the tour identifier
+     */
+    public synchronized void remove(Long tourId) {
+
+        Set<String> terms = tourTerms.remove(tourId);
+        tours.remove(tourId);
+        if(terms == null) {
+            return;
+        }
+        for(String term : terms) {
+            Map<Long, Float> posting = new HashMap<>(postings.getOrDefault(term, Collections.emptyMap()));
+            posting.remove(tourId);
+            if(posting.isEmpty()) {
+                postings.remove(term);
+            } else {
+                postings.put(term, Collections.unmodifiableMap(posting));
+            }
+        }
+    }
+
+    /**
+     * Replace the whole content of the index.
+     *
+     * @param allTours every tour of the catalog
+     */
+    public synchronized void rebuild(Iterable<Tour> allTours) {
+        postings.clear();
+        tourTerms.clear();
+        tours.clear();
+        allTours.forEach(this::index);
+    }
+
+    /**
+     * Rank the tours matching any term of the query.
+     *
+     * @param query the free text query
+     * @return hits ordered by descending score, ties broken by tour id
+     */
+    public List<TourSearchHit> search(String query) {
+
+        int tourCount = Math.max(tours.size(), 1);
+        Map<Long, Float> scores = new HashMap<>();
+        for(String term : new LinkedHashSet<>(TourTokenizer.tokenize(query))) {
+            Map<Long, Float> posting = postings.get(term);
+            if(posting == null) {
+                continue;
+            }
+            float idf = (float) Math.log(1.0 + (double) tourCount / posting.size());
+            posting.forEach((tourId, weight) -> scores.merge(tourId, weight * idf, Float::sum));
+        }
+
+        List<TourSearchHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((tourId, score) -> {
+            Tour tour = tours.get(tourId);
+            if(tour != null) {
+                hits.add(new TourSearchHit(tour, score));
+            }
+        });
+        hits.sort(Comparator.comparing(TourSearchHit::getScore).reversed()
+                .thenComparing(hit -> hit.getTour().getId()));
+        return hits;
+    }
+
+    /**
+     * @return number of tours in the index
+     */
+    public int size() {
+        return tours.size();
+    }
+
+    private void addField(Map<String, Float> weights, String text, float boost) {
+        for(String term : TourTokenizer.tokenize(text)) {
+            weights.merge(term, boost, Float::sum);
+        }
+    }
+}
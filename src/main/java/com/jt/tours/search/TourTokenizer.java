@@ -0,0 +1,54 @@
+package com.jt.tours.search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Splits tour text into lower cased search terms. Anything that is not a letter or a digit separates terms,
+ * and stop words and single characters are dropped.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+public final class TourTokenizer {
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "and", "are", "as", "at", "be", "by", "for", "from", "in", "into", "is", "it", "its",
+            "of", "on", "or", "our", "so", "that", "the", "this", "to", "was", "we", "will", "with", "you", "your");
+
+    private TourTokenizer() {}
+
+    /**
+     * Tokenize the text into search terms.
+     *
+     * @param text the text to tokenize, may be null
+     * @return list of terms in the order they appear, duplicates included
+     */
+    public static List<String> tokenize(String text) {
+
+        List<String> terms = new ArrayList<>();
+        if(text == null) {
+            return terms;
+        }
+
+        String lowerCased = text.toLowerCase(Locale.ROOT);
+        int start = -1;
+        for(int i = 0; i <= lowerCased.length(); i++) {
+            boolean termChar = i < lowerCased.length() && Character.isLetterOrDigit(lowerCased.charAt(i));
+            if(termChar && start < 0) {
+                start = i;
+            } else if(!termChar && start >= 0) {
+                addTerm(terms, lowerCased.substring(start, i));
+                start = -1;
+            }
+        }
+        return terms;
+    }
+
+    private static void addTerm(List<String> terms, String term) {
+        if(term.length() > 1 && !STOP_WORDS.contains(term)) {
+            terms.add(term);
+        }
+    }
+}
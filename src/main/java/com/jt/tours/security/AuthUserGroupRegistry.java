@@ -0,0 +1,114 @@
+package com.jt.tours.security;
+
+import com.jt.tours.repository.AuthUserGroupRepository;
+import com.jt.tours.security.domain.AuthUserGroup;
+import com.jt.tours.security.domain.AuthUserGroupEnum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.*;
+
+/**
+ * Application wide registry of the authority groups. The auth_user_group table is tiny and only changes with a
+ * migration, so its rows are loaded once at startup and served from memory; an administrator reloads them with
+ * POST /api/v1/auth-groups/refresh after changing the table.
+ *
+ * The granted authorities only depend on the enumeration, so they are built once and shared by every token and
+ * principal instead of being created for each request.
+ *
+ * Created by Jason Tao on 7/9/2020
+ */
+@Slf4j
+@Component
+public class AuthUserGroupRegistry {
+
+    public static final String ROLE_PREFIX = "ROLE_";
+
+    private final AuthUserGroupRepository authUserGroupRepository;
+
+    // CSR_USER -> CSR_USER, as stored in the user principal
+    private final Map<AuthUserGroupEnum, GrantedAuthority> authorities = new EnumMap<>(AuthUserGroupEnum.class);
+
+    // CSR_USER -> ROLE_CSR_USER, as carried in the JWT tokens and checked by hasRole()
+    private final Map<AuthUserGroupEnum, GrantedAuthority> roleAuthorities = new EnumMap<>(AuthUserGroupEnum.class);
+
+    // ROLE_CSR_USER -> ROLE_CSR_USER, to reuse the role authorities read back from the tokens
+    private final Map<String, GrantedAuthority> roleAuthoritiesByName = new HashMap<>();
+
+    // Replaced as a whole on refresh; never modified.
+    private volatile Map<AuthUserGroupEnum, AuthUserGroup> authUserGroups = Collections.emptyMap();
+
+    public AuthUserGroupRegistry(AuthUserGroupRepository authUserGroupRepository) {
+        this.authUserGroupRepository = authUserGroupRepository;
+        for(AuthUserGroupEnum authGroup : AuthUserGroupEnum.values()) {
+            GrantedAuthority roleAuthority = new SimpleGrantedAuthority(ROLE_PREFIX + authGroup.getLabel());
+            authorities.put(authGroup, new SimpleGrantedAuthority(authGroup.getLabel()));
+            roleAuthorities.put(authGroup, roleAuthority);
+            roleAuthoritiesByName.put(roleAuthority.getAuthority(), roleAuthority);
+        }
+    }
+
+    /**
+     * Load the authority groups at startup.
+     */
+    @PostConstruct
+    public void load() {
+        refresh();
+    }
+
+    /**
+     * Reload the authority groups from the database.
+     *
+     * @return the authority groups now in the registry
+     */
+    public Collection<AuthUserGroup> refresh() {
+        Map<AuthUserGroupEnum, AuthUserGroup> loaded = new EnumMap<>(AuthUserGroupEnum.class);
+        authUserGroupRepository.findAll().forEach(authUserGroup -> loaded.put(authUserGroup.getAuthGroup(), authUserGroup));
+        authUserGroups = Collections.unmodifiableMap(loaded);
+        log.info("Loaded {} authority groups", loaded.size());
+        return loaded.values();
+    }
+
+    /**
+     * @param authGroup the authority group
+     * @return the authority group row, or empty if the table does not have it
+     */
+    public Optional<AuthUserGroup> findAuthUserGroup(AuthUserGroupEnum authGroup) {
+        return Optional.ofNullable(authUserGroups.get(authGroup));
+    }
+
+    /**
+     * @return every authority group row
+     */
+    public Collection<AuthUserGroup> getAuthUserGroups() {
+        return authUserGroups.values();
+    }
+
+    /**
+     * @param authGroup the authority group
+     * @return the authority named after the group, e.g. CSR_USER
+     */
+    public GrantedAuthority getAuthority(AuthUserGroupEnum authGroup) {
+        return authorities.get(authGroup);
+    }
+
+    /**
+     * @param authGroup the authority group
+     * @return the role authority of the group, e.g. ROLE_CSR_USER
+     */
+    public GrantedAuthority getRoleAuthority(AuthUserGroupEnum authGroup) {
+        return roleAuthorities.get(authGroup);
+    }
+
+    /**
+     * @param authority the name of a role authority, e.g. ROLE_CSR_USER
+     * @return the shared role authority, or a new one for a name the enumeration does not know
+     */
+    public GrantedAuthority getRoleAuthority(String authority) {
+        GrantedAuthority roleAuthority = roleAuthoritiesByName.get(authority);
+        return roleAuthority != null ? roleAuthority : new SimpleGrantedAuthority(authority);
+    }
+}
@@ -0,0 +1,133 @@
+package com.jt.tours.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Caches of the HTTP Basic authentication, which otherwise looks the user up and runs BCrypt on every request.
+ *
+ *  users        the UserDetails by username, in front of CsrUserDetailsService.loadUserByUsername
+ *  credentials  the username and password pairs that already matched a stored hash, so BCrypt runs once per TTL
+ *
+ * A credential is keyed by an HMAC of the username, the password and the stored hash under a key generated at
+ * startup: the password is never stored, the key never leaves the process, and a new stored hash (password
+ * change or re-encoding) no longer matches the old entries. Both caches are bounded and expire after a TTL;
+ * the users are also invalidated on registration and on password and role changes.
+ *
+ * Created by Jason Tao on 7/8/2020
+ */
+@Slf4j
+@Component
+public class CsrUserCache {
+
+    private static final String USERS_CACHE = "users";
+    private static final String CREDENTIALS_CACHE = "verifiedCredentials";
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, UserDetails> users;
+
+    // HMAC of the credential -> presence marker
+    private final Cache<String, Boolean> verifiedCredentials;
+
+    private final Key credentialKey;
+
+    public CsrUserCache(MeterRegistry meterRegistry,
+                        @Value("${security.user-cache.maximum-size:10000}") long maximumSize,
+                        @Value("${security.user-cache.ttl:PT5M}") Duration userTtl,
+                        @Value("${security.user-cache.credential-ttl:PT5M}") Duration credentialTtl) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(userTtl)
+                .recordStats()
+                .build();
+        this.verifiedCredentials = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(credentialTtl)
+                .recordStats()
+                .build();
+        try {
+            this.credentialKey = KeyGenerator.getInstance(HMAC_ALGORITHM).generateKey();
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available.", ex);
+        }
+
+        // Publish hit, miss and eviction counters to the actuator metrics.
+        CaffeineCacheMetrics.monitor(meterRegistry, users, USERS_CACHE);
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedCredentials, CREDENTIALS_CACHE);
+    }
+
+    /**
+     * Return the cached user, loading it if absent. A user that cannot be loaded is never cached.
+     *
+     * @param username the username
+     * @param loader loads the user from the database
+     * @return the user details
+     */
+    public UserDetails getUser(String username, Function<String, UserDetails> loader) {
+        return users.get(username, loader);
+    }
+
+    /**
+     * @param userDetails the user, with its stored password hash
+     * @param presentedPassword the password sent by the client
+     * @return true if this password already matched this stored hash
+     */
+    public boolean isVerified(UserDetails userDetails, String presentedPassword) {
+        return verifiedCredentials.getIfPresent(credentialKey(userDetails, presentedPassword)) != null;
+    }
+
+    /**
+     * Remember a password that matched the stored hash of the user.
+     *
+     * @param userDetails the user, with its stored password hash
+     * @param presentedPassword the password sent by the client
+     */
+    public void putVerified(UserDetails userDetails, String presentedPassword) {
+        verifiedCredentials.put(credentialKey(userDetails, presentedPassword), Boolean.TRUE);
+    }
+
+    /**
+     * Drop a user whose password or authority groups changed. Its verified credentials are keyed by the old
+     * password hash, so they cannot match the reloaded user.
+     *
+     * @param username the username
+     */
+    public void invalidate(String username) {
+        users.invalidate(username);
+    }
+
+    /**
+     * Drop every cached user, e.g. after a change of the authority groups.
+     */
+    public void invalidateAll() {
+        users.invalidateAll();
+        log.info("Invalidated the cached users");
+    }
+
+    private String credentialKey(UserDetails userDetails, String presentedPassword) {
+        try {
+            Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(credentialKey);
+            // NUL separated, since none of the parts can contain it
+            String credential = userDetails.getUsername() + '\0' + presentedPassword + '\0' + userDetails.getPassword();
+            return Base64.getEncoder().encodeToString(mac.doFinal(credential.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException ex) {
+            throw new IllegalStateException(HMAC_ALGORITHM + " is not available.", ex);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.jt.tours.security;
+
+import com.jt.tours.security.domain.User;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.rest.core.annotation.HandleAfterDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterLinkDelete;
+import org.springframework.data.rest.core.annotation.HandleAfterLinkSave;
+import org.springframework.data.rest.core.annotation.HandleAfterSave;
+import org.springframework.data.rest.core.annotation.RepositoryEventHandler;
+import org.springframework.stereotype.Component;
+
+/**
+ * Invalidates the cached users changed through the Spring Data REST users resource, which bypasses UserService:
+ * a user deleted, or whose authority groups changed, must not keep authenticating with its cached roles.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+@Slf4j
+@Component
+@RepositoryEventHandler(User.class)
+public class CsrUserCacheEventHandler {
+
+    private final CsrUserCache csrUserCache;
+
+    public CsrUserCacheEventHandler(CsrUserCache csrUserCache) {
+        this.csrUserCache = csrUserCache;
+    }
+
+    /**
+     * A save may also rename the user, and the old username is no longer known here, so drop every cached user.
+     */
+    @HandleAfterSave
+    public void onSave(User user) {
+        log.info("User {} updated", user.getUsername());
+        csrUserCache.invalidateAll();
+    }
+
+    @HandleAfterDelete
+    public void onDelete(User user) {
+        log.info("User {} deleted", user.getUsername());
+        csrUserCache.invalidate(user.getUsername());
+    }
+
+    @HandleAfterLinkSave
+    public void onLinkSave(User user, Object linked) {
+        log.info("Authority groups of user {} updated", user.getUsername());
+        csrUserCache.invalidate(user.getUsername());
+    }
+
+    @HandleAfterLinkDelete
+    public void onLinkDelete(User user, Object linked) {
+        log.info("Authority groups of user {} updated", user.getUsername());
+        csrUserCache.invalidate(user.getUsername());
+    }
+}
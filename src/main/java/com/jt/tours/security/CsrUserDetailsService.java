@@ -5,16 +5,21 @@ import com.jt.tours.security.domain.CsrUserPrincipal;
 import com.jt.tours.security.domain.User;
 import com.jt.tours.security.jwt.JwtTokenProvider;
 import com.jt.tours.web.rest.exceptions.CustomException;
+import io.jsonwebtoken.Claims;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.Optional;
 import java.util.Set;
 
+import static com.jt.tours.config.RequestChatterFilter.REQUEST;
 import static org.springframework.security.core.userdetails.User.withUsername;
 
 
@@ -25,20 +30,28 @@ import static org.springframework.security.core.userdetails.User.withUsername;
  */
 @Slf4j
 @Component
-public class CsrUserDetailsService implements UserDetailsService {
+public class CsrUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
 
     private final JwtTokenProvider jwtTokenProvider;
 
-    public CsrUserDetailsService(UserRepository userRepository, JwtTokenProvider jwtTokenProvider) {
+    private final CsrUserCache csrUserCache;
+
+    private final AuthUserGroupRegistry authUserGroupRegistry;
+
+    public CsrUserDetailsService(UserRepository userRepository, JwtTokenProvider jwtTokenProvider, CsrUserCache csrUserCache,
+                                 AuthUserGroupRegistry authUserGroupRegistry) {
         super();
         this.userRepository = userRepository;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.csrUserCache = csrUserCache;
+        this.authUserGroupRegistry = authUserGroupRegistry;
     }
 
     /**
-     * Return the UserDetails for a specified username
+     * Return the UserDetails for a specified username. Users are cached for the HTTP Basic requests, which
+     * all go through this lookup.
      *
      * @param username the username of the user.
      * @return the UserDetails object consists of the user credential.
@@ -46,6 +59,10 @@ public class CsrUserDetailsService implements UserDetailsService {
      */
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
+        return csrUserCache.getUser(username, this::findUserByUsername);
+    }
+
+    private UserDetails findUserByUsername(String username) {
 
         // Look up the user in database
         Optional<User> userOptional = this.userRepository.findByUsername(username);
@@ -53,9 +70,44 @@ public class CsrUserDetailsService implements UserDetailsService {
         log.info("Looking up user {}", username);
         User foundUser = userOptional.orElseThrow(() -> new UsernameNotFoundException("User " + username + " do not exist."));
 
+        return principal(foundUser);
+    }
+
+    /**
+     * Store the re-encoded password hash of a user who just logged in, when the password encoder asked for
+     * an upgrade of the stored hash (other BCrypt cost or legacy format).
+     *
+     * @param userDetails the authenticated user
+     * @param newPassword the new password hash
+     * @return the UserDetails with the new password hash
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails userDetails, String newPassword) {
+
+        User foundUser = userRepository.findByUsername(userDetails.getUsername()).orElseThrow(() ->
+                new UsernameNotFoundException("User " + userDetails.getUsername() + " do not exist."));
+
+        log.info("Re-encoding the password hash of user {}", foundUser.getUsername());
+        foundUser.setPassword(newPassword);
+        userRepository.save(foundUser);
+        csrUserCache.invalidate(foundUser.getUsername());
+
+        return principal(foundUser);
+    }
+
+    /**
+     * Build the principal of a user with the shared authorities of its groups.
+     */
+    private CsrUserPrincipal principal(User user) {
+        Set<GrantedAuthority> authorities = new HashSet<>();
+        if(user.getAuthUserGroups() != null) {
+            user.getAuthUserGroups().forEach(authUserGroup ->
+                    authorities.add(authUserGroupRegistry.getAuthority(authUserGroup.getAuthGroup())));
+        }
         return CsrUserPrincipal.builder()
-                    .user(foundUser)
-                    .authUserGroups(foundUser.getAuthUserGroups())
+                    .user(user)
+                    .authorities(authorities)
                     .build();
     }
 
@@ -66,11 +118,21 @@ public class CsrUserDetailsService implements UserDetailsService {
      * @return UserDetail if valid, empty otherwise.
      */
     public Optional<UserDetails> loadUserByJwtToken(String token) throws CustomException {
+        return loadUserByJwtClaims(jwtTokenProvider.getClaimsFromToken(token));
+    }
+
+    /**
+     * Extract username and authority groups from the claims of an already verified JWT token
+     *
+     * @param claims the claims extracted from the token
+     * @return UserDetail if valid, empty otherwise.
+     */
+    public Optional<UserDetails> loadUserByJwtClaims(Claims claims) throws CustomException {
 
-        String                  extractUsername = jwtTokenProvider.getUserNameFromToken(token);
-        Set<GrantedAuthority> extractAuthGroups = jwtTokenProvider.getAuthGroupsFromToken(token);
+        String                  extractUsername = claims.getSubject();
+        Set<GrantedAuthority> extractAuthGroups = jwtTokenProvider.getAuthGroupsFromClaims(claims);
 
-        log.info("Extracting user {} with auth group {}", extractUsername, extractAuthGroups);
+        log.debug(REQUEST, "Extracting user {} with auth group {}", extractUsername, extractAuthGroups);
 
         return Optional.of(withUsername(extractUsername)
                                     .authorities(extractAuthGroups)
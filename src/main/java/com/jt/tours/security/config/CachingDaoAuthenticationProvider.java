@@ -0,0 +1,35 @@
+package com.jt.tours.security.config;
+
+import com.jt.tours.security.CsrUserCache;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+
+/**
+ * DAO authentication provider that skips the BCrypt check of a username and password pair that already matched
+ * the stored hash of the user within the credential TTL (see CsrUserCache). Failed checks are never cached.
+ *
+ * Created by Jason Tao on 7/8/2020
+ */
+public class CachingDaoAuthenticationProvider extends DaoAuthenticationProvider {
+
+    private final CsrUserCache csrUserCache;
+
+    public CachingDaoAuthenticationProvider(CsrUserCache csrUserCache) {
+        this.csrUserCache = csrUserCache;
+    }
+
+    @Override
+    protected void additionalAuthenticationChecks(UserDetails userDetails,
+                                                  UsernamePasswordAuthenticationToken authentication) throws AuthenticationException {
+
+        String presentedPassword = authentication.getCredentials() == null ? null : authentication.getCredentials().toString();
+        if(presentedPassword != null && csrUserCache.isVerified(userDetails, presentedPassword)) {
+            return;
+        }
+        // Throws on a missing or wrong password.
+        super.additionalAuthenticationChecks(userDetails, authentication);
+        csrUserCache.putVerified(userDetails, presentedPassword);
+    }
+}
@@ -0,0 +1,45 @@
+package com.jt.tours.security.config;
+
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * BCrypt password encoder that asks for a re-encoding whenever a stored hash was made with a cost other than
+ * the configured one, lower or higher. The stock encoder only upgrades weaker hashes, which would leave the
+ * login cost stuck after lowering the work factor of an environment.
+ *
+ * Created by Jason Tao on 7/4/2020
+ */
+public class CostAwareBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    // $2a$12$... , $2b$ and $2y$ hashes included
+    private static final Pattern BCRYPT_COST = Pattern.compile("\\A\\$2[aby]?\\$(\\d\\d)\\$");
+
+    private final int strength;
+
+    public CostAwareBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    /**
+     * @param encodedPassword the stored BCrypt hash
+     * @return true if the hash cost differs from the configured strength
+     */
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+
+        if(encodedPassword == null) {
+            return false;
+        }
+        Matcher matcher = BCRYPT_COST.matcher(encodedPassword);
+        // Not a BCrypt hash; matches() already rejected it.
+        return matcher.find() && Integer.parseInt(matcher.group(1)) != strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+}
@@ -0,0 +1,103 @@
+package com.jt.tours.security.config;
+
+import com.jt.tours.security.jwt.JwtKey;
+import com.jt.tours.security.jwt.JwtKeyProperties;
+import com.jt.tours.security.jwt.JwtKeyRing;
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Builds the JWT key ring from the security.jwt.keys properties. Without any configured key, the ring holds a
+ * single HS512 key made of the security.jwt.token.secret-key secret, so the existing deployments keep working.
+ * The prod profile signs with an ES256 key pair mounted as Docker secrets (see application-prod.yml).
+ *
+ * Created by Jason Tao on 7/7/2020
+ */
+@Slf4j
+@Configuration
+@EnableConfigurationProperties(JwtKeyProperties.class)
+public class JwtKeyConfiguration {
+
+    private static final String PEM_BEGIN = "-----BEGIN";
+
+    @Bean
+    public JwtKeyRing jwtKeyRing(JwtKeyProperties properties, ResourceLoader resourceLoader,
+                                 @Value("${security.jwt.token.secret-key:}") String secretKey) {
+
+        List<JwtKey> keys = new ArrayList<>();
+        properties.getEntries().forEach(entry -> keys.add(toKey(entry, resourceLoader)));
+
+        // The secret also verifies the tokens issued before the key ring, which have no "kid" header.
+        boolean hasDefaultKey = keys.stream().anyMatch(key -> JwtKeyRing.DEFAULT_KID.equals(key.getKid()));
+        if(!secretKey.isEmpty() && !hasDefaultKey) {
+            keys.add(JwtKey.hmac(JwtKeyRing.DEFAULT_KID, secretKey));
+        }
+
+        String active = properties.getActive() != null ? properties.getActive() : JwtKeyRing.DEFAULT_KID;
+        JwtKeyRing keyRing = new JwtKeyRing(active, keys);
+        log.info("Signing JWT tokens with key '{}' ({}), {} keys in the ring",
+                active, keyRing.getActiveKey().getAlgorithm(), keys.size());
+        return keyRing;
+    }
+
+    private JwtKey toKey(JwtKeyProperties.Entry entry, ResourceLoader resourceLoader) {
+
+        if(entry.getKid() == null || entry.getAlgorithm() == null) {
+            throw new IllegalStateException("A JWT key needs a kid and an algorithm");
+        }
+        SignatureAlgorithm algorithm = SignatureAlgorithm.forName(entry.getAlgorithm());
+        if(algorithm.isHmac()) {
+            if(entry.getSecret() == null) {
+                throw new IllegalStateException("The JWT key '" + entry.getKid() + "' needs a secret");
+            }
+            return JwtKey.hmac(entry.getKid(), entry.getSecret());
+        }
+        if(entry.getPublicKey() == null) {
+            throw new IllegalStateException("The JWT key '" + entry.getKid() + "' needs a public key");
+        }
+
+        String keyAlgorithm = algorithm.isRsa() ? "RSA" : "EC";
+        try {
+            KeyFactory keyFactory = KeyFactory.getInstance(keyAlgorithm);
+            Key publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(readPem(entry.getPublicKey(), resourceLoader)));
+            Key privateKey = entry.getPrivateKey() != null
+                    ? keyFactory.generatePrivate(new PKCS8EncodedKeySpec(readPem(entry.getPrivateKey(), resourceLoader)))
+                    : null;
+            return new JwtKey(entry.getKid(), algorithm, privateKey, publicKey);
+        } catch (IOException | GeneralSecurityException ex) {
+            throw new IllegalStateException("Cannot load the JWT key '" + entry.getKid() + "'", ex);
+        }
+    }
+
+    /**
+     * @param pemOrLocation the PEM text, or the location of the PEM file
+     * @return the DER bytes of the PEM, i.e. the base64 content between the BEGIN and END lines
+     */
+    private byte[] readPem(String pemOrLocation, ResourceLoader resourceLoader) throws IOException {
+        String pem = pemOrLocation.strip();
+        if(!pem.startsWith(PEM_BEGIN)) {
+            try (InputStream inputStream = resourceLoader.getResource(pem).getInputStream()) {
+                pem = StreamUtils.copyToString(inputStream, StandardCharsets.US_ASCII);
+            }
+        }
+        return Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+    }
+}
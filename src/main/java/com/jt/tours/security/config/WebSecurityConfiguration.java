@@ -1,10 +1,16 @@
 package com.jt.tours.security.config;
 
+import com.jt.tours.security.CsrUserCache;
 import com.jt.tours.security.CsrUserDetailsService;
 import com.jt.tours.security.filters.JwtTokenFilter;
 import com.jt.tours.security.filters.RestAccessDeniedHandler;
 import com.jt.tours.security.filters.RestAuthenticationEntryPoint;
+import com.jt.tours.security.jwt.JwtClaimsCache;
 import com.jt.tours.security.jwt.JwtTokenProvider;
+import com.jt.tours.security.jwt.TokenRevocationList;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -17,11 +23,13 @@ import org.springframework.security.config.annotation.web.configuration.EnableWe
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.core.authority.mapping.SimpleAuthorityMapper;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
+import java.util.Map;
+
 /**
  * Web security configuration for the application.
  *
@@ -32,8 +40,8 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 @EnableGlobalMethodSecurity(prePostEnabled = true)
 public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
-    // Default rounds of hash to generate the password using bcrypt.
-    private static final Integer HASH_ROUND = 12;
+    // Id of the BCrypt encoding in the "{id}hash" format of the stored passwords.
+    private static final String BCRYPT_ID = "bcrypt";
 
     // Default authority group for a user.
     private static final String DEFAULT_AUTH_GROUP = "CSR_USER";
@@ -46,12 +54,28 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
 
     private final JwtTokenProvider jwtTokenProvider;
 
+    private final JwtClaimsCache jwtClaimsCache;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    private final CsrUserCache csrUserCache;
+
+    // Rounds (log2 of the iterations) of bcrypt used to hash the passwords.
+    private final int bcryptStrength;
+
     public WebSecurityConfiguration(CsrUserDetailsService csrUserDetailsService, RestAccessDeniedHandler restAccessDeniedHandler,
-                                    RestAuthenticationEntryPoint restAuthenticationEntryPoint, JwtTokenProvider jwtTokenProvider) {
+                                    RestAuthenticationEntryPoint restAuthenticationEntryPoint, JwtTokenProvider jwtTokenProvider,
+                                    JwtClaimsCache jwtClaimsCache, TokenRevocationList tokenRevocationList,
+                                    CsrUserCache csrUserCache,
+                                    @Value("${security.password.bcrypt-strength:12}") int bcryptStrength) {
         this.csrUserDetailsService= csrUserDetailsService;
         this.restAccessDeniedHandler = restAccessDeniedHandler;
         this.restAuthenticationEntryPoint = restAuthenticationEntryPoint;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.jwtClaimsCache = jwtClaimsCache;
+        this.tokenRevocationList = tokenRevocationList;
+        this.csrUserCache = csrUserCache;
+        this.bcryptStrength = bcryptStrength;
     }
 
     /**
@@ -81,6 +105,10 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
                 .antMatchers("/", "/index", "/css/*", "/js/*").permitAll()
                 .antMatchers("/h2-console/**").permitAll()
                 .antMatchers( "/api/v1/users/login").permitAll()
+                .antMatchers("/api/v1/users/token/**").permitAll()
+                // The metrics and the SQL statistics (which can hold user data) are for the administrators only;
+                // any user can check the health.
+                .requestMatchers(EndpointRequest.toAnyEndpoint().excluding(HealthEndpoint.class)).hasRole("CSR_ADMIN")
                 // Authenticate everything
                 .anyRequest().authenticated();
 
@@ -108,7 +136,7 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
                                 .authenticationEntryPoint(restAuthenticationEntryPoint);
 
         // Adding the customized token filter before the UsernamePasswordAuthenticationFilter class.
-        http.addFilterBefore(new JwtTokenFilter(csrUserDetailsService, jwtTokenProvider), UsernamePasswordAuthenticationFilter.class);
+        http.addFilterBefore(new JwtTokenFilter(csrUserDetailsService, jwtTokenProvider, jwtClaimsCache, tokenRevocationList), UsernamePasswordAuthenticationFilter.class);
 
     }
 
@@ -135,16 +163,19 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     /**
-     * Processes authentication request when user logs in.
+     * Processes authentication request when user logs in. After a successful login, a password hash the
+     * encoder wants upgraded is re-encoded and saved through the user details service. Credentials that already
+     * matched are not checked with BCrypt again until they expire from the user cache.
      *
      * @return DaoAuthenticationProvider bean
      */
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
 
-        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        DaoAuthenticationProvider provider = new CachingDaoAuthenticationProvider(csrUserCache);
         provider.setPasswordEncoder(passwordEncoder());
         provider.setUserDetailsService(csrUserDetailsService);
+        provider.setUserDetailsPasswordService(csrUserDetailsService);
         provider.setAuthoritiesMapper(authorityMapper());
         return provider;
     }
@@ -163,12 +194,18 @@ public class WebSecurityConfiguration extends WebSecurityConfigurerAdapter {
     }
 
     /**
-     * Define a password encoder bean using BCrypt.
+     * Define a password encoder bean using BCrypt with the configured strength. New hashes are stored as
+     * "{bcrypt}hash"; hashes without the prefix (the seed users) are plain BCrypt hashes. A hash without the
+     * prefix or with another cost than the configured one is re-encoded on the next successful login, so the
+     * strength can be tuned per environment without resetting the passwords.
      *
      * @return the password encoder uses for hashing the password.
      */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder(HASH_ROUND);
+        PasswordEncoder bcrypt = new CostAwareBCryptPasswordEncoder(bcryptStrength);
+        DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(BCRYPT_ID, Map.of(BCRYPT_ID, bcrypt));
+        passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt);
+        return passwordEncoder;
     }
 }
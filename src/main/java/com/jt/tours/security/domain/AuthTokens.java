@@ -0,0 +1,32 @@
+package com.jt.tours.security.domain;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Token pair returned by a login or a refresh: a short lived JWT access token sent as the bearer token
+ * of the API calls, and an opaque refresh token exchanged for a new pair when the access token expires.
+ *
+ * Created by Jason Tao on 7/5/2020
+ */
+@Getter
+public class AuthTokens {
+
+    private static final String BEARER_TYPE = "Bearer";
+
+    private final String accessToken;
+
+    private final String refreshToken;
+
+    private final String tokenType = BEARER_TYPE;
+
+    // Lifetime of the access token in seconds
+    private final long expiresIn;
+
+    @Builder
+    public AuthTokens(String accessToken, String refreshToken, long expiresIn) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+}
@@ -1,5 +1,9 @@
 package com.jt.tours.security.domain;
 
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
 /**
  * Enumeration for the authority user group.
  *
@@ -9,6 +13,15 @@ public enum AuthUserGroupEnum {
 
     CSR_ADMIN("CSR_ADMIN"), CSR_USER("CSR_USER"), VIEWER("VIEWER");
 
+    // upper cased label -> group, since the labels are matched ignoring case
+    private static final Map<String, AuthUserGroupEnum> BY_LABEL = new HashMap<>();
+
+    static {
+        for(AuthUserGroupEnum authGroup : AuthUserGroupEnum.values()) {
+            BY_LABEL.put(authGroup.label.toUpperCase(Locale.ROOT), authGroup);
+        }
+    }
+
     private String label;
 
     AuthUserGroupEnum(String label) {
@@ -16,13 +29,7 @@ public enum AuthUserGroupEnum {
     }
 
     public static AuthUserGroupEnum findByLabel(String label) {
-
-        for(AuthUserGroupEnum authGroup : AuthUserGroupEnum.values()) {
-            if(authGroup.label.equalsIgnoreCase(label)) {
-                return authGroup;
-            }
-        }
-        return null;
+        return label == null ? null : BY_LABEL.get(label.toUpperCase(Locale.ROOT));
     }
 
     public String getLabel() { return this.label; }
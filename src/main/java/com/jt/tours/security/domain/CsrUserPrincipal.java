@@ -2,16 +2,15 @@ package com.jt.tours.security.domain;
 
 import lombok.Builder;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 /**
- * User Principal object used for authentication.
+ * User Principal object used for authentication. Its authorities are the shared instances of the
+ * AuthUserGroupRegistry, resolved once when the principal is built.
  *
  * Created by Jason Tao on 6/3/2020
  */
@@ -19,12 +18,13 @@ public class CsrUserPrincipal implements UserDetails {
 
     private User user;
 
-    private Set<AuthUserGroup> authUserGroups;
+    private Set<GrantedAuthority> authorities;
 
     @Builder
-    public CsrUserPrincipal(User user, Set<AuthUserGroup> authUserGroups) {
+    public CsrUserPrincipal(User user, Set<GrantedAuthority> authorities) {
         this.user = user;
-        this.authUserGroups = authUserGroups;
+        // Return an empty set if the user has no auth user group.
+        this.authorities = authorities != null ? Collections.unmodifiableSet(authorities) : Collections.emptySet();
     }
 
     /**
@@ -34,16 +34,7 @@ public class CsrUserPrincipal implements UserDetails {
      */
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-
-        // Return an empty set if the list of auth user group is null.
-        if(null == this.authUserGroups) {
-            return Collections.emptySet();
-        }
-        return this.authUserGroups.stream()
-                .map(userGroup -> {
-                    SimpleGrantedAuthority grantedAuthority = new SimpleGrantedAuthority(userGroup.getAuthGroup().getLabel());
-                    return grantedAuthority;
-                }).collect(Collectors.toSet());
+        return this.authorities;
     }
 
     @Override
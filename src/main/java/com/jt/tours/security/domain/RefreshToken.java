@@ -0,0 +1,54 @@
+package com.jt.tours.security.domain;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.Instant;
+
+/**
+ * Refresh token issued along with an access token. Only the SHA-256 hash of the token is stored. Every
+ * refresh rotates the token: the used token is revoked and a new one is issued in the same family, so
+ * presenting a revoked token again reveals a stolen token and revokes the whole family.
+ *
+ * Created by Jason Tao on 7/5/2020
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "refresh_token")
+public class RefreshToken {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "token_hash", nullable = false, updatable = false)
+    private String tokenHash;
+
+    @Column(name = "username", nullable = false, updatable = false)
+    private String username;
+
+    // Tokens rotated from the same login share a family.
+    @Column(name = "family_id", nullable = false, updatable = false)
+    private String familyId;
+
+    @Column(name = "issued_at", nullable = false, updatable = false)
+    private Instant issuedAt;
+
+    @Column(name = "expires_at", nullable = false, updatable = false)
+    private Instant expiresAt;
+
+    @Column(name = "revoked_at")
+    private Instant revokedAt;
+
+    @Builder
+    public RefreshToken(String tokenHash, String username, String familyId, Instant issuedAt, Instant expiresAt) {
+        this.tokenHash = tokenHash;
+        this.username = username;
+        this.familyId = familyId;
+        this.issuedAt = issuedAt;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -0,0 +1,41 @@
+package com.jt.tours.security.domain;
+
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.Instant;
+
+/**
+ * Access token revoked before its expiration, identified by its JWT id (jti). The row is only needed until
+ * the token expires.
+ *
+ * Created by Jason Tao on 7/6/2020
+ */
+@Data
+@Entity
+@NoArgsConstructor
+@Table(name = "revoked_token")
+public class RevokedToken {
+
+    @Id
+    @Column(name = "jti")
+    private String jti;
+
+    @Column(name = "revoked_at", nullable = false)
+    private Instant revokedAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    @Builder
+    public RevokedToken(String jti, Instant revokedAt, Instant expiresAt) {
+        this.jti = jti;
+        this.revokedAt = revokedAt;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,7 +1,10 @@
 package com.jt.tours.security.filters;
 
 import com.jt.tours.security.CsrUserDetailsService;
+import com.jt.tours.security.jwt.JwtClaimsCache;
 import com.jt.tours.security.jwt.JwtTokenProvider;
+import com.jt.tours.security.jwt.TokenRevocationList;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import lombok.extern.slf4j.Slf4j;
@@ -17,6 +20,8 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.util.Optional;
 
+import static com.jt.tours.config.RequestChatterFilter.REQUEST;
+
 /**
  * Filter for the JWT Authentication and Authorization.
  * <p>
@@ -30,10 +35,15 @@ public class JwtTokenFilter extends OncePerRequestFilter {
 
     private CsrUserDetailsService csrUserDetailsService;
     private JwtTokenProvider jwtTokenProvider;
+    private JwtClaimsCache jwtClaimsCache;
+    private TokenRevocationList tokenRevocationList;
 
-    public JwtTokenFilter(CsrUserDetailsService csrUserDetailsService, JwtTokenProvider jwtTokenProvider) {
+    public JwtTokenFilter(CsrUserDetailsService csrUserDetailsService, JwtTokenProvider jwtTokenProvider,
+                          JwtClaimsCache jwtClaimsCache, TokenRevocationList tokenRevocationList) {
         this.csrUserDetailsService = csrUserDetailsService;
         this.jwtTokenProvider = jwtTokenProvider;
+        this.jwtClaimsCache = jwtClaimsCache;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     /**
@@ -53,10 +63,10 @@ public class JwtTokenFilter extends OncePerRequestFilter {
         final String reqTokenHeader = httpServletRequest.getHeader(AUTHORIZATION_HEADER);
 
         //Remove the bearer from the header string
-        log.info("Process request to check for a JWT token");
+        log.debug(REQUEST, "Process request to check for a JWT token");
         getBearerToken(reqTokenHeader).ifPresentOrElse(token -> {
             processAuthentication(token, httpServletRequest);
-        }, () -> log.info("JWT token does not exist in the authorization header."));
+        }, () -> log.debug(REQUEST, "JWT token does not exist in the authorization header."));
 
         // proceed to the next filter in the filter chain
         filterChain.doFilter(httpServletRequest, httpServletResponse);
@@ -78,26 +88,28 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Perform authentication from the incoming token.
+     * Perform authentication from the incoming token. The token is verified once and the claims are reused
+     * for validation and for building the user details.
      *
      * @param token the JWT token string
      * @param httpServletRequest the servlet request used for setting the jwt error attribute.
      */
     private void processAuthentication(String token, HttpServletRequest httpServletRequest) {
-        String username = getUserNameFromToken(token, httpServletRequest);
+        Claims claims = getClaimsFromToken(token, httpServletRequest);
         Authentication principal = SecurityContextHolder.getContext().getAuthentication();
 
-        //If the username is not null and there is no existing authentication object
-        if (username != null && principal == null) {
+        //If the token is verified and there is no existing authentication object
+        if (claims != null && principal == null) {
 
-                // Validate the token
-                if (jwtTokenProvider.validateToken(token)) {
+                // Validate the claims and make sure the token was not revoked (in memory check).
+                if (jwtTokenProvider.validateClaims(claims) && !tokenRevocationList.isRevoked(claims)) {
 
-                    csrUserDetailsService.loadUserByJwtToken(token).ifPresent( userDetails ->
+                    csrUserDetailsService.loadUserByJwtClaims(claims).ifPresent( userDetails ->
 
                             // Add the user details to the security context for this API invocation once validation completes.
+                            // The claims are kept as the credentials so that a logout can revoke the token.
                             SecurityContextHolder.getContext().setAuthentication(
-                                    new PreAuthenticatedAuthenticationToken(userDetails, "", userDetails.getAuthorities()))
+                                    new PreAuthenticatedAuthenticationToken(userDetails, claims, userDetails.getAuthorities()))
                     );
 
                 }
@@ -105,17 +117,17 @@ public class JwtTokenFilter extends OncePerRequestFilter {
     }
 
     /**
-     * Validates the token. If there is anything wrong with the jwt, set the error to an attribute in the
+     * Verifies the token. If there is anything wrong with the jwt, set the error to an attribute in the
      * http request for error handling. Clear the security context.
      *
      * @param token the JWT token string
      * @param httpServletRequest the servlet request used for setting the jwt error attribute.
-     * @return the username
+     * @return the verified claims, null if the token cannot be verified
      */
-    private String getUserNameFromToken(String token, HttpServletRequest httpServletRequest) {
-        String username = null;
+    private Claims getClaimsFromToken(String token, HttpServletRequest httpServletRequest) {
+        Claims claims = null;
         try {
-            username = jwtTokenProvider.getUserNameFromToken(token);
+            claims = jwtClaimsCache.getVerifiedClaims(token);
         } catch (ExpiredJwtException ex) {
             log.error("JWT Token has expired.");
             httpServletRequest.setAttribute("jwt_error", ex.getMessage());
@@ -126,6 +138,6 @@ public class JwtTokenFilter extends OncePerRequestFilter {
             // Something went wrong. Clear the context.
             SecurityContextHolder.clearContext();
         }
-        return username;
+        return claims;
     }
 }
@@ -0,0 +1,95 @@
+package com.jt.tours.security.jwt;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded cache of verified JWT claims keyed by the hash of the token. An entry lives until the token expires,
+ * so a bearer token sent on repeated requests is only verified once.
+ *
+ * Created by Jason Tao on 6/22/2020
+ */
+@Slf4j
+@Component
+public class JwtClaimsCache {
+
+    private static final String CACHE_NAME = "jwtClaims";
+
+    private final JwtTokenProvider jwtTokenProvider;
+
+    private final Cache<String, Claims> verifiedClaims;
+
+    public JwtClaimsCache(JwtTokenProvider jwtTokenProvider, MeterRegistry meterRegistry,
+                          @Value("${security.jwt.claims-cache.maximum-size:10000}") long maximumSize) {
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.verifiedClaims = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new ClaimsExpiry())
+                .recordStats()
+                .build();
+
+        // Publish hit, miss and eviction counters to the actuator metrics.
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedClaims, CACHE_NAME);
+    }
+
+    /**
+     * Return the verified claims of a token, parsing and verifying the token only if it is not cached yet.
+     *
+     * @param token the JWT token string
+     * @return claims object extracted from the token.
+     * @throws io.jsonwebtoken.JwtException if the token cannot be verified; failures are never cached.
+     */
+    public Claims getVerifiedClaims(String token) {
+        return verifiedClaims.get(hash(token), key -> jwtTokenProvider.getClaimsFromToken(token));
+    }
+
+    /**
+     * Hash the token so the cache never holds the bearer credential itself.
+     *
+     * @param token the JWT token string
+     * @return the SHA-256 digest of the token in base64
+     */
+    private String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available.", ex);
+        }
+    }
+
+    /**
+     * Expire each entry at the expiration date of its token.
+     */
+    private static class ClaimsExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMillis = claims.getExpiration() == null ? 0 : claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.jt.tours.security.jwt;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.Getter;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.security.KeyPair;
+
+/**
+ * A key of the JWT key ring, identified in the tokens by the "kid" header. Asymmetric keys (RS256, ES256)
+ * sign with the private key and verify with the public key; a key without a signing key only verifies, which
+ * is how a retired key is kept until the tokens it signed expire. HMAC keys (HS512) use the secret for both.
+ *
+ * Created by Jason Tao on 7/7/2020
+ */
+@Getter
+public class JwtKey {
+
+    private final String kid;
+
+    private final SignatureAlgorithm algorithm;
+
+    // null for a verify only key
+    private final Key signingKey;
+
+    private final Key verificationKey;
+
+    public JwtKey(String kid, SignatureAlgorithm algorithm, Key signingKey, Key verificationKey) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.signingKey = signingKey;
+        this.verificationKey = verificationKey;
+    }
+
+    /**
+     * @param kid the key id
+     * @param secret the shared secret
+     * @return a HS512 key
+     */
+    public static JwtKey hmac(String kid, String secret) {
+        Key key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), SignatureAlgorithm.HS512.getJcaName());
+        return new JwtKey(kid, SignatureAlgorithm.HS512, key, key);
+    }
+
+    /**
+     * @param kid the key id
+     * @param algorithm a RSA or elliptic curve algorithm
+     * @param keyPair the key pair
+     * @return a key signing with the private key and verifying with the public key
+     */
+    public static JwtKey asymmetric(String kid, SignatureAlgorithm algorithm, KeyPair keyPair) {
+        return new JwtKey(kid, algorithm, keyPair.getPrivate(), keyPair.getPublic());
+    }
+
+    public boolean canSign() {
+        return signingKey != null;
+    }
+}
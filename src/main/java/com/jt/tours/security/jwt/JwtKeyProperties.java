@@ -0,0 +1,53 @@
+package com.jt.tours.security.jwt;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration of the JWT key ring (security.jwt.keys). Example:
+ *
+ * security.jwt.keys.active=2020-07
+ * security.jwt.keys.entries[0].kid=2020-07
+ * security.jwt.keys.entries[0].algorithm=ES256
+ * security.jwt.keys.entries[0].private-key=file:/run/secrets/jwt-2020-07.key
+ * security.jwt.keys.entries[0].public-key=file:/run/secrets/jwt-2020-07.pub
+ * security.jwt.keys.entries[1].kid=2020-04
+ * security.jwt.keys.entries[1].algorithm=ES256
+ * security.jwt.keys.entries[1].public-key=file:/run/secrets/jwt-2020-04.pub
+ *
+ * The keys are PEM encoded: PKCS#8 private keys and X.509 public keys, given by their location (file:, classpath:)
+ * or by their PEM text, e.g. from an environment variable. Without any entry, the tokens are signed with HS512 and
+ * the security.jwt.token.secret-key secret.
+ *
+ * Created by Jason Tao on 7/7/2020
+ */
+@Data
+@ConfigurationProperties(prefix = "security.jwt.keys")
+public class JwtKeyProperties {
+
+    // kid of the key signing the new tokens
+    private String active;
+
+    private List<Entry> entries = new ArrayList<>();
+
+    @Data
+    public static class Entry {
+
+        private String kid;
+
+        // HS512, RS256 or ES256
+        private String algorithm;
+
+        // HMAC secret
+        private String secret;
+
+        // PEM encoded PKCS#8 private key, or its location; absent for a verify only key
+        private String privateKey;
+
+        // PEM encoded X.509 public key, or its location
+        private String publicKey;
+    }
+}
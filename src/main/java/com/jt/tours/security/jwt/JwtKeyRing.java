@@ -0,0 +1,64 @@
+package com.jt.tours.security.jwt;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The keys the JWT tokens are signed and verified with. New tokens are signed with the active key, and a
+ * token is verified with the key named by its "kid" header, so keys rotate without downtime:
+ *
+ *  1. add the new key to every instance (verify only, or inactive)
+ *  2. make it the active key
+ *  3. drop the old key once the last token it signed has expired
+ *
+ * Tokens without a "kid", issued before the key ring, are verified with the default key.
+ *
+ * Created by Jason Tao on 7/7/2020
+ */
+public class JwtKeyRing {
+
+    public static final String DEFAULT_KID = "default";
+
+    private final JwtKey activeKey;
+
+    // kid -> key
+    private final Map<String, JwtKey> keys;
+
+    public JwtKeyRing(String activeKid, Collection<JwtKey> keys) {
+        this.keys = keys.stream().collect(Collectors.toUnmodifiableMap(JwtKey::getKid, Function.identity()));
+        this.activeKey = this.keys.get(activeKid);
+        if(activeKey == null || !activeKey.canSign()) {
+            throw new IllegalStateException("The active JWT key '" + activeKid + "' is missing or cannot sign");
+        }
+    }
+
+    /**
+     * @param key the single key, used to sign and verify
+     * @return a key ring with a single key
+     */
+    public static JwtKeyRing of(JwtKey key) {
+        return new JwtKeyRing(key.getKid(), List.of(key));
+    }
+
+    public JwtKey getActiveKey() {
+        return activeKey;
+    }
+
+    /**
+     * Find the key of a token.
+     *
+     * @param kid the "kid" header of the token, may be null
+     * @return the key if found; otherwise empty.
+     */
+    public Optional<JwtKey> findKey(String kid) {
+        return Optional.ofNullable(keys.get(kid != null ? kid : DEFAULT_KID));
+    }
+
+    public Collection<JwtKey> getKeys() {
+        return keys.values();
+    }
+}
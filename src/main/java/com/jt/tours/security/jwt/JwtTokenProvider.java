@@ -1,17 +1,22 @@
 package com.jt.tours.security.jwt;
 
+import com.jt.tours.security.AuthUserGroupRegistry;
 import com.jt.tours.security.domain.AuthUserGroup;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 import java.io.Serializable;
+import java.security.Key;
+import java.time.Duration;
 import java.util.*;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -26,22 +31,30 @@ import java.util.stream.Collectors;
 public class JwtTokenProvider implements Serializable {
 
     private static final String AUTH_GROUP_KEY = "AUTH_GROUP";
-    private static final String ROLE_PREFIX = "ROLE_";
 
-    // The expiration time for the jwt
-    private static final long JWT_VALIDITY_IN_MILLISECONDS = 5 * 60 * 60 * 1000;
+    // The keys the tokens are signed and verified with
+    private final transient JwtKeyRing keyRing;
 
-    // The secret key for the jwt
-    private String secretKey;
+    // Built once and shared by every request; it picks the verification key from the "kid" header of each token.
+    private final transient JwtParser parser;
+
+    // Shared granted authorities of the authority groups
+    private final transient AuthUserGroupRegistry authUserGroupRegistry;
+
+    // The expiration time for the jwt; short lived since clients renew it with their refresh token
+    private Duration accessTokenValidity;
 
     /**
-     * The current approach is to pass in the secret key as environment variable. A better approach would be
-     * to store the key in a config server.
+     * The keys come from the security.jwt.keys properties, or from the security.jwt.token.secret-key secret
+     * (see JwtKeyConfiguration).
      */
     @Autowired
-    public JwtTokenProvider(@Value("${security.jwt.token.secret-key}") String secretKey) {
-        // encode the secret key in base64
-        this.secretKey = Base64.getEncoder().encodeToString(secretKey.getBytes());
+    public JwtTokenProvider(JwtKeyRing keyRing, AuthUserGroupRegistry authUserGroupRegistry,
+                            @Value("${security.jwt.token.access-validity:PT15M}") Duration accessTokenValidity) {
+        this.keyRing = keyRing;
+        this.authUserGroupRegistry = authUserGroupRegistry;
+        this.accessTokenValidity = accessTokenValidity;
+        this.parser = Jwts.parser().setSigningKeyResolver(new KeyRingResolver(keyRing));
     }
 
     /**
@@ -59,24 +72,29 @@ public class JwtTokenProvider implements Serializable {
         // Add a set of allowed auth group to the claims.
         claims.put(AUTH_GROUP_KEY,
                 authUserGroups.stream()
-                .map(authUserGroup -> new SimpleGrantedAuthority(ROLE_PREFIX + authUserGroup.getAuthGroup().getLabel()))
+                .map(authUserGroup -> authUserGroupRegistry.getRoleAuthority(authUserGroup.getAuthGroup()))
                 .filter(Objects::nonNull)
                 .collect(Collectors.toSet()));
 
         // Define the token issue date which is now.
         Date issueDate = new Date();
-        Date expiredDate = new Date(issueDate.getTime() + JWT_VALIDITY_IN_MILLISECONDS);
+        Date expiredDate = new Date(issueDate.getTime() + accessTokenValidity.toMillis());
 
         log.debug("JWT token issued at {} and will be expired at {}", issueDate, expiredDate);
 
+        JwtKey activeKey = keyRing.getActiveKey();
         return Jwts.builder()
+                    // Name the key so the token can still be verified once another key is active.
+                    .setHeaderParam(JwsHeader.KEY_ID, activeKey.getKid())
                     .setClaims(claims)
+                    // Unique token id, the key of the revocation list.
+                    .setId(UUID.randomUUID().toString())
                     // Define the token issue date which is now.
                     .setIssuedAt(issueDate)
                     // set the expiration date of the jwt token
                     .setExpiration(expiredDate)
-                    //use HS256 to sign the secret key
-                    .signWith(SignatureAlgorithm.HS512, secretKey)
+                    // sign with the active key
+                    .signWith(activeKey.getAlgorithm(), activeKey.getSigningKey())
                     // compacting the JWT to a URL-safe string
                     .compact();
     }
@@ -87,8 +105,16 @@ public class JwtTokenProvider implements Serializable {
      * @return true if valid, false otherwise
      */
     public boolean validateToken(String token) {
-        final String username = getUserNameFromToken(token);
-        return (username != null && !getExpiredDateFromToken(token).before(new Date()));
+        return validateClaims(getClaimsFromToken(token));
+    }
+
+    /**
+     * Validate the claims of an already verified JWT
+     * @param claims the claims extracted from the token
+     * @return true if valid, false otherwise
+     */
+    public boolean validateClaims(Claims claims) {
+        return (claims.getSubject() != null && !claims.getExpiration().before(new Date()));
     }
 
     /**
@@ -116,14 +142,22 @@ public class JwtTokenProvider implements Serializable {
      * @return set of authority groups
      */
     public Set<GrantedAuthority> getAuthGroupsFromToken(String token) {
+        return getAuthGroupsFromClaims(getClaimsFromToken(token));
+    }
+
+    /**
+     * Get the list of authority groups from the claims of an already verified JWT
+     * @param claims the claims extracted from the token
+     * @return set of authority groups
+     */
+    public Set<GrantedAuthority> getAuthGroupsFromClaims(Claims claims) {
 
-        // Parse the list of auth user group claims from the token
-        List<Map<String, String>> authUserGroupClaims = Jwts.parser().setSigningKey(secretKey)
-                    .parseClaimsJws(token).getBody().get(AUTH_GROUP_KEY, List.class);
+        // Read the list of auth user group claims
+        List<Map<String, String>> authUserGroupClaims = claims.get(AUTH_GROUP_KEY, List.class);
 
          return authUserGroupClaims.stream()
                                     .map(authUserGroupClaim ->
-                                            new SimpleGrantedAuthority(authUserGroupClaim.get("authority")))
+                                            authUserGroupRegistry.getRoleAuthority(authUserGroupClaim.get("authority")))
                                     .collect(Collectors.toSet());
     }
 
@@ -141,12 +175,43 @@ public class JwtTokenProvider implements Serializable {
     }
 
     /**
-     * Get all the claims by parsing the token using the secret key.
+     * Get all the claims by parsing the token with the key named by its "kid" header. This verifies the signature
+     * and the expiration.
      *
      * @param token the JWT token string
      * @return claims object extracted from the token.
      */
-    private Claims getClaimsFromToken(String token) {
-        return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(token).getBody();
+    public Claims getClaimsFromToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
+    /**
+     * @return how long the access tokens are valid
+     */
+    public Duration getAccessTokenValidity() {
+        return accessTokenValidity;
+    }
+
+    /**
+     * Resolves the verification key of a token from the key ring. The algorithm of the token must be the one
+     * of its key, so a token cannot, for instance, be signed with HS256 and a public key as the secret.
+     */
+    private static class KeyRingResolver extends SigningKeyResolverAdapter {
+
+        private final JwtKeyRing keyRing;
+
+        KeyRingResolver(JwtKeyRing keyRing) {
+            this.keyRing = keyRing;
+        }
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            JwtKey key = keyRing.findKey(header.getKeyId())
+                    .orElseThrow(() -> new SignatureException("Unknown JWT key " + header.getKeyId()));
+            if(!key.getAlgorithm().getValue().equals(header.getAlgorithm())) {
+                throw new SignatureException("JWT algorithm " + header.getAlgorithm() + " does not match key " + key.getKid());
+            }
+            return key.getVerificationKey();
+        }
     }
 }
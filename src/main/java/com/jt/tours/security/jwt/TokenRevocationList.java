@@ -0,0 +1,133 @@
+package com.jt.tours.security.jwt;
+
+import com.jt.tours.repository.RevokedTokenRepository;
+import com.jt.tours.security.domain.RevokedToken;
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Revoked access tokens, keyed by their JWT id (jti). The revocations are stored in the revoked_token table
+ * and mirrored in memory, so checking a token on every request never touches the database: a Bloom filter
+ * answers "not revoked" for almost every token, and only its rare positives are checked against the exact set.
+ *
+ * Every instance loads the table at startup and then picks up the revocations of the other instances every
+ * sync interval. Entries are dropped once their token expires, as the token would be rejected anyway.
+ *
+ * Created by Jason Tao on 7/6/2020
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    // Margin on the revocation times of the other instances whose clocks may lag behind.
+    private static final Duration CLOCK_SKEW = Duration.ofSeconds(30);
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final long expectedEntries;
+
+    // jti -> expiration of the revoked token
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter bloomFilter;
+
+    private volatile Instant lastSync = Instant.EPOCH;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               @Value("${security.jwt.revocation.expected-entries:100000}") long expectedEntries) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.expectedEntries = expectedEntries;
+        this.bloomFilter = new BloomFilter(expectedEntries, FALSE_POSITIVE_PROBABILITY);
+    }
+
+    /**
+     * Load the revocations of the tokens that are not expired yet.
+     */
+    @PostConstruct
+    public void load() {
+        sync();
+        log.info("Loaded {} revoked tokens", revokedTokens.size());
+    }
+
+    /**
+     * Check if a verified token is revoked. Tokens without an id cannot be revoked.
+     *
+     * @param claims the claims of the token
+     * @return true if the token is revoked
+     */
+    public boolean isRevoked(Claims claims) {
+        String jti = claims.getId();
+        return jti != null && bloomFilter.mightContain(jti) && revokedTokens.containsKey(jti);
+    }
+
+    /**
+     * Revoke a token until it expires.
+     *
+     * @param claims the claims of the token
+     */
+    public void revoke(Claims claims) {
+
+        if(claims.getId() == null || claims.getExpiration() == null) {
+            return;
+        }
+        RevokedToken revokedToken = RevokedToken.builder()
+                .jti(claims.getId())
+                .revokedAt(Instant.now())
+                .expiresAt(claims.getExpiration().toInstant())
+                .build();
+        revokedTokenRepository.save(revokedToken);
+        add(revokedToken);
+        log.info("Revoked token {} of user {}", claims.getId(), claims.getSubject());
+    }
+
+    /**
+     * Pick up the tokens revoked by the other instances since the last sync.
+     */
+    @Scheduled(fixedDelayString = "${security.jwt.revocation.sync-interval-ms:30000}")
+    public void sync() {
+        Instant now = Instant.now();
+        revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(lastSync.minus(CLOCK_SKEW), now)
+                .forEach(this::add);
+        lastSync = now;
+    }
+
+    /**
+     * Drop the expired tokens from memory and from the table, and rebuild the Bloom filter without them.
+     */
+    @Scheduled(cron = "${security.jwt.revocation.purge-cron:0 15 * * * *}")
+    public synchronized void purgeExpired() {
+
+        Instant now = Instant.now();
+        if(revokedTokens.entrySet().removeIf(entry -> entry.getValue().isBefore(now))) {
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedEntries, revokedTokens.size() * 2L), FALSE_POSITIVE_PROBABILITY);
+            revokedTokens.keySet().forEach(rebuilt::add);
+            bloomFilter = rebuilt;
+        }
+        int deleted = revokedTokenRepository.deleteExpiredBefore(now);
+        log.info("Purged {} expired revoked tokens, {} still revoked", deleted, revokedTokens.size());
+    }
+
+    /**
+     * @return number of revoked tokens held in memory
+     */
+    public int size() {
+        return revokedTokens.size();
+    }
+
+    // Synchronized with the rebuild so a revocation cannot miss the new Bloom filter.
+    private synchronized void add(RevokedToken revokedToken) {
+        revokedTokens.put(revokedToken.getJti(), revokedToken.getExpiresAt());
+        bloomFilter.add(revokedToken.getJti());
+    }
+}
@@ -0,0 +1,86 @@
+package com.jt.tours.security.login;
+
+import com.jt.tours.web.rest.exceptions.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.function.Supplier;
+
+/**
+ * Runs the logins, and the BCrypt password check they make, on a dedicated pool with a bounded queue, so a
+ * login storm only ever holds a fixed number of threads and never takes the servlet threads serving the rest
+ * of the API. When the queue is full the login is rejected right away with a 503 and a Retry-After header.
+ * The logins go through the TaskDecorator, which counts their SQL statements with their request
+ * (see SqlRequestStatsTaskDecorator).
+ *
+ * Published meters: executor.* tagged name=login (queue depth, active threads, queue wait and run times),
+ * tours.security.login.rejected (shed logins); the BCrypt time is tours.security.password.
+ *
+ * Created by Jason Tao on 7/3/2020
+ */
+@Slf4j
+@Component
+public class LoginExecutor implements DisposableBean {
+
+    static final String EXECUTOR_NAME = "login";
+
+    private final ThreadPoolExecutor threadPoolExecutor;
+
+    private final ExecutorService executorService;
+
+    // the monitored executor, with the logins decorated
+    private final Executor loginExecutor;
+
+    private final Counter rejectedLogins;
+
+    private final long retryAfterSeconds;
+
+    public LoginExecutor(MeterRegistry meterRegistry, TaskDecorator taskDecorator,
+                         @Value("${security.login.pool-size:0}") int poolSize,
+                         @Value("${security.login.queue-capacity:100}") int queueCapacity,
+                         @Value("${security.login.retry-after-seconds:5}") long retryAfterSeconds) {
+
+        // BCrypt is CPU bound; default to one thread per core.
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.threadPoolExecutor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("login-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executorService = ExecutorServiceMetrics.monitor(meterRegistry, threadPoolExecutor, EXECUTOR_NAME, Tags.empty());
+        this.loginExecutor = login -> executorService.execute(taskDecorator.decorate(login));
+        this.rejectedLogins = Counter.builder("tours.security.login.rejected")
+                .description("Logins rejected because the login queue was full")
+                .register(meterRegistry);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    /**
+     * Run the login on the login pool.
+     *
+     * @param login the login work
+     * @return the future result of the login
+     * @throws ServiceOverloadedException if the login queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> login) {
+        try {
+            return CompletableFuture.supplyAsync(login, loginExecutor);
+        } catch(RejectedExecutionException ex) {
+            rejectedLogins.increment();
+            log.warn("Login queue is full ({} queued), rejecting the login", threadPoolExecutor.getQueue().size());
+            throw new ServiceOverloadedException("Too many logins in progress, please retry later.", retryAfterSeconds);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        threadPoolExecutor.shutdown();
+    }
+}
@@ -1,6 +1,7 @@
 package com.jt.tours.service;
 
 import com.jt.tours.domain.TourRating;
+import com.jt.tours.web.rest.dto.TourRatingBatchResult;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -16,7 +17,7 @@ public interface ITourRatingService {
 
     TourRating createNewRating(Long tourId, Long customerId, Integer ratingScore, String comment);
 
-    List<TourRating> createNewRatings(Long tourId, Long[] customerId, Integer ratingScore);
+    TourRatingBatchResult createNewRatings(Long tourId, Long[] customerId, Integer ratingScore);
 
     Optional<TourRating> searchRatingById(Long id);
 
@@ -24,6 +25,10 @@ public interface ITourRatingService {
 
     Page<TourRating> getTourRatings(Long tourId, Pageable pageable);
 
+    List<TourRating> getTourRatingsAfter(Long tourId, Long afterId, int limit);
+
+    List<TourRating> searchRatingsAfter(Long afterId, int limit);
+
     TourRating updateRating(Long tourId, Long customerId, Integer ratingScore, String comment);
 
     TourRating updateSomeRating(Long tourId, Long customerId, Integer ratingScore, String comment);
@@ -0,0 +1,169 @@
+package com.jt.tours.service.impl;
+
+import com.jt.tours.repository.RefreshTokenRepository;
+import com.jt.tours.repository.UserRepository;
+import com.jt.tours.security.domain.AuthTokens;
+import com.jt.tours.security.domain.RefreshToken;
+import com.jt.tours.security.domain.User;
+import com.jt.tours.security.jwt.JwtTokenProvider;
+import com.jt.tours.web.rest.exceptions.CustomException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Refresh Token Service issues the access/refresh token pairs. A refresh costs a hash, an indexed lookup of
+ * the refresh token and the user, and a JWT signature: no password hashing. Refresh tokens are rotated on
+ * every use and a reused token revokes its whole family.
+ *
+ * Only one of concurrent refreshes with the same token gets new tokens. The others, e.g. from two browser tabs or
+ * a client retry, present a token rotated moments ago: within the reuse grace period they are refused without
+ * revoking the family, so the winner's new token stays valid.
+ *
+ * Created by Jason Tao on 7/5/2020
+ */
+@Slf4j
+@Service
+@Transactional
+public class RefreshTokenService {
+
+    private static final int TOKEN_BYTES = 32;
+
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    private RefreshTokenRepository refreshTokenRepository;
+    private UserRepository userRepository;
+    private JwtTokenProvider jwtTokenProvider;
+    private Duration refreshTokenValidity;
+    private Duration reuseGracePeriod;
+
+    public RefreshTokenService(RefreshTokenRepository refreshTokenRepository,
+                               UserRepository userRepository,
+                               JwtTokenProvider jwtTokenProvider,
+                               @Value("${security.jwt.refresh-token.validity:P14D}") Duration refreshTokenValidity,
+                               @Value("${security.jwt.refresh-token.reuse-grace-period:PT10S}") Duration reuseGracePeriod) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.userRepository = userRepository;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.refreshTokenValidity = refreshTokenValidity;
+        this.reuseGracePeriod = reuseGracePeriod;
+    }
+
+    /**
+     * Issue the tokens of a user who just logged in, starting a new refresh token family.
+     *
+     * @param user the authenticated user
+     * @return the access and refresh tokens
+     */
+    public AuthTokens issueTokens(User user) {
+        return tokens(user, issueRefreshToken(user.getUsername(), UUID.randomUUID().toString()));
+    }
+
+    /**
+     * Exchange a refresh token for a new token pair. The presented token is revoked.
+     *
+     * Read committed, so that a refresh blocked by a concurrent one with the same token reads when the token was
+     * revoked rather than the snapshot taken before.
+     *
+     * @param presentedToken the refresh token
+     * @return the new access and refresh tokens
+     * @throws CustomException 401 if the token is unknown, expired or was already used
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, noRollbackFor = CustomException.class)
+    public AuthTokens refresh(String presentedToken) {
+
+        Instant now = Instant.now();
+        RefreshToken refreshToken = refreshTokenRepository.findByTokenHash(hash(presentedToken)).orElseThrow(() ->
+                new CustomException(HttpStatus.UNAUTHORIZED, "Invalid refresh token."));
+
+        if(refreshTokenRepository.revoke(refreshToken.getId(), now) == 0) {
+            Instant revokedAt = refreshTokenRepository.findRevokedAtById(refreshToken.getId()).orElse(null);
+            if(revokedAt != null && revokedAt.isAfter(now.minus(reuseGracePeriod))) {
+                // Rotated moments ago by a concurrent refresh of the same client, not a replay.
+                log.info("Refresh token of user {} used concurrently; keeping its family", refreshToken.getUsername());
+                throw new CustomException(HttpStatus.UNAUTHORIZED, "Refresh token already used.");
+            }
+            // The token was rotated or revoked before: someone replays it, so end every session of this login.
+            log.warn("Refresh token of user {} reused; revoking its family", refreshToken.getUsername());
+            refreshTokenRepository.revokeFamily(refreshToken.getFamilyId(), now);
+            throw new CustomException(HttpStatus.UNAUTHORIZED, "Invalid refresh token.");
+        }
+        if(refreshToken.getExpiresAt().isBefore(now)) {
+            throw new CustomException(HttpStatus.UNAUTHORIZED, "Refresh token expired.");
+        }
+
+        User user = userRepository.findByUsername(refreshToken.getUsername()).orElseThrow(() ->
+                new CustomException(HttpStatus.UNAUTHORIZED, "Invalid refresh token."));
+        return tokens(user, issueRefreshToken(user.getUsername(), refreshToken.getFamilyId()));
+    }
+
+    /**
+     * Revoke the family of a refresh token, e.g. on logout. Unknown tokens are ignored.
+     *
+     * @param presentedToken the refresh token
+     */
+    public void revoke(String presentedToken) {
+        refreshTokenRepository.findByTokenHash(hash(presentedToken)).ifPresent(refreshToken ->
+                refreshTokenRepository.revokeFamily(refreshToken.getFamilyId(), Instant.now()));
+    }
+
+    /**
+     * Delete the expired refresh tokens every night.
+     *
+     * @return the number of tokens deleted
+     */
+    @Scheduled(cron = "${security.jwt.refresh-token.purge-cron:0 30 3 * * *}")
+    public int purgeExpiredTokens() {
+        int purged = refreshTokenRepository.deleteExpiredBefore(Instant.now());
+        log.info("Purged {} expired refresh tokens", purged);
+        return purged;
+    }
+
+    private AuthTokens tokens(User user, String refreshToken) {
+        return AuthTokens.builder()
+                .accessToken(jwtTokenProvider.createToken(user.getUsername(), user.getAuthUserGroups()))
+                .refreshToken(refreshToken)
+                .expiresIn(jwtTokenProvider.getAccessTokenValidity().getSeconds())
+                .build();
+    }
+
+    private String issueRefreshToken(String username, String familyId) {
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        secureRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        Instant now = Instant.now();
+        refreshTokenRepository.save(RefreshToken.builder()
+                .tokenHash(hash(token))
+                .username(username)
+                .familyId(familyId)
+                .issuedAt(now)
+                .expiresAt(now.plus(refreshTokenValidity))
+                .build());
+        return token;
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+        } catch(NoSuchAlgorithmException e) {
+            // Every JVM ships SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.jt.tours.service.impl;
+
+import com.jt.tours.domain.TourChangeEvent;
+import com.jt.tours.repository.TourRepository;
+import com.jt.tours.search.TourFacetIndex;
+import com.jt.tours.search.TourFacetQuery;
+import com.jt.tours.search.TourFacetResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tour Facet Service filters the tour catalog by difficulty, region, package and price from in-memory bitmap
+ * indexes and returns the per facet counts along with the matching page. The indexes are built from the tour table
+ * at startup and kept in sync with the tour writes.
+ *
+ * Created by Jason Tao on 6/28/2020
+ */
+@Slf4j
+@Service
+public class TourFacetService {
+
+    private final TourFacetIndex tourFacetIndex;
+
+    private TourRepository tourRepository;
+
+    @Autowired
+    public TourFacetService(TourRepository tourRepository,
+                            @Value("${tour.facet.price-bucket-width:250}") int priceBucketWidth) {
+        this.tourRepository = tourRepository;
+        this.tourFacetIndex = new TourFacetIndex(priceBucketWidth);
+    }
+
+    /**
+     * Build the indexes from the tour table once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        tourFacetIndex.rebuild(tourRepository.findAll());
+        log.info("Built tour facet indexes");
+    }
+
+    /**
+     * Apply a committed tour write to the indexes.
+     *
+     * @param event the tour change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChange(TourChangeEvent event) {
+        if(event.isRemoved()) {
+            tourFacetIndex.remove(event.getTour().getId());
+        } else {
+            tourFacetIndex.index(event.getTour());
+        }
+    }
+
+    /**
+     * Filter the tours by facets.
+     *
+     * @param query the facet filters
+     * @param pageable page parameters to determine which tours to return; its sort is ignored
+     * @return the page of matching tours, in tour id order, and the facet counts
+     */
+    public TourFacetResult filter(TourFacetQuery query, Pageable pageable) {
+
+        log.debug("Filter tours by facets");
+        return tourFacetIndex.filter(query, pageable.getOffset(), pageable.getPageSize());
+    }
+}
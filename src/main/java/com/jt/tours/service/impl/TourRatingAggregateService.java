@@ -0,0 +1,213 @@
+package com.jt.tours.service.impl;
+
+import com.jt.tours.domain.TourRatingAggregate;
+import com.jt.tours.repository.TourRatingAggregateRepository;
+import com.jt.tours.repository.TourRatingRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Tour Rating Aggregate Service keeps the per tour rating aggregates in sync with the tour ratings.
+ *
+ * Every change to an aggregate is made while holding the lock on its row, so the rating writes of a tour and the
+ * reconciliation are applied one after the other. The row of a tour rated for the first time is inserted, unless a
+ * concurrent first rating did, within the transaction of the rating, so a rating write only ever holds one
+ * connection from the pool.
+ *
+ * Created by Jason Tao on 6/20/2020
+ */
+@Slf4j
+@Service
+@Transactional
+public class TourRatingAggregateService {
+
+    private TourRatingAggregateRepository tourRatingAggregateRepository;
+
+    private TourRatingRepository tourRatingRepository;
+
+    // Runs the repair of each tour in a transaction of its own.
+    private TransactionTemplate newTransaction;
+
+    @Autowired
+    public TourRatingAggregateService(TourRatingAggregateRepository tourRatingAggregateRepository,
+                                      TourRatingRepository tourRatingRepository,
+                                      PlatformTransactionManager transactionManager) {
+        this.tourRatingAggregateRepository = tourRatingAggregateRepository;
+        this.tourRatingRepository = tourRatingRepository;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Add a rating score to the aggregate of a tour.
+     *
+     * @param tourId tour identifier
+     * @param ratingScore score of the tour rating
+     */
+    public void addScore(Long tourId, Integer ratingScore) {
+        addScores(tourId, ratingScore, 1);
+    }
+
+    /**
+     * Add the same rating score several times to the aggregate of a tour.
+     *
+     * @param tourId tour identifier
+     * @param ratingScore score of the tour rating
+     * @param times number of ratings given with the score
+     */
+    public void addScores(Long tourId, Integer ratingScore, int times) {
+        if(times <= 0) {
+            return;
+        }
+        TourRatingAggregate aggregate = findAggregateForUpdate(tourId);
+        for(int i = 0; i < times; i++) {
+            aggregate.addScore(ratingScore);
+        }
+        tourRatingAggregateRepository.save(aggregate);
+    }
+
+    /**
+     * Replace a rating score in the aggregate of a tour.
+     *
+     * @param tourId tour identifier
+     * @param oldRatingScore the score before the update
+     * @param newRatingScore the score after the update
+     */
+    public void replaceScore(Long tourId, Integer oldRatingScore, Integer newRatingScore) {
+        if(oldRatingScore != null && oldRatingScore.equals(newRatingScore)) {
+            return;
+        }
+        TourRatingAggregate aggregate = findAggregateForUpdate(tourId);
+        aggregate.removeScore(oldRatingScore);
+        aggregate.addScore(newRatingScore);
+        tourRatingAggregateRepository.save(aggregate);
+    }
+
+    /**
+     * Remove a rating score from the aggregate of a tour.
+     *
+     * @param tourId tour identifier
+     * @param ratingScore score of the deleted tour rating
+     */
+    public void removeScore(Long tourId, Integer ratingScore) {
+        TourRatingAggregate aggregate = findAggregateForUpdate(tourId);
+        aggregate.removeScore(ratingScore);
+        tourRatingAggregateRepository.save(aggregate);
+    }
+
+    /**
+     * Look up the average rating score of a tour from its aggregate.
+     *
+     * @param tourId tour identifier
+     * @return the average score, null if the tour has no rating.
+     */
+    @Transactional(readOnly = true)
+    public Double getAverage(Long tourId) {
+        return tourRatingAggregateRepository.findById(tourId)
+                .map(TourRatingAggregate::getAverage)
+                .orElse(null);
+    }
+
+    /**
+     * Recompute all the aggregates from the tour ratings and repair the ones that drifted.
+     * Runs on the configured schedule and can also be triggered on demand.
+     *
+     * The drifted aggregates are first spotted without locking anything. Each of them is then recomputed and
+     * written in its own transaction while holding the lock on its row, so a rating write committed in between
+     * is never overwritten: it either committed before the lock, and is counted, or waits for the repair.
+     *
+     * @return number of aggregates repaired
+     */
+    @Scheduled(cron = "${tour.rating.aggregate.reconcile-cron:0 0 3 * * *}")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public int reconcile() {
+
+        log.info("Reconcile tour rating aggregates");
+        Map<Long, TourRatingAggregate> existing = tourRatingAggregateRepository.findAll().stream()
+                .collect(Collectors.toMap(TourRatingAggregate::getTourId, Function.identity()));
+
+        Set<Long> drifted = new TreeSet<>();
+        for(TourRatingAggregate aggregate : tourRatingRepository.computeAggregates()) {
+            if(!aggregate.equals(existing.remove(aggregate.getTourId()))) {
+                drifted.add(aggregate.getTourId());
+            }
+        }
+        // Whatever is left belongs to tours that no longer have any rating.
+        existing.values().stream()
+                .filter(stale -> !emptyAggregate(stale.getTourId()).equals(stale))
+                .forEach(stale -> drifted.add(stale.getTourId()));
+
+        int repaired = 0;
+        for(Long tourId : drifted) {
+            if(Boolean.TRUE.equals(newTransaction.execute(status -> repair(tourId)))) {
+                repaired++;
+            }
+        }
+
+        log.info("Repaired {} tour rating aggregates", repaired);
+        return repaired;
+    }
+
+    /**
+     * Recompute the aggregate of a tour under the lock of its row and write it if it drifted.
+     *
+     * @param tourId tour identifier
+     * @return true if the aggregate was repaired
+     */
+    private boolean repair(Long tourId) {
+        // Created and locked without any plain read first, so the snapshot the ratings are read from is taken
+        // after the lock and includes any write that committed before it.
+        tourRatingAggregateRepository.insertIfAbsent(tourId);
+        TourRatingAggregate current = lockAggregate(tourId);
+        TourRatingAggregate computed = tourRatingRepository.computeAggregate(tourId)
+                .orElseGet(() -> emptyAggregate(tourId));
+        if(computed.equals(current)) {
+            return false;
+        }
+        tourRatingAggregateRepository.save(computed);
+        return true;
+    }
+
+    /**
+     * Find and lock the aggregate of a tour, creating an empty one first if the tour has not been rated yet.
+     *
+     * @param tourId tour identifier
+     * @return the aggregate of the tour
+     */
+    private TourRatingAggregate findAggregateForUpdate(Long tourId) {
+        createAggregateIfAbsent(tourId);
+        return lockAggregate(tourId);
+    }
+
+    private TourRatingAggregate lockAggregate(Long tourId) {
+        return tourRatingAggregateRepository.findByTourIdForUpdate(tourId).orElseThrow(() ->
+                new IllegalStateException("Aggregate of tour " + tourId + " does not exist"));
+    }
+
+    /**
+     * Insert the empty aggregate of a tour in the current transaction, unless it exists already. The row is
+     * checked without a lock: on MySQL, locking a missing row takes a gap lock that would block the insert.
+     *
+     * @param tourId tour identifier
+     */
+    private void createAggregateIfAbsent(Long tourId) {
+        if(!tourRatingAggregateRepository.existsById(tourId)) {
+            tourRatingAggregateRepository.insertIfAbsent(tourId);
+        }
+    }
+
+    private TourRatingAggregate emptyAggregate(Long tourId) {
+        return TourRatingAggregate.builder().tourId(tourId).build();
+    }
+}
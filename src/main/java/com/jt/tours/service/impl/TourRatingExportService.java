@@ -0,0 +1,184 @@
+package com.jt.tours.service.impl;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.jt.tours.config.ExportConnectionPool;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Tour Rating Export Service streams every tour rating straight from the database to a writer. Rows are read
+ * through a forward-only result set with a bounded fetch size and written as they arrive, so memory stays
+ * constant regardless of the number of ratings.
+ *
+ * The exports run on a pool of their own (see ExportConnectionPool), since they hold their connection for minutes.
+ *
+ * Note that MySQL Connector/J only honours the fetch size when the url sets useCursorFetch=true.
+ *
+ * Created by Jason Tao on 6/25/2020
+ */
+@Slf4j
+@Service
+public class TourRatingExportService {
+
+    private static final String SELECT_RATINGS_SQL =
+            "select id, tour_id, customer_id, rating_score, comment from tour_rating order by id";
+
+    private static final String CSV_HEADER = "id,tourId,customerId,ratingScore,comment";
+
+    // Written by the JSON generator between two rows, as it does between any two root values.
+    private static final SerializedString NDJSON_SEPARATOR = new SerializedString("\n");
+
+    /**
+     * Supported export formats.
+     */
+    public enum Format {
+        NDJSON("application/x-ndjson"), CSV("text/csv");
+
+        private String contentType;
+
+        Format(String contentType) {
+            this.contentType = contentType;
+        }
+
+        public static Format findByLabel(String label) {
+
+            for(Format format : Format.values()) {
+                if(format.name().equalsIgnoreCase(label)) {
+                    return format;
+                }
+            }
+            return null;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+
+    public TourRatingExportService(ExportConnectionPool exportConnectionPool,
+                                   @Value("${tour.rating.export.fetch-size:1000}") int fetchSize) {
+        // Dedicated template so the fetch size does not leak into the other queries.
+        this.jdbcTemplate = new JdbcTemplate(exportConnectionPool.getDataSource());
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    /**
+     * Write all the tour ratings to the writer in the requested format.
+     *
+     * @param format the export format
+     * @param writer the writer to stream the ratings to
+     * @throws UncheckedIOException if writing to the writer fails
+     */
+    public void exportRatings(Format format, Writer writer) {
+
+        log.info("Export all tour ratings as {}", format);
+        try {
+            if(format == Format.CSV) {
+                exportCsv(writer);
+            } else {
+                exportNdjson(writer);
+            }
+            writer.flush();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Write the ratings as one JSON object per line, all through a single generator.
+     */
+    private void exportNdjson(Writer writer) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(writer)) {
+            // The generator must not close the response writer.
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(NDJSON_SEPARATOR);
+            jdbcTemplate.query(SELECT_RATINGS_SQL, resultSet -> {
+                try {
+                    writeJsonRow(resultSet, generator);
+                } catch (IOException ex) {
+                    throw new UncheckedIOException(ex);
+                }
+            });
+            // The separator only goes between the rows, the last line is ended here.
+            if(generator.getOutputContext().getEntryCount() > 0) {
+                generator.writeRaw('\n');
+            }
+        }
+    }
+
+    private void exportCsv(Writer writer) throws IOException {
+        writer.write(CSV_HEADER);
+        writer.write('\n');
+        jdbcTemplate.query(SELECT_RATINGS_SQL, resultSet -> {
+            try {
+                writeCsvRow(resultSet, writer);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+    }
+
+    /**
+     * Write the current row as a root JSON object.
+     */
+    private void writeJsonRow(ResultSet resultSet, JsonGenerator generator) throws SQLException, IOException {
+        generator.writeStartObject();
+        writeNumberField(generator, "id", resultSet.getLong("id"), resultSet.wasNull());
+        writeNumberField(generator, "tourId", resultSet.getLong("tour_id"), resultSet.wasNull());
+        writeNumberField(generator, "customerId", resultSet.getLong("customer_id"), resultSet.wasNull());
+        writeNumberField(generator, "ratingScore", resultSet.getInt("rating_score"), resultSet.wasNull());
+        generator.writeStringField("comment", resultSet.getString("comment"));
+        generator.writeEndObject();
+    }
+
+    private void writeNumberField(JsonGenerator generator, String name, long value, boolean isNull) throws IOException {
+        if(isNull) {
+            generator.writeNullField(name);
+        } else {
+            generator.writeNumberField(name, value);
+        }
+    }
+
+    /**
+     * Write the current row as one CSV line.
+     */
+    private void writeCsvRow(ResultSet resultSet, Writer writer) throws SQLException, IOException {
+        writer.write(csvValue(resultSet.getString("id")));
+        writer.write(',');
+        writer.write(csvValue(resultSet.getString("tour_id")));
+        writer.write(',');
+        writer.write(csvValue(resultSet.getString("customer_id")));
+        writer.write(',');
+        writer.write(csvValue(resultSet.getString("rating_score")));
+        writer.write(',');
+        writer.write(csvValue(resultSet.getString("comment")));
+        writer.write('\n');
+    }
+
+    /**
+     * Quote a CSV value when it contains a separator, a quote or a line break.
+     */
+    private String csvValue(String value) {
+        if(value == null) {
+            return "";
+        }
+        if(value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+        return value;
+    }
+}
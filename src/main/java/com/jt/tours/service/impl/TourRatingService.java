@@ -5,17 +5,22 @@ import com.jt.tours.domain.TourRating;
 import com.jt.tours.repository.TourRatingRepository;
 import com.jt.tours.repository.TourRepository;
 import com.jt.tours.service.ITourRatingService;
+import com.jt.tours.web.rest.dto.TourRatingBatchResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
+import static com.jt.tours.config.RequestChatterFilter.REQUEST;
+
 /**
- * Tour Rating Service
+ * Tour Rating Service. The lookups run in read only transactions: Hibernate opens the session read only with
+ * FlushMode.MANUAL, so the loaded ratings are neither snapshotted for dirty checking nor flushed at commit.
  *
  * Created by Jason Tao on 5/30/2020
  */
@@ -28,10 +33,14 @@ public class TourRatingService implements ITourRatingService {
 
     private TourRepository tourRepository;
 
+    private TourRatingAggregateService tourRatingAggregateService;
+
     @Autowired
-    public TourRatingService(TourRatingRepository tourRatingRepository, TourRepository tourRepository) {
+    public TourRatingService(TourRatingRepository tourRatingRepository, TourRepository tourRepository,
+                             TourRatingAggregateService tourRatingAggregateService) {
         this.tourRatingRepository = tourRatingRepository;
         this.tourRepository = tourRepository;
+        this.tourRatingAggregateService = tourRatingAggregateService;
     }
 
     /**
@@ -49,38 +58,34 @@ public class TourRatingService implements ITourRatingService {
 
         log.info("Create tour rating for a tour {} of customer {}", tourId, customerId);
         Tour targetTour = findTour(tourId);
-        return tourRatingRepository.save(TourRating.builder()
+        TourRating createdRating = tourRatingRepository.save(TourRating.builder()
                                     .tour(targetTour)
                                     .customerId(customerId)
                                     .ratingScore(ratingScore)
                                     .comment(comment).build());
+        tourRatingAggregateService.addScore(tourId, ratingScore);
+        return createdRating;
     }
 
     /**
-     * Give the same score from multiple customers on a tour.
+     * Give the same score from multiple customers on a tour. The ratings are inserted in JDBC batches and
+     * customers that already rated the tour are reported as duplicates.
      *
      * @param tourId tour identifier
      * @param ratingScore score of tour rating
      * @param customerIds the id of multiple customers.
-     * @return list of TourRating created.
+     * @return summary of the inserted and duplicate ratings.
+     * @throws NoSuchElementException if no Tour found
      */
-    public List<TourRating> createNewRatings(Long tourId, Long[] customerIds, Integer ratingScore) {
-
-        List<Long> customerIdList = Arrays.asList(customerIds);
-        List<TourRating> tourRatings = new ArrayList<>();
-
-        log.info("Create tour rating for tour {} of customers {}", tourId, customerIdList.toString());
-        tourRepository.findById(tourId).ifPresent(tour -> {
-            customerIdList.forEach(id -> {
-                tourRatings.add(tourRatingRepository.save(TourRating.builder()
-                                .tour(tour)
-                                .customerId(id)
-                                .ratingScore(ratingScore)
-                                .build()));
-            });
-        });
-
-        return tourRatings;
+    @Override
+    public TourRatingBatchResult createNewRatings(Long tourId, Long[] customerIds, Integer ratingScore) {
+
+        log.info("Create tour rating for tour {} of {} customers", tourId, customerIds.length);
+        Tour targetTour = findTour(tourId);
+
+        TourRatingBatchResult result = tourRatingRepository.insertRatings(targetTour.getId(), Arrays.asList(customerIds), ratingScore);
+        tourRatingAggregateService.addScores(tourId, ratingScore, result.getInserted());
+        return result;
     }
 
     /**
@@ -90,9 +95,10 @@ public class TourRatingService implements ITourRatingService {
      * @return the tour rating if found.
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<TourRating> searchRatingById(Long id) {
 
-        log.info("Find tour rating by rating {}", id);
+        log.debug(REQUEST, "Find tour rating by rating {}", id);
         return tourRatingRepository.findById(id);
     }
 
@@ -102,9 +108,10 @@ public class TourRatingService implements ITourRatingService {
      * @return list of tour ratings
      */
     @Override
+    @Transactional(readOnly = true)
     public List<TourRating> searchAllRatings() {
 
-        log.info("Find all tour ratings available");
+        log.debug(REQUEST, "Find all tour ratings available");
         return tourRatingRepository.findAll();
     }
 
@@ -117,13 +124,49 @@ public class TourRatingService implements ITourRatingService {
      * @throws NoSuchElementException if not tour rating found
      */
     @Override
+    @Transactional(readOnly = true)
     public Page<TourRating> getTourRatings(Long tourId, Pageable pageable) {
 
-        log.info("Retrieve tour rating for tour {}", tourId);
+        log.debug(REQUEST, "Retrieve tour rating for tour {}", tourId);
         Tour targetTour = findTour(tourId);
         return tourRatingRepository.findByTourId(targetTour.getId(), pageable);
     }
 
+    /**
+     * Find the tour ratings of a tour that come after a rating id. Seeks on the rating id instead of
+     * scanning an offset, and does not count the total.
+     *
+     * @param tourId tour identifier
+     * @param afterId the last rating id already seen
+     * @param limit maximum number of ratings to return
+     * @return list of tour ratings ordered by id
+     * @throws NoSuchElementException if no tour is found
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TourRating> getTourRatingsAfter(Long tourId, Long afterId, int limit) {
+
+        log.debug(REQUEST, "Retrieve tour rating for tour {} after rating {}", tourId, afterId);
+        Tour targetTour = findTour(tourId);
+        return tourRatingRepository.findByTourIdAndIdGreaterThanOrderByIdAsc(targetTour.getId(), afterId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Find the tour ratings that come after a rating id. Seeks on the rating id instead of
+     * scanning an offset, and does not count the total.
+     *
+     * @param afterId the last rating id already seen
+     * @param limit maximum number of ratings to return
+     * @return list of tour ratings ordered by id
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<TourRating> searchRatingsAfter(Long afterId, int limit) {
+
+        log.debug(REQUEST, "Find tour ratings after rating {}", afterId);
+        return tourRatingRepository.findByIdGreaterThanOrderByIdAsc(afterId, PageRequest.of(0, limit));
+    }
+
     /**
      * Updates a tour rating.
      *
@@ -137,12 +180,15 @@ public class TourRatingService implements ITourRatingService {
     public TourRating updateRating(Long tourId, Long customerId, Integer ratingScore, String comment) {
 
         TourRating targetRating = findTourRating(tourId, customerId);
+        Integer previousScore = targetRating.getRatingScore();
 
         //update the rating
         targetRating.setRatingScore(ratingScore);
         targetRating.setComment(comment);
 
-        return tourRatingRepository.save(targetRating);
+        TourRating updatedRating = tourRatingRepository.save(targetRating);
+        tourRatingAggregateService.replaceScore(tourId, previousScore, updatedRating.getRatingScore());
+        return updatedRating;
     }
 
     /**
@@ -158,6 +204,7 @@ public class TourRatingService implements ITourRatingService {
     public TourRating updateSomeRating(Long tourId, Long customerId, Integer ratingScore, String comment) {
 
         TourRating targetRating = findTourRating(tourId, customerId);
+        Integer previousScore = targetRating.getRatingScore();
 
         if(ratingScore != null && ratingScore > 0) {
             targetRating.setRatingScore(ratingScore);
@@ -166,7 +213,9 @@ public class TourRatingService implements ITourRatingService {
             targetRating.setComment(comment);
         }
 
-        return tourRatingRepository.save(targetRating);
+        TourRating updatedRating = tourRatingRepository.save(targetRating);
+        tourRatingAggregateService.replaceScore(tourId, previousScore, updatedRating.getRatingScore());
+        return updatedRating;
     }
 
     /**
@@ -180,20 +229,30 @@ public class TourRatingService implements ITourRatingService {
     public void delete(Long tourId, Long customerId) {
         TourRating rating = findTourRating(tourId, customerId);
         tourRatingRepository.delete(rating);
+        tourRatingAggregateService.removeScore(tourId, rating.getRatingScore());
     }
 
     /**
-     * Calculate the average rating score of a tour
+     * Look up the average rating score of a tour from the maintained rating aggregate.
      *
      * @param tourId tour identifier
-     * @return the average score as a Double
-     * @throws NoSuchElementException if not tour rating found
+     * @return the average score as a Double, null if the tour has no rating.
      */
+    @Transactional(readOnly = true)
     public Double getAverageRatingScore(Long tourId) {
 
-        List<TourRating> ratings = tourRatingRepository.findByTourId(tourId);
-        OptionalDouble average = ratings.stream().mapToInt( (rating) -> rating.getRatingScore()).average();
-        return average.isPresent() ? average.getAsDouble() : null;
+        return tourRatingAggregateService.getAverage(tourId);
+    }
+
+    /**
+     * Recompute the rating aggregates from the tour ratings to repair any drift.
+     *
+     * @return number of aggregates repaired
+     */
+    public int rebuildRatingAggregates() {
+
+        log.info("Rebuild tour rating aggregates");
+        return tourRatingAggregateService.reconcile();
     }
 
     /**
@@ -0,0 +1,79 @@
+package com.jt.tours.service.impl;
+
+import com.jt.tours.domain.TourChangeEvent;
+import com.jt.tours.repository.TourRepository;
+import com.jt.tours.search.TourSearchHit;
+import com.jt.tours.search.TourSearchIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Tour Search Service answers keyword searches over the tour catalog from an in-memory inverted index.
+ * The index is built from the tour table at startup and kept in sync with the tour writes.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+@Slf4j
+@Service
+public class TourSearchService {
+
+    private final TourSearchIndex tourSearchIndex = new TourSearchIndex();
+
+    private TourRepository tourRepository;
+
+    @Autowired
+    public TourSearchService(TourRepository tourRepository) {
+        this.tourRepository = tourRepository;
+    }
+
+    /**
+     * Build the index from the tour table once the application is ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIndex() {
+        tourSearchIndex.rebuild(tourRepository.findAll());
+        log.info("Indexed {} tours for search", tourSearchIndex.size());
+    }
+
+    /**
+     * Apply a committed tour write to the index.
+     *
+     * @param event the tour change
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onTourChange(TourChangeEvent event) {
+        if(event.isRemoved()) {
+            tourSearchIndex.remove(event.getTour().getId());
+        } else {
+            tourSearchIndex.index(event.getTour());
+        }
+    }
+
+    /**
+     * Search the tours matching the query, most relevant first.
+     *
+     * @param query the free text query
+     * @param pageable page parameters to determine which hits to return; its sort is ignored
+     * @return page of ranked hits
+     */
+    public Page<TourSearchHit> search(String query, Pageable pageable) {
+
+        log.debug("Search tours for '{}'", query);
+        List<TourSearchHit> hits = tourSearchIndex.search(query);
+
+        int from = (int) Math.min(pageable.getOffset(), hits.size());
+        int to = Math.min(from + pageable.getPageSize(), hits.size());
+        List<TourSearchHit> content = from < to ? hits.subList(from, to) : Collections.emptyList();
+        return new PageImpl<>(content, pageable, hits.size());
+    }
+}
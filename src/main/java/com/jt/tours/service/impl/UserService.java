@@ -1,11 +1,12 @@
 package com.jt.tours.service.impl;
 
-import com.jt.tours.repository.AuthUserGroupRepository;
 import com.jt.tours.repository.UserRepository;
+import com.jt.tours.security.AuthUserGroupRegistry;
+import com.jt.tours.security.CsrUserCache;
+import com.jt.tours.security.domain.AuthTokens;
 import com.jt.tours.security.domain.AuthUserGroup;
 import com.jt.tours.security.domain.AuthUserGroupEnum;
 import com.jt.tours.security.domain.User;
-import com.jt.tours.security.jwt.JwtTokenProvider;
 import com.jt.tours.web.rest.exceptions.CustomException;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -21,7 +22,7 @@ import java.util.Optional;
 import java.util.Set;
 
 /**
- * The User service
+ * The User service. The lookups run in read only transactions, without dirty checking nor flush.
  *
  * Created by Jason Tao on 6/9/2020
  */
@@ -30,24 +31,25 @@ import java.util.Set;
 @Transactional
 public class UserService {
 
-    private static final String CSR_USER_AUTH_GROUP = "CSR_USER";
-
     private UserRepository userRepository;
-    private AuthUserGroupRepository authUserGroupRepository;
+    private AuthUserGroupRegistry authUserGroupRegistry;
     private PasswordEncoder passwordEncoder;
     private AuthenticationManager authenticationManager;
-    private JwtTokenProvider jwtTokenProvider;
+    private RefreshTokenService refreshTokenService;
+    private CsrUserCache csrUserCache;
 
     public UserService(AuthenticationManager authenticationManager,
                        UserRepository userRepository,
-                       AuthUserGroupRepository authUserGroupRepository,
+                       AuthUserGroupRegistry authUserGroupRegistry,
                        PasswordEncoder passwordEncoder,
-                       JwtTokenProvider jwtTokenProvider) {
+                       RefreshTokenService refreshTokenService,
+                       CsrUserCache csrUserCache) {
         this.authenticationManager = authenticationManager;
         this.userRepository = userRepository;
-        this.authUserGroupRepository = authUserGroupRepository;
+        this.authUserGroupRegistry = authUserGroupRegistry;
         this.passwordEncoder = passwordEncoder;
-        this.jwtTokenProvider = jwtTokenProvider;
+        this.refreshTokenService = refreshTokenService;
+        this.csrUserCache = csrUserCache;
     }
 
     /**
@@ -55,14 +57,14 @@ public class UserService {
      *
      * @param username
      * @param password
-     * @return Optional of the JWT token string, empty otherwise.
+     * @return Optional of the JWT access token and its refresh token, empty otherwise.
      */
-    public Optional<String> signin(String username, String password) {
+    public Optional<AuthTokens> signin(String username, String password) {
 
         log.info("User is attempting to sign in.");
 
         // Create the empty optional for the jwt token
-        Optional<String> jwtToken = Optional.empty();
+        Optional<AuthTokens> jwtToken = Optional.empty();
 
         // Retrieve the user from database
         Optional<User> foundUser = userRepository.findByUsername(username);
@@ -73,9 +75,9 @@ public class UserService {
                 // If user exists, authenticate user
                 authenticationManager.authenticate(new UsernamePasswordAuthenticationToken(username, password));
 
-                // User is valid, generate the JWT token and return it.
+                // User is valid, generate the JWT access token and the refresh token and return them.
                 log.info("Generating JWT token for user {}", username);
-                jwtToken = Optional.of(jwtTokenProvider.createToken(username, foundUser.get().getAuthUserGroups()));
+                jwtToken = Optional.of(refreshTokenService.issueTokens(foundUser.get()));
 
             } catch (AuthenticationException ex) {
                 log.error("Failed to login with user name {}", username);
@@ -106,7 +108,9 @@ public class UserService {
 
         if(userRepository.findByUsername(username).isEmpty()) {
 
-            AuthUserGroup authUserGroup = authUserGroupRepository.findByAuthGroup(AuthUserGroupEnum.findByLabel(CSR_USER_AUTH_GROUP));
+            // New users join the CSR user group, served from the registry rather than the database.
+            AuthUserGroup authUserGroup = authUserGroupRegistry.findAuthUserGroup(AuthUserGroupEnum.CSR_USER).orElseThrow(() ->
+                    new CustomException(HttpStatus.INTERNAL_SERVER_ERROR, "Authority group CSR_USER does not exist."));
 
             // If user does not exist, persist the new user
             foundUser = Optional.of(
@@ -119,6 +123,9 @@ public class UserService {
                                 .authUserGroups(Set.of(authUserGroup))
                                 .build()));
             log.info("Register new user {} ", foundUser.get().getUsername());
+
+            // Drop anything cached under this username before it existed.
+            csrUserCache.invalidate(username);
         }
         return foundUser;
     }
@@ -129,6 +136,7 @@ public class UserService {
      * @param username
      * @return Optional of User.
      */
+    @Transactional(readOnly = true)
     public Optional<User> getUser(String username) {
 
         log.info("Find user {} exists in database.", username);
@@ -140,6 +148,7 @@ public class UserService {
      *
      * @return list of registered users
      */
+    @Transactional(readOnly = true)
     public List<User> getAll() {
 
         log.info("Find all users.");
@@ -0,0 +1,109 @@
+package com.jt.tours.web.rest.assembler;
+
+import com.jt.tours.domain.TourRating;
+import com.jt.tours.web.rest.dto.TourRatingDTO;
+import com.jt.tours.web.rest.exceptions.CustomException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.hateoas.CollectionModel;
+import org.springframework.hateoas.IanaLinkRelations;
+import org.springframework.hateoas.Link;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Assembler for the cursor based (keyset) pages of tour ratings. The cursor is an opaque token built from the
+ * id of the last rating of a page; the next page seeks past that id.
+ *
+ * Created by Jason Tao on 6/24/2020
+ */
+@Component
+public class RatingCursorAssembler {
+
+    private static final String CURSOR_PARAM = "cursor";
+    private static final String SIZE_PARAM = "size";
+    private static final String CURSOR_PREFIX = "rating:";
+
+    // Same upper bound as the Spring Data default max page size.
+    private static final int MAX_PAGE_SIZE = 2000;
+
+    private RatingAssembler ratingAssembler;
+
+    @Autowired
+    public RatingCursorAssembler(RatingAssembler ratingAssembler) {
+        this.ratingAssembler = ratingAssembler;
+    }
+
+    /**
+     * Decode the cursor into the last rating id seen. An empty cursor starts from the first rating.
+     *
+     * @param cursor the opaque cursor
+     * @return the rating id to seek past
+     * @throws CustomException if the cursor is malformed
+     */
+    public Long decode(String cursor) {
+        if(cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if(decoded.startsWith(CURSOR_PREFIX)) {
+                return Long.parseLong(decoded.substring(CURSOR_PREFIX.length()));
+            }
+        } catch (IllegalArgumentException ex) {
+            // fall through to the bad request below
+        }
+        throw new CustomException(HttpStatus.BAD_REQUEST, "The cursor is invalid.");
+    }
+
+    /**
+     * Encode the last rating id of a page into an opaque cursor.
+     *
+     * @param ratingId the rating id
+     * @return the cursor
+     */
+    public String encode(Long ratingId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + ratingId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Clamp the requested page size into the supported range.
+     *
+     * @param size the requested page size
+     * @return the page size to use
+     */
+    public int pageSize(int size) {
+        return Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    }
+
+    /**
+     * Convert a page of tour ratings into a collection model. The ratings must be fetched with one extra row
+     * (size + 1) so it is known whether a next page exists without counting; the extra row is dropped and
+     * a "next" link carrying the cursor is added.
+     *
+     * @param ratings the tour ratings ordered by id, up to size + 1 of them
+     * @param size the page size
+     * @return collection model of tour rating DTOs
+     */
+    public CollectionModel<TourRatingDTO> toCursorModel(List<TourRating> ratings, int size) {
+
+        boolean hasNext = ratings.size() > size;
+        List<TourRating> page = hasNext ? ratings.subList(0, size) : ratings;
+
+        CollectionModel<TourRatingDTO> model = ratingAssembler.toCollectionModel(page);
+        if(hasNext) {
+            String nextCursor = encode(page.get(page.size() - 1).getId());
+            String href = ServletUriComponentsBuilder.fromCurrentRequest()
+                    .replaceQueryParam(CURSOR_PARAM, nextCursor)
+                    .replaceQueryParam(SIZE_PARAM, size)
+                    .toUriString();
+            model.add(Link.of(href, IanaLinkRelations.NEXT));
+        }
+        return model;
+    }
+}
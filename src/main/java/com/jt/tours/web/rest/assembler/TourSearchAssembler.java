@@ -0,0 +1,54 @@
+package com.jt.tours.web.rest.assembler;
+
+import com.jt.tours.domain.Tour;
+import com.jt.tours.repository.TourRepository;
+import com.jt.tours.search.TourSearchHit;
+import com.jt.tours.web.rest.controller.TourSearchController;
+import com.jt.tours.web.rest.dto.TourSearchResultDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.hateoas.server.mvc.RepresentationModelAssemblerSupport;
+import org.springframework.stereotype.Component;
+
+/**
+ * Tour search assembler that converts a search hit to a HATEOAS supported tour search result.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+@Component
+public class TourSearchAssembler extends RepresentationModelAssemblerSupport<TourSearchHit, TourSearchResultDTO> {
+
+    // Helper to fetch Spring Data Rest Repository links
+    private RepositoryEntityLinks tourRepositoryLinks;
+
+    @Autowired
+    public TourSearchAssembler(RepositoryEntityLinks tourRepositoryLinks) {
+        super(TourSearchController.class, TourSearchResultDTO.class);
+        this.tourRepositoryLinks = tourRepositoryLinks;
+    }
+
+    /**
+     * Converts the search hit to the tour search result DTO with the "tour" link.
+     *
+     * @param hit tour search hit
+     * @return tour search result DTO
+     */
+    @Override
+    public TourSearchResultDTO toModel(TourSearchHit hit) {
+        Tour tour = hit.getTour();
+
+        TourSearchResultDTO result = new TourSearchResultDTO();
+        result.setTourId(tour.getId());
+        result.setTourTitle(tour.getTourTitle());
+        result.setTourPackageCode(tour.getTourPackage() != null ? tour.getTourPackage().getCode() : null);
+        result.setPrice(tour.getPrice());
+        result.setDuration(tour.getDuration());
+        result.setDifficulty(tour.getDifficulty());
+        result.setRegion(tour.getRegion());
+        result.setScore(hit.getScore());
+
+        // "tour" : ".../tours/{tourId}"
+        result.add(tourRepositoryLinks.linkToItemResource(TourRepository.class, tour.getId()).withRel("tour"));
+        return result;
+    }
+}
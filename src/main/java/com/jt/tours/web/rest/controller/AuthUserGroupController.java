@@ -0,0 +1,61 @@
+package com.jt.tours.web.rest.controller;
+
+import com.jt.tours.security.AuthUserGroupRegistry;
+import com.jt.tours.security.CsrUserCache;
+import com.jt.tours.security.domain.AuthUserGroup;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collection;
+
+/**
+ * Authority group controller. Only administrator authority group can access it.
+ *
+ * Created by Jason Tao on 7/9/2020
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/auth-groups")
+@PreAuthorize("hasRole('CSR_ADMIN')")
+public class AuthUserGroupController {
+
+    private AuthUserGroupRegistry authUserGroupRegistry;
+    private CsrUserCache csrUserCache;
+
+    @Autowired
+    public AuthUserGroupController(AuthUserGroupRegistry authUserGroupRegistry, CsrUserCache csrUserCache) {
+        this.authUserGroupRegistry = authUserGroupRegistry;
+        this.csrUserCache = csrUserCache;
+    }
+
+    /**
+     * Retrieves the authority groups held by the registry.
+     *
+     * @return the authority groups with http status of 200 (ok)
+     */
+    @GetMapping
+    public ResponseEntity<Collection<AuthUserGroup>> getAuthUserGroups() {
+        return ResponseEntity.ok(authUserGroupRegistry.getAuthUserGroups());
+    }
+
+    /**
+     * Reload the authority groups from the database after a change of the auth_user_group table. The cached
+     * users are dropped too, so they pick up the reloaded groups.
+     *
+     * @return the reloaded authority groups with http status of 200 (ok)
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<Collection<AuthUserGroup>> refresh() {
+
+        log.info("Refreshing the authority groups");
+        Collection<AuthUserGroup> authUserGroups = authUserGroupRegistry.refresh();
+        csrUserCache.invalidateAll();
+        return ResponseEntity.ok(authUserGroups);
+    }
+}
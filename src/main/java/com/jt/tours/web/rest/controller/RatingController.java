@@ -1,18 +1,35 @@
 package com.jt.tours.web.rest.controller;
 
+import com.jt.tours.service.impl.TourRatingExportService;
 import com.jt.tours.service.impl.TourRatingService;
 import com.jt.tours.web.rest.assembler.RatingAssembler;
+import com.jt.tours.web.rest.assembler.RatingCursorAssembler;
 import com.jt.tours.web.rest.dto.TourRatingDTO;
+import com.jt.tours.web.rest.exceptions.CustomException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.hateoas.CollectionModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.AbstractMap;
 import java.util.NoSuchElementException;
 
+import static com.jt.tours.config.RequestChatterFilter.REQUEST;
+
 /**
  * Rating controller
  *
@@ -28,9 +45,20 @@ public class RatingController {
 
     private RatingAssembler ratingAssembler;
 
-    public RatingController(TourRatingService tourRatingService, RatingAssembler ratingAssembler) {
+    private RatingCursorAssembler ratingCursorAssembler;
+
+    private TourRatingExportService tourRatingExportService;
+
+    private Duration exportTimeout;
+
+    public RatingController(TourRatingService tourRatingService, RatingAssembler ratingAssembler,
+                            RatingCursorAssembler ratingCursorAssembler, TourRatingExportService tourRatingExportService,
+                            @Value("${tour.rating.export.timeout:PT30M}") Duration exportTimeout) {
         this.tourRatingService = tourRatingService;
         this.ratingAssembler = ratingAssembler;
+        this.ratingCursorAssembler = ratingCursorAssembler;
+        this.tourRatingExportService = tourRatingExportService;
+        this.exportTimeout = exportTimeout;
     }
 
     /**
@@ -41,19 +69,71 @@ public class RatingController {
      */
     @GetMapping("/{ratingId}")
     public TourRatingDTO getRating(@PathVariable("ratingId") Long id) {
-        log.info("GET /ratings/{}", id);
+        log.debug(REQUEST, "GET /ratings/{}", id);
         return ratingAssembler.toModel(tourRatingService.searchRatingById(id)
                 .orElseThrow( () -> new NoSuchElementException("Rating " + id + " not found.")));
     }
 
     /**
-     * Retrieve all the tour ratings.
+     * Retrieve all the tour ratings. When a cursor is given (an empty cursor starts from the first rating),
+     * only one page is returned and the "next" link carries the cursor of the following page.
      *
+     * @param cursor opaque cursor returned in the "next" link of the previous page
+     * @param size page size in cursor mode
      * @return list of available tour ratings
      */
     @GetMapping
-    public CollectionModel<TourRatingDTO> getRatings() {
-        log.info("GET /ratings");
+    public CollectionModel<TourRatingDTO> getRatings(@RequestParam(value = "cursor", required = false) String cursor,
+                                                     @RequestParam(value = "size", defaultValue = "20") int size) {
+        log.debug(REQUEST, "GET /ratings");
+
+        if(cursor != null) {
+            int pageSize = ratingCursorAssembler.pageSize(size);
+            return ratingCursorAssembler.toCursorModel(
+                    tourRatingService.searchRatingsAfter(ratingCursorAssembler.decode(cursor), pageSize + 1), pageSize);
+        }
         return ratingAssembler.toCollectionModel(tourRatingService.searchAllRatings());
     }
+
+    /**
+     * Stream all the tour ratings as NDJSON (default) or CSV. The ratings are written to the response as they are
+     * read from the database, so the export does not hold the ratings in memory. The export runs on the async
+     * executor with a timeout of its own, tour.rating.export.timeout, longer than that of the other async requests.
+     *
+     * @param format "ndjson" or "csv"
+     * @param response the response the ratings are streamed to
+     * @return the export task
+     */
+    @GetMapping("/export")
+    public WebAsyncTask<Void> exportRatings(@RequestParam(value = "format", defaultValue = "ndjson") String format,
+                                            HttpServletResponse response) {
+        log.debug(REQUEST, "GET /ratings/export?format={}", format);
+
+        TourRatingExportService.Format exportFormat = TourRatingExportService.Format.findByLabel(format);
+        if(exportFormat == null) {
+            throw new CustomException(HttpStatus.BAD_REQUEST, "The export format is invalid.");
+        }
+
+        response.setContentType(exportFormat.getContentType());
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        // The response was resolved as an argument, so the request is complete once the task returns.
+        return new WebAsyncTask<>(exportTimeout.toMillis(), () -> {
+            tourRatingExportService.exportRatings(exportFormat,
+                    new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8)));
+            return null;
+        });
+    }
+
+    /**
+     * Recompute the tour rating aggregates from the tour ratings to repair any drift.
+     * Only administrator authority group can access this method.
+     *
+     * @return Tuple of "repaired" and the number of repaired aggregates.
+     */
+    @PostMapping("/aggregates/rebuild")
+    @PreAuthorize("hasRole('CSR_ADMIN')")
+    public ResponseEntity<?> rebuildAggregates() {
+        log.info("POST /ratings/aggregates/rebuild");
+        return ResponseEntity.ok(new AbstractMap.SimpleEntry<String, Integer>("repaired", tourRatingService.rebuildRatingAggregates()));
+    }
 }
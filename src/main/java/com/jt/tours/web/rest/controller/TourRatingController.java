@@ -3,6 +3,8 @@ package com.jt.tours.web.rest.controller;
 import com.jt.tours.domain.TourRating;
 import com.jt.tours.service.impl.TourRatingService;
 import com.jt.tours.web.rest.assembler.RatingAssembler;
+import com.jt.tours.web.rest.assembler.RatingCursorAssembler;
+import com.jt.tours.web.rest.dto.TourRatingBatchResult;
 import com.jt.tours.web.rest.dto.TourRatingDTO;
 import com.jt.tours.web.rest.dto.mapper.TourRatingMapper;
 import io.swagger.annotations.Api;
@@ -23,6 +25,8 @@ import org.springframework.web.util.UriComponentsBuilder;
 import javax.validation.Valid;
 import java.util.AbstractMap;
 
+import static com.jt.tours.config.RequestChatterFilter.REQUEST;
+
 /**
  * Tour Rating Controller
  *
@@ -42,14 +46,18 @@ public class TourRatingController {
 
     private RatingAssembler ratingAssembler;
 
+    private RatingCursorAssembler ratingCursorAssembler;
+
     protected TourRatingController() {}
 
     @Autowired
     protected TourRatingController(TourRatingService tourRatingService,
-                                   TourRatingMapper tourRatingMapper, RatingAssembler ratingAssembler) {
+                                   TourRatingMapper tourRatingMapper, RatingAssembler ratingAssembler,
+                                   RatingCursorAssembler ratingCursorAssembler) {
         this.tourRatingService = tourRatingService;
         this.tourRatingMapper = tourRatingMapper;
         this.ratingAssembler = ratingAssembler;
+        this.ratingCursorAssembler = ratingCursorAssembler;
     }
 
     /**
@@ -72,7 +80,7 @@ public class TourRatingController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The tour id is invalid.");
         }
 
-        log.info("POST {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
+        log.debug(REQUEST, "POST {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
 
         TourRating createdRating = tourRatingService.createNewRating(
                 tourId, tourRatingDTO.getCustomerId(), tourRatingDTO.getRatingScore(), tourRatingDTO.getComment());
@@ -89,8 +97,9 @@ public class TourRatingController {
      * @param tourId tour identifier
      * @param ratingScore rating score of the tour
      * @param customers array of customer id
+     * @return summary of the inserted and duplicate ratings
      */
-    @ApiOperation(value = "Create a tour rating with same rating score for multiple customers.")
+    @ApiOperation(value = "Create a tour rating with same rating score for multiple customers.", response = TourRatingBatchResult.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Request POST completed."),
             @ApiResponse(code = 400, message = "The tour id is invalid."),
@@ -98,7 +107,7 @@ public class TourRatingController {
     })
     @PostMapping("/{score}")
     @PreAuthorize("hasRole('CSR_USER') or hasRole('CSR_ADMIN')")
-    public ResponseEntity<String> createTourRatings(@PathVariable("tourId") long tourId,
+    public ResponseEntity<?> createTourRatings(@PathVariable("tourId") long tourId,
                                   @PathVariable("score") int ratingScore,
                                   @RequestParam("customers") Long[] customers) {
 
@@ -106,16 +115,19 @@ public class TourRatingController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The tour id is invalid.");
         }
 
-        log.info("POST {}/tours/{}/ratings/{}", ROOT_API_PATH_PREFIX, tourId, ratingScore);
-        tourRatingService.createNewRatings(tourId, customers, ratingScore);
-        return ResponseEntity.ok("Created rating for multiple customers");
+        log.debug(REQUEST, "POST {}/tours/{}/ratings/{}", ROOT_API_PATH_PREFIX, tourId, ratingScore);
+        return ResponseEntity.ok(tourRatingService.createNewRatings(tourId, customers, ratingScore));
     }
 
     /**
-     * Find all the rating associated with a given tour.
+     * Find all the rating associated with a given tour. When a cursor is given (an empty cursor starts from the
+     * first rating), the ratings are paged by seeking past the cursor and the "next" link carries the cursor
+     * of the following page. Otherwise the offset based pageable is used.
      *
      * @param tourId tour identifier
      * @param pageable page parameters to determine which item to fetch
+     * @param cursor opaque cursor returned in the "next" link of the previous page
+     * @param size page size in cursor mode
      * @return page of Tour Rating DTO
      */
     @ApiOperation(value = "Find all the rating associated with a given tour.", response = TourRatingDTO.class)
@@ -127,13 +139,21 @@ public class TourRatingController {
     @PreAuthorize("permitAll()")
     @GetMapping
     public ResponseEntity<?> getAllRatingsFromTour(@PathVariable("tourId") long tourId, Pageable pageable,
-                                                   PagedResourcesAssembler pagedAssembler) {
-        log.info("GET {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
+                                                   PagedResourcesAssembler pagedAssembler,
+                                                   @RequestParam(value = "cursor", required = false) String cursor,
+                                                   @RequestParam(value = "size", defaultValue = "20") int size) {
+        log.debug(REQUEST, "GET {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
 
         if(tourId < 0) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The tour id is invalid.");
         }
 
+        if(cursor != null) {
+            int pageSize = ratingCursorAssembler.pageSize(size);
+            return ResponseEntity.ok(ratingCursorAssembler.toCursorModel(
+                    tourRatingService.getTourRatingsAfter(tourId, ratingCursorAssembler.decode(cursor), pageSize + 1), pageSize));
+        }
+
         Page<TourRating> pagedTourRating = tourRatingService.getTourRatings(tourId, pageable);
 
         return ResponseEntity.ok(pagedAssembler.toModel(pagedTourRating, ratingAssembler));
@@ -159,7 +179,7 @@ public class TourRatingController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The tour id is invalid.");
         }
 
-        log.info("GET {}/tours/{}/ratings/average", ROOT_API_PATH_PREFIX, tourId);
+        log.debug(REQUEST, "GET {}/tours/{}/ratings/average", ROOT_API_PATH_PREFIX, tourId);
         return ResponseEntity.ok(new AbstractMap.SimpleEntry<String, Double>("average", tourRatingService.getAverageRatingScore(tourId)));
     }
 
@@ -184,7 +204,7 @@ public class TourRatingController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The tour id is invalid.");
         }
 
-        log.info("PUT {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
+        log.debug(REQUEST, "PUT {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
         return ResponseEntity.ok(tourRatingMapper
                 .tourRatingToTourRatingDTO(tourRatingService.updateRating(tourId, tourRatingDTO.getCustomerId(), tourRatingDTO.getRatingScore(), tourRatingDTO.getComment())));
     }
@@ -210,7 +230,7 @@ public class TourRatingController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The tour id is invalid.");
         }
 
-        log.info("PATCH {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
+        log.debug(REQUEST, "PATCH {}/tours/{}/ratings", ROOT_API_PATH_PREFIX, tourId);
         return ResponseEntity.ok(tourRatingMapper
                 .tourRatingToTourRatingDTO(tourRatingService.updateSomeRating(tourId, tourRatingDTO.getCustomerId(), tourRatingDTO.getRatingScore(), tourRatingDTO.getComment())));
     }
@@ -235,7 +255,7 @@ public class TourRatingController {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The tour id is invalid.");
         }
 
-        log.info("PATCH {}/tours/{}/ratings/{}", ROOT_API_PATH_PREFIX, tourId, customerId);
+        log.debug(REQUEST, "PATCH {}/tours/{}/ratings/{}", ROOT_API_PATH_PREFIX, tourId, customerId);
         tourRatingService.delete(tourId, customerId);
 
         return ResponseEntity.noContent().build();
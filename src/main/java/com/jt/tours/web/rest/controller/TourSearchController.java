@@ -0,0 +1,165 @@
+package com.jt.tours.web.rest.controller;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import com.jt.tours.domain.Tour;
+import com.jt.tours.search.TourFacetQuery;
+import com.jt.tours.search.TourFacetResult;
+import com.jt.tours.search.TourSearchHit;
+import com.jt.tours.service.impl.TourFacetService;
+import com.jt.tours.service.impl.TourSearchService;
+import com.jt.tours.web.rest.assembler.TourSearchAssembler;
+import com.jt.tours.web.rest.dto.TourFacetResultDTO;
+import com.jt.tours.web.rest.dto.TourSearchResultDTO;
+import com.jt.tours.web.rest.exceptions.CustomException;
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiResponse;
+import io.swagger.annotations.ApiResponses;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.rest.webmvc.support.RepositoryEntityLinks;
+import org.springframework.data.web.PagedResourcesAssembler;
+import org.springframework.hateoas.RepresentationModel;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.jt.tours.config.RequestChatterFilter.REQUEST;
+
+/**
+ * Tour Search Controller for the keyword search and the faceted filtering of tours.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+@Api(description = "API for searching tours")
+@RequestMapping("/api/v1/tours")
+@RestController
+@Slf4j
+public class TourSearchController {
+
+    private final String ROOT_API_PATH_PREFIX = "/api/v1";
+
+    private TourSearchService tourSearchService;
+
+    private TourFacetService tourFacetService;
+
+    private TourSearchAssembler tourSearchAssembler;
+
+    private RepositoryEntityLinks tourRepositoryLinks;
+
+    @Autowired
+    public TourSearchController(TourSearchService tourSearchService, TourFacetService tourFacetService,
+                                TourSearchAssembler tourSearchAssembler, RepositoryEntityLinks tourRepositoryLinks) {
+        this.tourSearchService = tourSearchService;
+        this.tourFacetService = tourFacetService;
+        this.tourSearchAssembler = tourSearchAssembler;
+        this.tourRepositoryLinks = tourRepositoryLinks;
+    }
+
+    /**
+     * Search the tours by keywords, most relevant first.
+     *
+     * This mapping takes /tours/search over from Spring Data REST, so without a query it lists the repository
+     * searches like the search link of /tours did before.
+     *
+     * @param query the free text query
+     * @param pageable page parameters to determine which item to fetch
+     * @return page of tour search results, or the links to the repository searches without a query
+     */
+    @ApiOperation(value = "Search the tours by keywords, most relevant first.", response = TourSearchResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Request GET completed."),
+            @ApiResponse(code = 400, message = "The query is empty.")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<?> searchTours(@RequestParam(value = "q", required = false) String query, Pageable pageable,
+                                         PagedResourcesAssembler pagedAssembler) {
+        log.debug(REQUEST, "GET {}/tours/search", ROOT_API_PATH_PREFIX);
+
+        if(query == null) {
+            RepresentationModel<?> searches = new RepresentationModel<>();
+            searches.add(tourRepositoryLinks.linksToSearchResources(Tour.class));
+            searches.add(tourRepositoryLinks.linkFor(Tour.class).slash("search").withSelfRel());
+            return ResponseEntity.ok(searches);
+        }
+        if(query.isBlank()) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("The query is empty.");
+        }
+
+        return ResponseEntity.ok(pagedAssembler.toModel(tourSearchService.search(query, pageable), tourSearchAssembler));
+    }
+
+    /**
+     * Filter the tours by difficulty, region, package and price, and count the matching tours per facet value.
+     * Values of the same facet are OR-ed and the facets are AND-ed; each facet is counted against the other filters.
+     *
+     * @param difficulties difficulty labels, e.g. "Hard"
+     * @param regions region labels, e.g. "Central Coast"
+     * @param packageCodes tour package codes, e.g. "BC"
+     * @param minPrice inclusive lower price bound
+     * @param maxPrice inclusive upper price bound
+     * @param pageable page parameters to determine which item to fetch
+     * @return page of matching tours in tour id order and the facet counts
+     */
+    @ApiOperation(value = "Filter the tours by facets and count the matches per facet value.", response = TourFacetResultDTO.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Request GET completed."),
+            @ApiResponse(code = 400, message = "A difficulty or a region is invalid.")
+    })
+    @GetMapping("/filter")
+    public ResponseEntity<TourFacetResultDTO> filterTours(@RequestParam(value = "difficulty", required = false) List<String> difficulties,
+                                                          @RequestParam(value = "region", required = false) List<String> regions,
+                                                          @RequestParam(value = "package", required = false) List<String> packageCodes,
+                                                          @RequestParam(value = "minPrice", required = false) Integer minPrice,
+                                                          @RequestParam(value = "maxPrice", required = false) Integer maxPrice,
+                                                          Pageable pageable,
+                                                          PagedResourcesAssembler pagedAssembler) {
+        log.debug(REQUEST, "GET {}/tours/filter", ROOT_API_PATH_PREFIX);
+
+        TourFacetQuery query = TourFacetQuery.builder()
+                .difficulties(toSet(difficulties, DifficultyEnum::findByLabel, "difficulty"))
+                .regions(toSet(regions, RegionEnum::findByLabel, "region"))
+                .packageCodes(toSet(packageCodes, Function.identity(), "package"))
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .build();
+
+        TourFacetResult result = tourFacetService.filter(query, pageable);
+
+        // Filtering does not rank, so every hit has a score of 0.
+        List<TourSearchHit> hits = result.getTours().stream()
+                .map(tour -> new TourSearchHit(tour, 0f))
+                .collect(Collectors.toList());
+
+        return ResponseEntity.ok(new TourFacetResultDTO(
+                pagedAssembler.toModel(new PageImpl<>(hits, pageable, result.getTotal()), tourSearchAssembler),
+                result.getFacetCounts()));
+    }
+
+    /**
+     * Convert the request values of a facet, rejecting the unknown ones.
+     */
+    private <T> Set<T> toSet(List<String> values, Function<String, T> converter, String facet) {
+        if(values == null) {
+            return null;
+        }
+        return values.stream().map(value -> {
+            T converted = converter.apply(value);
+            if(converted == null) {
+                throw new CustomException(HttpStatus.BAD_REQUEST, "The " + facet + " " + value + " is invalid.");
+            }
+            return converted;
+        }).collect(Collectors.toSet());
+    }
+}
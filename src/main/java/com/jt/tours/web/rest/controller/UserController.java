@@ -1,8 +1,14 @@
 package com.jt.tours.web.rest.controller;
 
+import com.jt.tours.security.domain.AuthTokens;
 import com.jt.tours.security.domain.User;
+import com.jt.tours.security.jwt.TokenRevocationList;
+import com.jt.tours.security.login.LoginExecutor;
+import com.jt.tours.service.impl.RefreshTokenService;
 import com.jt.tours.service.impl.UserService;
+import com.jt.tours.web.rest.dto.RefreshTokenDTO;
 import com.jt.tours.web.rest.dto.UserDTO;
+import io.jsonwebtoken.Claims;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -19,6 +25,7 @@ import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * User controller
@@ -32,31 +39,63 @@ public class UserController {
     private final String ROOT_API_PATH_PREFIX = "/api/v1";
 
     private UserService userService;
+    private RefreshTokenService refreshTokenService;
+    private LoginExecutor loginExecutor;
+    private TokenRevocationList tokenRevocationList;
 
     @Autowired
-    public UserController(UserService userService) {
+    public UserController(UserService userService, RefreshTokenService refreshTokenService, LoginExecutor loginExecutor,
+                          TokenRevocationList tokenRevocationList) {
         this.userService = userService;
+        this.refreshTokenService = refreshTokenService;
+        this.loginExecutor = loginExecutor;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     /**
      * Login for the user. If the user credential fails, it throws a HttpServerErrorException which
      * will be converted into a response message to send back to the client.
+     * The login runs on the login pool and frees the request thread while the password is checked; when the
+     * pool is saturated the login is rejected with 503 (service unavailable) and a Retry-After header.
      *
      * @param userDTO the user credential
-     * @return the JWT token wrapped inside the response entity with http status of 200 (ok)
+     * @return the JWT access token and the refresh token wrapped inside the response entity with http status of 200 (ok)
      */
     @PostMapping("/login")
-    public ResponseEntity<?> login(@Valid @RequestBody UserDTO userDTO) {
+    public CompletableFuture<ResponseEntity<AuthTokens>> login(@Valid @RequestBody UserDTO userDTO) {
 
-        String token = userService.signin(userDTO.getUsername(), userDTO.getPassword()).orElseThrow(() ->
-                    new UsernameNotFoundException("User name (" + userDTO.getUsername() + ") does not exist. Failed sign in."));
+        return loginExecutor.submit(() -> userService.signin(userDTO.getUsername(), userDTO.getPassword()))
+                .thenApply(token -> ResponseEntity.ok(token.orElseThrow(() ->
+                        new UsernameNotFoundException("User name (" + userDTO.getUsername() + ") does not exist. Failed sign in."))));
+    }
 
-        // send 200 with JWT token
-        return ResponseEntity.ok(token);
+    /**
+     * Exchange a refresh token for a new access token and refresh token, without checking the password again.
+     * The refresh token can only be used once; reusing it revokes every token issued from the same login.
+     *
+     * @param refreshTokenDTO the refresh token
+     * @return the new tokens wrapped inside the response entity with http status of 200 (ok)
+     */
+    @PostMapping("/token/refresh")
+    public ResponseEntity<AuthTokens> refreshToken(@Valid @RequestBody RefreshTokenDTO refreshTokenDTO) {
+        return ResponseEntity.ok(refreshTokenService.refresh(refreshTokenDTO.getRefreshToken()));
+    }
+
+    /**
+     * Revoke a refresh token along with every token issued from the same login.
+     *
+     * @param refreshTokenDTO the refresh token
+     * @return empty response entity with http status of 204 (no content)
+     */
+    @PostMapping("/token/revoke")
+    public ResponseEntity<Void> revokeToken(@Valid @RequestBody RefreshTokenDTO refreshTokenDTO) {
+        refreshTokenService.revoke(refreshTokenDTO.getRefreshToken());
+        return ResponseEntity.noContent().build();
     }
 
     /**
-     * Logout for the user. If there is an user authentication, delegates the logout process to the SecurityContextLogoutHandler.
+     * Logout for the user. If there is an user authentication, revokes the JWT access token it was made from and
+     * delegates the logout process to the SecurityContextLogoutHandler.
      *
      * @param httpServletRequest
      * @param httpServletResponse
@@ -64,7 +103,10 @@ public class UserController {
     @GetMapping("/logout")
     public void logout(HttpServletRequest httpServletRequest, HttpServletResponse httpServletResponse) {
 
-        Optional.of(SecurityContextHolder.getContext().getAuthentication()).ifPresent(auth -> {
+        Optional.ofNullable(SecurityContextHolder.getContext().getAuthentication()).ifPresent(auth -> {
+            if(auth.getCredentials() instanceof Claims) {
+                tokenRevocationList.revoke((Claims) auth.getCredentials());
+            }
             new SecurityContextLogoutHandler().logout(httpServletRequest, httpServletResponse, auth);
         });
     }
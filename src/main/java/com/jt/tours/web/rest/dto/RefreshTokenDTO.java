@@ -0,0 +1,21 @@
+package com.jt.tours.web.rest.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Data transfer object that carries a refresh token.
+ *
+ * Created by Jason Tao on 7/5/2020
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefreshTokenDTO {
+
+    @NotNull
+    private String refreshToken;
+}
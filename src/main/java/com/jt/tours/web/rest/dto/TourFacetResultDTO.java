@@ -0,0 +1,27 @@
+package com.jt.tours.web.rest.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.hateoas.PagedModel;
+
+import java.util.Map;
+
+/**
+ * Tour Facet Result Data Transfer Object that is used to send the page of filtered tours and the facet counts
+ * for REST call.
+ *
+ * Created by Jason Tao on 6/28/2020
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TourFacetResultDTO {
+
+    @ApiModelProperty(notes = "The page of matching tours.")
+    private PagedModel<TourSearchResultDTO> tours;
+
+    @ApiModelProperty(notes = "Number of matching tours per facet value, keyed by facet name.")
+    private Map<String, Map<String, Integer>> facets;
+}
@@ -0,0 +1,41 @@
+package com.jt.tours.web.rest.dto;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Builder;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Summary of a bulk tour rating submission.
+ *
+ * Created by Jason Tao on 6/21/2020
+ */
+@Data
+public class TourRatingBatchResult implements Serializable {
+
+    @ApiModelProperty(notes = "The tour id the ratings were submitted for.")
+    private Long tourId;
+
+    @ApiModelProperty(notes = "Number of customer ids in the submission.")
+    private int requested;
+
+    @ApiModelProperty(notes = "Number of tour ratings inserted.")
+    private int inserted;
+
+    @ApiModelProperty(notes = "Number of customer ids that already rated the tour.")
+    private int duplicates;
+
+    @ApiModelProperty(notes = "The customer ids that already rated the tour.")
+    private List<Long> duplicateCustomerIds;
+
+    @Builder
+    public TourRatingBatchResult(Long tourId, int requested, int inserted, List<Long> duplicateCustomerIds) {
+        this.tourId = tourId;
+        this.requested = requested;
+        this.inserted = inserted;
+        this.duplicateCustomerIds = duplicateCustomerIds;
+        this.duplicates = duplicateCustomerIds == null ? 0 : duplicateCustomerIds.size();
+    }
+}
@@ -0,0 +1,44 @@
+package com.jt.tours.web.rest.dto;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import org.springframework.hateoas.RepresentationModel;
+
+/**
+ * Tour Search Result Data Transfer Object that is used to send a ranked tour search hit for REST call.
+ *
+ * Created by Jason Tao on 6/27/2020
+ */
+@Data
+@NoArgsConstructor
+@EqualsAndHashCode(callSuper = true)
+public class TourSearchResultDTO extends RepresentationModel<TourSearchResultDTO> {
+
+    @ApiModelProperty(notes = "The tour id.")
+    private Long tourId;
+
+    @ApiModelProperty(notes = "The tour title.")
+    private String tourTitle;
+
+    @ApiModelProperty(notes = "The code of the tour package.")
+    private String tourPackageCode;
+
+    @ApiModelProperty(notes = "The price of the tour.")
+    private Integer price;
+
+    @ApiModelProperty(notes = "The time duration of the tour.")
+    private String duration;
+
+    @ApiModelProperty(notes = "Difficulty of the tour")
+    private DifficultyEnum difficulty;
+
+    @ApiModelProperty(notes = "Region where the tour destination is located in.")
+    private RegionEnum region;
+
+    @ApiModelProperty(notes = "Relevance of the tour to the query; higher is more relevant. Always 0 when filtering.")
+    private float score;
+}
@@ -5,6 +5,7 @@ import org.springframework.boot.web.error.ErrorAttributeOptions;
 import org.springframework.boot.web.servlet.error.DefaultErrorAttributes;
 import org.springframework.boot.web.servlet.error.ErrorAttributes;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -107,6 +108,19 @@ public class GlobalExceptionHandlerController extends ResponseEntityExceptionHan
         return errorResponse(ex.getHttpStatus(), ex.getMessage());
     }
 
+    /**
+     * Handles any ServiceOverloadedException and return 503 with the Retry-After header and the message from the exception.
+     *
+     * @param ex the exception
+     * @return the response entity
+     */
+    @ExceptionHandler(value = ServiceOverloadedException.class)
+    public ResponseEntity<Object> handleServiceOverloadedException(ServiceOverloadedException ex) {
+        return ResponseEntity.status(ex.getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(ex.getMessage());
+    }
+
     /**
      * Handles any general exception that is not specified.
      *
@@ -0,0 +1,23 @@
+package com.jt.tours.web.rest.exceptions;
+
+import org.springframework.http.HttpStatus;
+
+/**
+ * Thrown when a request is shed because the server is at capacity. Converted to a 503 (service unavailable)
+ * with a Retry-After header telling the client when to try again.
+ *
+ * Created by Jason Tao on 7/3/2020
+ */
+public class ServiceOverloadedException extends CustomException {
+
+    private final long retryAfterSeconds;
+
+    public ServiceOverloadedException(String message, long retryAfterSeconds) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
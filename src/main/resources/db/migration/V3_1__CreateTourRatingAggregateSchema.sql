@@ -0,0 +1,24 @@
+CREATE TABLE tour_rating_aggregate (
+    tour_id BIGINT PRIMARY KEY,
+    rating_count BIGINT NOT NULL DEFAULT 0,
+    rating_sum BIGINT NOT NULL DEFAULT 0,
+    score_one_count BIGINT NOT NULL DEFAULT 0,
+    score_two_count BIGINT NOT NULL DEFAULT 0,
+    score_three_count BIGINT NOT NULL DEFAULT 0,
+    score_four_count BIGINT NOT NULL DEFAULT 0,
+    score_five_count BIGINT NOT NULL DEFAULT 0
+);
+ALTER TABLE tour_rating_aggregate ADD CONSTRAINT FK_AGGREGATE_TOUR_ID FOREIGN KEY (tour_id) REFERENCES tour (id);
+
+insert into tour_rating_aggregate (tour_id, rating_count, rating_sum, score_one_count, score_two_count, score_three_count, score_four_count, score_five_count)
+  select tour_id,
+         count(*),
+         sum(rating_score),
+         sum(case when rating_score = 1 then 1 else 0 end),
+         sum(case when rating_score = 2 then 1 else 0 end),
+         sum(case when rating_score = 3 then 1 else 0 end),
+         sum(case when rating_score = 4 then 1 else 0 end),
+         sum(case when rating_score = 5 then 1 else 0 end)
+  from tour_rating
+  where tour_id is not null
+  group by tour_id;
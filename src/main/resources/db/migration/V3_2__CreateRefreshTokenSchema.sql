@@ -0,0 +1,13 @@
+CREATE TABLE refresh_token (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    token_hash VARCHAR(64) NOT NULL UNIQUE,
+    username VARCHAR(128) NOT NULL,
+    family_id VARCHAR(36) NOT NULL,
+    issued_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    revoked_at TIMESTAMP NULL
+);
+-- The tokens of a user go with the user, so DELETE /users/{id} works for users who logged in.
+ALTER TABLE refresh_token ADD CONSTRAINT FK_REFRESH_TOKEN_USERNAME FOREIGN KEY (username) REFERENCES user (username) ON DELETE CASCADE;
+CREATE INDEX IX_REFRESH_TOKEN_FAMILY ON refresh_token (family_id);
+CREATE INDEX IX_REFRESH_TOKEN_EXPIRES ON refresh_token (expires_at);
@@ -0,0 +1,7 @@
+CREATE TABLE revoked_token (
+    jti VARCHAR(64) PRIMARY KEY,
+    revoked_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
+CREATE INDEX IX_REVOKED_TOKEN_REVOKED ON revoked_token (revoked_at);
+CREATE INDEX IX_REVOKED_TOKEN_EXPIRES ON revoked_token (expires_at);
@@ -0,0 +1,7 @@
+-- Ratings of a tour in id order: findByTourId (paged by id) and the findByTourIdAndIdGreaterThan seeks.
+-- Leading with tour_id and id serves both the filter and the sort, and the remaining columns make it a covering
+-- index: the rating listings are read from the index alone, without a lookup of each row by primary key.
+-- findByTourIdAndCustomerId is already covered by UN_TOUR_CUSTOMER.
+-- findByTourPackageCode is served by the index of FK_TOUR_PACKAGE_CODE; the tours cannot be covered as they carry
+-- the long description, blurb and bullets.
+CREATE INDEX IX_TOUR_RATING_TOUR_ID ON tour_rating (tour_id, id, customer_id, rating_score, comment);
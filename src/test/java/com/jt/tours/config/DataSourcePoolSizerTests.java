@@ -0,0 +1,57 @@
+package com.jt.tours.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies the size of the pools: the smaller of the cores and the database limit, unless overridden.
+ *
+ * Created by Jason Tao on 7/11/2020
+ */
+class DataSourcePoolSizerTests {
+
+    private static final int BY_CORES = Runtime.getRuntime().availableProcessors() * 2 + 1;
+
+    @Test
+    void maximumSizeOverridesBoth() {
+        assertEquals(40, new DataSourcePoolSizer(40, 150, 10, 1).poolSize());
+        assertEquals(1, new DataSourcePoolSizer(1, 150, 10, 100).poolSize());
+    }
+
+    @Test
+    void databaseLimitIsSharedByInstances() {
+        // (150 - 10) / 140 = 1 connection per instance, below the cores of any host.
+        assertEquals(1, new DataSourcePoolSizer(0, 150, 10, 140).poolSize());
+        // (150 - 10) / 70 = 2
+        assertEquals(Math.min(BY_CORES, 2), new DataSourcePoolSizer(0, 150, 10, 70).poolSize());
+    }
+
+    @Test
+    void coresLimitLargeDatabase() {
+        assertEquals(BY_CORES, new DataSourcePoolSizer(0, 100_000, 10, 1).poolSize());
+    }
+
+    @Test
+    void instancesBelowOneCountAsOne() {
+        assertEquals(BY_CORES, new DataSourcePoolSizer(0, 100_000, 10, 0).poolSize());
+        assertEquals(Math.min(BY_CORES, 4), new DataSourcePoolSizer(0, 14, 10, 0).poolSize());
+    }
+
+    @Test
+    void poolKeepsOneConnection() {
+        // More connections reserved than the database allows.
+        assertEquals(1, new DataSourcePoolSizer(0, 10, 20, 1).poolSize());
+        assertEquals(1, new DataSourcePoolSizer(0, 150, 10, 1000).poolSize());
+    }
+
+    @Test
+    void sizeSetsMaximumPoolSize() {
+        try(HikariDataSource dataSource = new HikariDataSource()) {
+            new DataSourcePoolSizer(7, 150, 10, 1).size(dataSource);
+
+            assertEquals(7, dataSource.getMaximumPoolSize());
+        }
+    }
+}
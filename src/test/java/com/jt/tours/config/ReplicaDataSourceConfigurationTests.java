@@ -0,0 +1,80 @@
+package com.jt.tours.config;
+
+import com.jt.tours.domain.TourRating;
+import com.jt.tours.service.impl.TourRatingService;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies the routing end to end: the application runs on a primary and a replica H2 database, and the service
+ * calls go through the JpaTransactionManager and the LazyConnectionDataSourceProxy to the database of their
+ * transaction. The replica gets the same migrations plus a rating of its own, so a read shows where it ran.
+ *
+ * Created by Jason Tao on 7/12/2020
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=" + ReplicaDataSourceConfigurationTests.PRIMARY_URL,
+        "spring.datasource.username=" + ReplicaDataSourceConfigurationTests.USERNAME,
+        "spring.datasource.password=" + ReplicaDataSourceConfigurationTests.PASSWORD,
+        "tour.datasource.replicas[0].url=" + ReplicaDataSourceConfigurationTests.REPLICA_URL,
+        "tour.datasource.replicas[0].username=" + ReplicaDataSourceConfigurationTests.USERNAME,
+        "tour.datasource.replicas[0].password=" + ReplicaDataSourceConfigurationTests.PASSWORD})
+class ReplicaDataSourceConfigurationTests {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:CONFIG_PRIMARY;DB_CLOSE_DELAY=-1";
+    static final String REPLICA_URL = "jdbc:h2:mem:CONFIG_REPLICA;DB_CLOSE_DELAY=-1";
+    static final String USERNAME = "user";
+    static final String PASSWORD = "password";
+
+    // Tour without seed ratings, rated on the replica only.
+    private static final long REPLICA_RATED_TOUR = 3L;
+    private static final String REPLICA_COMMENT = "Replica only";
+    private static final String PRIMARY_COMMENT = "Primary only";
+
+    private static final DataSource REPLICA = new DriverManagerDataSource(REPLICA_URL, USERNAME, PASSWORD);
+    private static final DataSource PRIMARY = new DriverManagerDataSource(PRIMARY_URL, USERNAME, PASSWORD);
+
+    @Autowired
+    private TourRatingService tourRatingService;
+
+    @BeforeAll
+    static void createReplica() {
+        // Flyway of the application only migrates the primary.
+        Flyway.configure().dataSource(REPLICA).load().migrate();
+        new JdbcTemplate(REPLICA).update("INSERT INTO tour_rating (tour_id, customer_id, rating_score, comment) VALUES (?, ?, ?, ?)",
+                REPLICA_RATED_TOUR, 99L, 1, REPLICA_COMMENT);
+    }
+
+    @Test
+    void readOnlyTransactionReadsReplica() {
+        List<String> comments = tourRatingService.getTourRatings(REPLICA_RATED_TOUR, PageRequest.of(0, 10)).getContent()
+                .stream().map(TourRating::getComment).collect(Collectors.toList());
+
+        assertEquals(List.of(REPLICA_COMMENT), comments);
+    }
+
+    @Test
+    void readWriteTransactionWritesPrimary() {
+        tourRatingService.createNewRating(4L, 1L, 5, PRIMARY_COMMENT);
+
+        assertEquals(1, countRatings(PRIMARY, 4L, PRIMARY_COMMENT));
+        assertEquals(0, countRatings(REPLICA, 4L, PRIMARY_COMMENT));
+    }
+
+    private int countRatings(DataSource dataSource, long tourId, String comment) {
+        return new JdbcTemplate(dataSource).queryForObject("SELECT COUNT(*) FROM tour_rating WHERE tour_id = ? AND comment = ?",
+                Integer.class, tourId, comment);
+    }
+}
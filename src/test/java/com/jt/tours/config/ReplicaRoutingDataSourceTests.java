@@ -0,0 +1,96 @@
+package com.jt.tours.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies the routing of the read only transactions, with a second H2 database standing in as the replica.
+ *
+ * Created by Jason Tao on 7/12/2020
+ */
+class ReplicaRoutingDataSourceTests {
+
+    private static final String PRIMARY = "ROUTING_PRIMARY";
+    private static final String REPLICA = "ROUTING_REPLICA";
+
+    private static final String PRIMARY_URL = "jdbc:h2:mem:" + PRIMARY + ";DB_CLOSE_DELAY=-1";
+    private static final String REPLICA_URL = "jdbc:h2:mem:" + REPLICA + ";DB_CLOSE_DELAY=-1";
+    // IFEXISTS refuses to create the database, so the connection fails like an unreachable replica.
+    private static final String MISSING_REPLICA_URL = "jdbc:h2:mem:ROUTING_MISSING;IFEXISTS=TRUE";
+
+    private DataSource primary;
+
+    @BeforeEach
+    void setUp() {
+        primary = new DriverManagerDataSource(PRIMARY_URL, "sa", "");
+    }
+
+    @AfterEach
+    void clearReadOnly() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readWriteGoesToPrimary() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routing(REPLICA_URL);
+
+        assertEquals(PRIMARY, databaseOf(dataSource));
+    }
+
+    @Test
+    void readOnlyGoesToReplica() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routing(REPLICA_URL);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(REPLICA, databaseOf(dataSource));
+    }
+
+    @Test
+    void readOnlyFallsBackToPrimaryWhenReplicaFails() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routing(MISSING_REPLICA_URL);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(PRIMARY, databaseOf(dataSource));
+    }
+
+    @Test
+    void unavailableReplicaIsSkippedUntilItRecovers() throws SQLException {
+        ReplicaRoutingDataSource dataSource = routing(MISSING_REPLICA_URL, REPLICA_URL);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        dataSource.checkReplicas();
+
+        // Only the healthy replica stays in the rotation.
+        assertEquals(REPLICA, databaseOf(dataSource));
+        assertEquals(REPLICA, databaseOf(dataSource));
+    }
+
+    private ReplicaRoutingDataSource routing(String... replicaUrls) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for(int index = 0; index < replicaUrls.length; index++) {
+            replicas.put("replica-" + (index + 1), new DriverManagerDataSource(replicaUrls[index], "sa", ""));
+        }
+        return new ReplicaRoutingDataSource(primary, replicas, Duration.ofSeconds(5));
+    }
+
+    /**
+     * @return the name of the database, which H2 reports in upper case
+     */
+    private String databaseOf(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getCatalog();
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.jt.tours.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Verifies that the tasks submitted while serving a request count their statements with the request.
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+class SqlRequestStatsTaskDecoratorTests {
+
+    private SqlStatementMonitor sqlStatementMonitor;
+
+    private SqlRequestStatsTaskDecorator taskDecorator;
+
+    private ExecutorService executorService;
+
+    @BeforeEach
+    void setUp() {
+        sqlStatementMonitor = new SqlStatementMonitor(new SimpleMeterRegistry(), Duration.ofMillis(200), 0, false, 1000);
+        taskDecorator = new SqlRequestStatsTaskDecorator(sqlStatementMonitor);
+        executorService = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        sqlStatementMonitor.endRequest();
+        executorService.shutdownNow();
+    }
+
+    @Test
+    void taskRunsWithRequestOfSubmitter() throws Exception {
+        SqlStatementMonitor.RequestStats request = sqlStatementMonitor.startRequest();
+        AtomicReference<SqlStatementMonitor.RequestStats> seen = new AtomicReference<>();
+
+        executorService.submit(taskDecorator.decorate(() -> seen.set(sqlStatementMonitor.currentRequest()))).get(5, TimeUnit.SECONDS);
+
+        assertSame(request, seen.get());
+        // The pool thread goes back to serving no request.
+        assertNull(executorService.submit(sqlStatementMonitor::currentRequest).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void taskRunOnSubmitterKeepsItsRequest() {
+        SqlStatementMonitor.RequestStats request = sqlStatementMonitor.startRequest();
+
+        taskDecorator.decorate(() -> { }).run();
+
+        assertSame(request, sqlStatementMonitor.currentRequest());
+    }
+
+    @Test
+    void taskSubmittedOutsideRequestIsNotDecorated() {
+        Runnable task = () -> { };
+
+        assertSame(task, taskDecorator.decorate(task));
+    }
+}
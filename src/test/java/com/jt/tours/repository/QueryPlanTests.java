@@ -0,0 +1,241 @@
+package com.jt.tours.repository;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Runs EXPLAIN on the SQL generated by the repository finders and fails on a full table scan, so a finder
+ * that loses its index is caught before it reaches a large table. The rating listings must also be read from the
+ * covering index IX_TOUR_RATING_TOUR_ID: MySQL reports it with "Using index", H2 only names the index it chose.
+ *
+ * The tests run on the embedded H2 database. To check the MySQL plans, run them against the MySQL profile:
+ *   mvn test -Dtest=QueryPlanTests -Dspring.test.database.replace=none -Dspring.profiles.active=development-mysql
+ *
+ * Created by Jason Tao on 7/10/2020
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector=" +
+        "com.jt.tours.repository.QueryPlanTests$StatementRecorder")
+class QueryPlanTests {
+
+    private static final String RATING_LISTING_INDEX = "IX_TOUR_RATING_TOUR_ID";
+
+    // Reference tables of a handful of rows, which the planner may rightly scan.
+    private static final Set<String> SCANNABLE_TABLES = Set.of("TOUR_PACKAGE", "AUTH_USER_GROUP");
+
+    // H2: "/* PUBLIC.TOUR_RATING.tableScan */"
+    private static final Pattern H2_TABLE_SCAN = Pattern.compile("([\\w\"]+)\\.tableScan");
+
+    // "from tour_rating tourrating0_" or "join tour tour1_", to map the MySQL aliases back to their tables
+    private static final Pattern TABLE_ALIAS = Pattern.compile("(?:from|join)\\s+(\\w+)\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private TourRatingRepository tourRatingRepository;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    void findByTourIdUsesIndex() {
+        assertNoFullScan(() -> tourRatingRepository.findByTourId(1L));
+    }
+
+    @Test
+    void findByTourIdPageUsesIndex() {
+        assertNoFullScan(() -> tourRatingRepository.findByTourId(1L, PageRequest.of(0, 10, Sort.by("id"))).getContent());
+    }
+
+    @Test
+    void findByTourIdAfterIdUsesIndex() {
+        assertNoFullScan(() -> tourRatingRepository.findByTourIdAndIdGreaterThanOrderByIdAsc(1L, 0L, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findByTourIdReadsCoveringIndex() {
+        assertCoveredBy(RATING_LISTING_INDEX, () -> tourRatingRepository.findByTourId(1L));
+    }
+
+    @Test
+    void findByTourIdPageReadsCoveringIndex() {
+        assertCoveredBy(RATING_LISTING_INDEX, () -> tourRatingRepository.findByTourId(1L, PageRequest.of(0, 10, Sort.by("id"))).getContent());
+    }
+
+    @Test
+    void findByTourIdAfterIdReadsCoveringIndex() {
+        assertCoveredBy(RATING_LISTING_INDEX, () -> tourRatingRepository.findByTourIdAndIdGreaterThanOrderByIdAsc(1L, 0L, PageRequest.of(0, 10)));
+    }
+
+    @Test
+    void findByTourIdAndCustomerIdUsesIndex() {
+        assertNoFullScan(() -> tourRatingRepository.findByTourIdAndCustomerId(1L, 1L));
+    }
+
+    @Test
+    void findByTourPackageCodeUsesIndex() {
+        assertNoFullScan(() -> tourRepository.findByTourPackageCode("BC", PageRequest.of(0, 10, Sort.by("id"))).getContent());
+    }
+
+    @Test
+    void findByUsernameUsesIndex() {
+        assertNoFullScan(() -> userRepository.findByUsername("csr_admin").map(user -> user.getAuthUserGroups().size()));
+    }
+
+    /**
+     * Run the finder on an empty persistence context and check the plan of every select it issued.
+     */
+    private void assertNoFullScan(Runnable finder) {
+        for(String sql : selects(finder)) {
+            Set<String> scannedTables = fullScans(sql);
+            scannedTables.removeAll(SCANNABLE_TABLES);
+            assertTrue(scannedTables.isEmpty(), () -> "Full scan of " + scannedTables + " in: " + sql);
+        }
+    }
+
+    /**
+     * Run the finder and check that the plan of every select of rows, the page counts aside, reads the index alone.
+     */
+    private void assertCoveredBy(String index, Runnable finder) {
+        for(String sql : selects(finder)) {
+            if(sql.trim().toLowerCase(Locale.ROOT).startsWith("select count(")) {
+                continue;
+            }
+            assertTrue(readsIndexOnly(sql, index), () -> "Not read from " + index + " alone: " + sql);
+        }
+    }
+
+    private List<String> selects(Runnable finder) {
+        entityManager.clear();
+        StatementRecorder.STATEMENTS.clear();
+
+        finder.run();
+
+        List<String> selects = new ArrayList<>();
+        StatementRecorder.STATEMENTS.stream()
+                .filter(sql -> sql.trim().toLowerCase(Locale.ROOT).startsWith("select"))
+                .forEach(selects::add);
+        assertFalse(selects.isEmpty(), "The finder issued no select");
+        return selects;
+    }
+
+    private boolean readsIndexOnly(String sql, String index) {
+
+        boolean mysql = isMysql();
+        return jdbcTemplate.query("EXPLAIN " + sql, statement -> bindSampleParameters(statement, sql), resultSet -> {
+            boolean covered = false;
+            while(resultSet.next()) {
+                if(mysql) {
+                    String extra = String.valueOf(resultSet.getString("Extra"));
+                    covered |= index.equalsIgnoreCase(resultSet.getString("key")) && extra.contains("Using index");
+                } else {
+                    covered |= resultSet.getString(1).toUpperCase(Locale.ROOT).contains(index);
+                }
+            }
+            return covered;
+        });
+    }
+
+    private boolean isMysql() {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql"));
+    }
+
+    /**
+     * @return the upper cased tables the plan of the statement reads in full
+     */
+    private Set<String> fullScans(String sql) {
+
+        boolean mysql = isMysql();
+        return jdbcTemplate.query("EXPLAIN " + sql, statement -> bindSampleParameters(statement, sql), resultSet -> {
+            Set<String> tables = new HashSet<>();
+            while(resultSet.next()) {
+                tables.addAll(mysql ? mysqlFullScans(resultSet, sql) : h2FullScans(resultSet.getString(1)));
+            }
+            return tables;
+        });
+    }
+
+    private Set<String> h2FullScans(String plan) {
+        Set<String> tables = new HashSet<>();
+        Matcher matcher = H2_TABLE_SCAN.matcher(plan);
+        while(matcher.find()) {
+            String table = matcher.group(1).replace("\"", "");
+            tables.add(table.substring(table.lastIndexOf('.') + 1).toUpperCase(Locale.ROOT));
+        }
+        return tables;
+    }
+
+    private Set<String> mysqlFullScans(ResultSet resultSet, String sql) throws SQLException {
+        if(!"ALL".equalsIgnoreCase(resultSet.getString("type"))) {
+            return Collections.emptySet();
+        }
+        // MySQL reports the alias of the table.
+        String alias = resultSet.getString("table");
+        Matcher matcher = TABLE_ALIAS.matcher(sql);
+        while(matcher.find()) {
+            if(matcher.group(2).equalsIgnoreCase(alias)) {
+                return Set.of(matcher.group(1).toUpperCase(Locale.ROOT));
+            }
+        }
+        return Set.of(String.valueOf(alias).toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * The plans do not depend on the values, but the statements cannot run without them. A numeric string
+     * converts to every id, code and limit parameter of the finders.
+     */
+    private void bindSampleParameters(PreparedStatement statement, String sql) throws SQLException {
+        int parameterCount = (int) sql.chars().filter(c -> c == '?').count();
+        for(int index = 1; index <= parameterCount; index++) {
+            statement.setString(index, "1");
+        }
+    }
+
+    /**
+     * Records the SQL that Hibernate prepares.
+     */
+    public static class StatementRecorder implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
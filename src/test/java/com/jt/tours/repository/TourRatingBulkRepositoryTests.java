@@ -0,0 +1,105 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.domain.TourRatingAggregate;
+import com.jt.tours.service.impl.TourRatingService;
+import com.jt.tours.web.rest.dto.TourRatingBatchResult;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doReturn;
+
+/**
+ * Verifies the split of a bulk rating submission into inserted and duplicate customers, and the aggregate kept in
+ * step with the inserted rows. Batches of 2 rows, so a submission spans several batches.
+ *
+ * Created by Jason Tao on 6/21/2020
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.generate-unique-name=true",
+        "tour.rating.bulk.batch-size=2"})
+class TourRatingBulkRepositoryTests {
+
+    @Autowired
+    private TourRatingService tourRatingService;
+
+    @Autowired
+    private TourRatingAggregateRepository tourRatingAggregateRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Looks up the customers that already rated the tour before the batches are sent.
+    @SpyBean
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Test
+    void skipsCustomersFoundBeforeInsert() {
+        tourRatingService.createNewRating(21L, 1L, 4, null);
+        tourRatingService.createNewRating(21L, 2L, 4, null);
+
+        TourRatingBatchResult result = tourRatingService.createNewRatings(21L, new Long[]{1L, 3L, 3L, 4L, 2L, 5L}, 5);
+
+        assertEquals(6, result.getRequested());
+        assertEquals(3, result.getInserted());
+        assertEquals(List.of(3L, 1L, 2L), result.getDuplicateCustomerIds());
+        assertEquals(3, result.getDuplicates());
+        assertRatings(21L, 5, 23, 2, 3);
+    }
+
+    @Test
+    void fallsBackToSingleInsertsOnDuplicateKey() {
+        tourRatingService.createNewRating(22L, 1L, 4, null);
+        tourRatingService.createNewRating(22L, 2L, 4, null);
+        // As if both ratings were committed by a concurrent submission after the lookup: the batches hit the
+        // unique key of the tour and customer.
+        doReturn(Collections.emptyList()).when(namedParameterJdbcTemplate)
+                .queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class));
+
+        TourRatingBatchResult result = tourRatingService.createNewRatings(22L, new Long[]{1L, 3L, 3L, 4L, 2L, 5L}, 5);
+
+        // Batches [1, 3], [4, 2] and [5]; the repeated 3 never reaches the database.
+        assertEquals(6, result.getRequested());
+        assertEquals(3, result.getInserted());
+        assertEquals(List.of(3L, 1L, 2L), result.getDuplicateCustomerIds());
+        assertRatings(22L, 5, 23, 2, 3);
+    }
+
+    @Test
+    void fallbackInsertsWholeBatchOfDuplicates() {
+        tourRatingService.createNewRating(23L, 1L, 2, null);
+        tourRatingService.createNewRating(23L, 2L, 2, null);
+        doReturn(Collections.emptyList()).when(namedParameterJdbcTemplate)
+                .queryForList(anyString(), any(SqlParameterSource.class), eq(Long.class));
+
+        TourRatingBatchResult result = tourRatingService.createNewRatings(23L, new Long[]{2L, 1L}, 5);
+
+        assertEquals(0, result.getInserted());
+        assertEquals(List.of(2L, 1L), result.getDuplicateCustomerIds());
+        assertRatings(23L, 2, 4, 0, 0);
+    }
+
+    /**
+     * Assert the ratings of the tour and its aggregate, which must agree.
+     */
+    private void assertRatings(Long tourId, long count, long sum, long fours, long fives) {
+        assertEquals(count, jdbcTemplate.queryForObject("select count(*) from tour_rating where tour_id = ?", Long.class, tourId));
+
+        TourRatingAggregate aggregate = tourRatingAggregateRepository.findById(tourId).orElseThrow();
+        assertEquals(count, aggregate.getRatingCount());
+        assertEquals(sum, aggregate.getRatingSum());
+        assertEquals(fours, aggregate.getScoreFourCount());
+        assertEquals(fives, aggregate.getScoreFiveCount());
+    }
+}
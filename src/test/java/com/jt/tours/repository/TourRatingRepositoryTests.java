@@ -0,0 +1,93 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.domain.Tour;
+import com.jt.tours.domain.TourRating;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Verifies that listing tour ratings does not load the tour of each rating.
+ *
+ * Created by Jason Tao on 6/26/2020
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class TourRatingRepositoryTests {
+
+    private static final int RATED_TOURS = 20;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TourRatingRepository tourRatingRepository;
+
+    @BeforeEach
+    void rateManyTours() {
+        // One rating on each of many tours, so an eager tour fetch would cost one select per rating.
+        for(long tourId = 1; tourId <= RATED_TOURS; tourId++) {
+            Tour tour = entityManager.find(Tour.class, tourId);
+            entityManager.persist(TourRating.builder().tour(tour).customerId(1000 + tourId).ratingScore(4).build());
+        }
+        entityManager.flush();
+    }
+
+    @Test
+    void findAllPageIssuesSameStatementsForAnyPageSize() {
+        long smallPage = countStatements(() -> tourRatingRepository.findAll(PageRequest.of(0, 2, Sort.by("id"))).getContent());
+        long largePage = countStatements(() -> tourRatingRepository.findAll(PageRequest.of(0, 20, Sort.by("id"))).getContent());
+
+        assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    void findByTourIdPageIssuesSameStatementsForAnyPageSize() {
+        // More ratings than the large page, so both pages also run the count query.
+        Tour tour = entityManager.find(Tour.class, 1L);
+        for(long customerId = 2000; customerId < 2030; customerId++) {
+            entityManager.persist(TourRating.builder().tour(tour).customerId(customerId).ratingScore(3).build());
+        }
+        entityManager.flush();
+
+        long smallPage = countStatements(() -> tourRatingRepository.findByTourId(1L, PageRequest.of(0, 2, Sort.by("id"))).getContent());
+        long largePage = countStatements(() -> tourRatingRepository.findByTourId(1L, PageRequest.of(0, 20, Sort.by("id"))).getContent());
+
+        assertEquals(smallPage, largePage);
+    }
+
+    @Test
+    void findAllIssuesSingleStatement() {
+        assertEquals(1, countStatements(() -> tourRatingRepository.findAll()));
+    }
+
+    @Test
+    void seekPageIssuesSingleStatement() {
+        assertEquals(1, countStatements(() -> tourRatingRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, 20))));
+    }
+
+    /**
+     * Run the query on an empty persistence context, touch the tour id of every rating like the
+     * rating assembler does, and return the number of prepared statements.
+     */
+    private long countStatements(Supplier<List<TourRating>> query) {
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        query.get().forEach(rating -> rating.getTour().getId());
+
+        return statistics.getPrepareStatementCount();
+    }
+}
@@ -0,0 +1,69 @@
+package com.jt.tours.repository;
+
+import com.jt.tours.security.jwt.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies that a rejected write through Spring Data REST leaves the tours served to the readers unchanged: the
+ * tour the PATCH request is merged into is never one shared with the catalog caches.
+ *
+ * Created by Jason Tao on 6/23/2020
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.generate-unique-name=true",
+        "spring.data.rest.base-path=/api/v1"})
+@AutoConfigureMockMvc
+class TourRepositoryRestTests {
+
+    private static final String TOUR_URL = "/api/v1/tours/1";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void failedPatchLeavesTourUnchanged() throws Exception {
+        String token = bearer("csr_tom");
+        String before = getTour(token);
+
+        // save is not exported, so the request is rejected once its body was merged into the loaded tour.
+        MvcResult result = mockMvc.perform(patch(TOUR_URL)
+                .header(HttpHeaders.AUTHORIZATION, token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"tourTitle\": \"Unsaved title\"}"))
+                .andReturn();
+        assertTrue(result.getResponse().getStatus() >= 400, "The PATCH was accepted");
+
+        assertEquals(before, getTour(token));
+        assertEquals(before, getTour(bearer("csr_admin")));
+    }
+
+    private String getTour(String token) throws Exception {
+        return mockMvc.perform(get(TOUR_URL).header(HttpHeaders.AUTHORIZATION, token))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private String bearer(String username) {
+        return "Bearer " + jwtTokenProvider.createToken(username,
+                userRepository.findByUsername(username).orElseThrow().getAuthUserGroups());
+    }
+}
@@ -0,0 +1,178 @@
+package com.jt.tours.search;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import com.jt.tours.domain.Tour;
+import com.jt.tours.domain.TourPackage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static com.jt.tours.search.TourFacetIndex.DIFFICULTY_FACET;
+import static com.jt.tours.search.TourFacetIndex.PACKAGE_FACET;
+import static com.jt.tours.search.TourFacetIndex.PRICE_FACET;
+import static com.jt.tours.search.TourFacetIndex.REGION_FACET;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the filters and the facet counts of the bitmap indexes, and their updates.
+ *
+ * Created by Jason Tao on 6/28/2020
+ */
+class TourFacetIndexTests {
+
+    private static final TourPackage BACKPACK_CAL = TourPackage.builder().code("BC").name("Backpack Cal").build();
+    private static final TourPackage CALIFORNIA_CALM = TourPackage.builder().code("CC").name("California Calm").build();
+
+    private TourFacetIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Price buckets of 250: 0-249, 250-499, 500-749, 750-999
+        index = new TourFacetIndex(250);
+        index.rebuild(List.of(
+                tour(1L, DifficultyEnum.Easy, RegionEnum.Central_Coast, BACKPACK_CAL, 100),
+                tour(2L, DifficultyEnum.Medium, RegionEnum.Central_Coast, BACKPACK_CAL, 300),
+                tour(3L, DifficultyEnum.Hard, RegionEnum.East_Coast, CALIFORNIA_CALM, 500),
+                tour(4L, DifficultyEnum.Easy, RegionEnum.West_Coast, CALIFORNIA_CALM, 260),
+                tour(5L, DifficultyEnum.Medium, RegionEnum.East_Coast, BACKPACK_CAL, 750)));
+    }
+
+    @Test
+    void emptyQueryMatchesEveryTour() {
+        TourFacetResult result = filter(TourFacetQuery.builder().build());
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(result));
+        assertEquals(Map.of("Easy", 2, "Medium", 2, "Hard", 1), result.getFacetCounts().get(DIFFICULTY_FACET));
+        assertEquals(Map.of("0-249", 1, "250-499", 2, "500-749", 1, "750-999", 1), result.getFacetCounts().get(PRICE_FACET));
+    }
+
+    @Test
+    void valuesOfFacetAreOred() {
+        TourFacetResult result = filter(TourFacetQuery.builder()
+                .difficulties(Set.of(DifficultyEnum.Easy, DifficultyEnum.Hard))
+                .build());
+
+        assertEquals(List.of(1L, 3L, 4L), ids(result));
+    }
+
+    @Test
+    void facetsAreAnded() {
+        TourFacetResult result = filter(TourFacetQuery.builder()
+                .difficulties(Set.of(DifficultyEnum.Easy, DifficultyEnum.Medium))
+                .regions(Set.of(RegionEnum.Central_Coast, RegionEnum.East_Coast))
+                .packageCodes(Set.of("BC"))
+                .build());
+
+        assertEquals(List.of(1L, 2L, 5L), ids(result));
+        assertEquals(3, result.getTotal());
+    }
+
+    @Test
+    void facetIsCountedAgainstOtherFilters() {
+        TourFacetResult result = filter(TourFacetQuery.builder()
+                .difficulties(Set.of(DifficultyEnum.Easy))
+                .regions(Set.of(RegionEnum.East_Coast, RegionEnum.West_Coast))
+                .build());
+
+        assertEquals(List.of(4L), ids(result));
+        // Against the regions only: the other difficulties stay visible.
+        assertEquals(Map.of("Easy", 1, "Medium", 1, "Hard", 1), result.getFacetCounts().get(DIFFICULTY_FACET));
+        // Against the difficulty only.
+        assertEquals(Map.of("Central Coast", 1, "East Coast", 0, "West Coast", 1), result.getFacetCounts().get(REGION_FACET));
+        // Against both.
+        assertEquals(Map.of("BC", 0, "CC", 1), result.getFacetCounts().get(PACKAGE_FACET));
+        assertEquals(Map.of("0-249", 0, "250-499", 1, "500-749", 0, "750-999", 0), result.getFacetCounts().get(PRICE_FACET));
+    }
+
+    @Test
+    void priceBoundsAreInclusive() {
+        assertEquals(List.of(2L, 3L, 4L), ids(filter(TourFacetQuery.builder().minPrice(260).maxPrice(500).build())));
+        // Bounds within a bucket check each price.
+        assertEquals(List.of(2L), ids(filter(TourFacetQuery.builder().minPrice(261).maxPrice(499).build())));
+        assertEquals(List.of(3L, 5L), ids(filter(TourFacetQuery.builder().minPrice(500).build())));
+        assertEquals(List.of(1L, 4L), ids(filter(TourFacetQuery.builder().maxPrice(299).build())));
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), ids(filter(TourFacetQuery.builder().minPrice(Integer.MIN_VALUE).build())));
+    }
+
+    @Test
+    void reversedPriceBoundsMatchNothing() {
+        TourFacetResult result = filter(TourFacetQuery.builder().minPrice(500).maxPrice(100).build());
+
+        assertTrue(result.getTours().isEmpty());
+        assertEquals(0, result.getTotal());
+    }
+
+    @Test
+    void priceIsCountedAgainstOtherFilters() {
+        TourFacetResult result = filter(TourFacetQuery.builder()
+                .packageCodes(Set.of("BC"))
+                .minPrice(250)
+                .maxPrice(499)
+                .build());
+
+        assertEquals(List.of(2L), ids(result));
+        assertEquals(Map.of("0-249", 1, "250-499", 1, "500-749", 0, "750-999", 1), result.getFacetCounts().get(PRICE_FACET));
+        assertEquals(Map.of("BC", 1, "CC", 1), result.getFacetCounts().get(PACKAGE_FACET));
+    }
+
+    @Test
+    void unknownValueMatchesNothing() {
+        assertTrue(filter(TourFacetQuery.builder().packageCodes(Set.of("XX")).build()).getTours().isEmpty());
+    }
+
+    @Test
+    void pageIsTakenFromMatches() {
+        TourFacetResult result = index.filter(TourFacetQuery.builder().build(), 1, 2);
+
+        assertEquals(List.of(2L, 3L), ids(result));
+        assertEquals(5, result.getTotal());
+    }
+
+    @Test
+    void writesRebuildTheBitmaps() {
+        TourFacetQuery hard = TourFacetQuery.builder().difficulties(Set.of(DifficultyEnum.Hard)).build();
+
+        index.index(tour(6L, DifficultyEnum.Hard, RegionEnum.West_Coast, CALIFORNIA_CALM, 900));
+        assertEquals(List.of(3L, 6L), ids(filter(hard)));
+
+        // Reindexing a tour moves it to its new values.
+        index.index(tour(1L, DifficultyEnum.Hard, RegionEnum.Central_Coast, BACKPACK_CAL, 100));
+        TourFacetResult result = filter(hard);
+        assertEquals(List.of(1L, 3L, 6L), ids(result));
+        assertEquals(1, result.getFacetCounts().get(DIFFICULTY_FACET).get("Easy"));
+
+        index.remove(3L);
+        assertEquals(List.of(1L, 6L), ids(filter(hard)));
+        assertEquals(5, filter(TourFacetQuery.builder().build()).getTotal());
+
+        index.rebuild(List.of(tour(7L, DifficultyEnum.Easy, RegionEnum.East_Coast, BACKPACK_CAL, 50)));
+        assertTrue(filter(hard).getTours().isEmpty());
+        assertEquals(List.of(7L), ids(filter(TourFacetQuery.builder().build())));
+    }
+
+    private TourFacetResult filter(TourFacetQuery query) {
+        return index.filter(query, 0, 100);
+    }
+
+    private List<Long> ids(TourFacetResult result) {
+        return result.getTours().stream().map(Tour::getId).collect(Collectors.toList());
+    }
+
+    private Tour tour(Long id, DifficultyEnum difficulty, RegionEnum region, TourPackage tourPackage, int price) {
+        Tour tour = Tour.builder()
+                .tourTitle("Tour " + id)
+                .difficulty(difficulty)
+                .region(region)
+                .tourPackage(tourPackage)
+                .price(price)
+                .build();
+        tour.setId(id);
+        return tour;
+    }
+}
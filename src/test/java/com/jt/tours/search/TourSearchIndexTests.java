@@ -0,0 +1,85 @@
+package com.jt.tours.search;
+
+import com.jt.tours.domain.Tour;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the ranking of the in-memory tour search index and its updates.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+class TourSearchIndexTests {
+
+    private TourSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new TourSearchIndex();
+        index.rebuild(List.of(
+                tour(1L, "Coastal Wine Tasting", "A day among the vineyards", "wine"),
+                tour(2L, "Desert Hike", "Hike the dunes, wine at sunset", "hiking"),
+                tour(3L, "Mountain Hike", "Hike to the summit", "hiking mountain")));
+    }
+
+    @Test
+    void ranksKeywordAndTitleMatchesAboveDescriptionMatches() {
+        // Tour 1 has wine in its keywords and title, tour 2 only in its description.
+        assertEquals(List.of(1L, 2L), ids(index.search("wine")));
+    }
+
+    @Test
+    void ranksRareTermsAboveCommonTerms() {
+        // "mountain" only matches tour 3, so it outweighs "hike" shared by tours 2 and 3.
+        assertEquals(List.of(3L, 2L), ids(index.search("hike mountain")));
+    }
+
+    @Test
+    void tiesAreOrderedByTourId() {
+        index.index(tour(4L, "Desert Hike", "Hike the dunes, wine at sunset", "hiking"));
+
+        List<TourSearchHit> hits = index.search("dunes");
+        assertEquals(List.of(2L, 4L), ids(hits));
+        assertEquals(hits.get(0).getScore(), hits.get(1).getScore());
+    }
+
+    @Test
+    void unknownTermsMatchNothing() {
+        assertTrue(index.search("kayak").isEmpty());
+        assertTrue(index.search("the and").isEmpty());
+    }
+
+    @Test
+    void reindexingReplacesTheTermsOfATour() {
+        index.index(tour(1L, "Coastal Kayaking", "Paddle along the cliffs", "kayak"));
+
+        assertEquals(List.of(1L), ids(index.search("kayak")));
+        assertEquals(List.of(2L), ids(index.search("wine")));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void removedToursAreNotFound() {
+        index.remove(3L);
+
+        assertTrue(index.search("mountain").isEmpty());
+        assertEquals(List.of(2L), ids(index.search("hike")));
+        assertEquals(2, index.size());
+    }
+
+    private List<Long> ids(List<TourSearchHit> hits) {
+        return hits.stream().map(hit -> hit.getTour().getId()).collect(Collectors.toList());
+    }
+
+    private Tour tour(Long id, String title, String description, String keywords) {
+        Tour tour = Tour.builder().tourTitle(title).description(description).keywords(keywords).build();
+        tour.setId(id);
+        return tour;
+    }
+}
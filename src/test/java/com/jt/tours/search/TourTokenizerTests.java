@@ -0,0 +1,37 @@
+package com.jt.tours.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies how tour text is split into search terms.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+class TourTokenizerTests {
+
+    @Test
+    void splitsOnNonAlphanumericsAndLowerCases() {
+        assertEquals(List.of("big", "sur", "retreat", "2020"), TourTokenizer.tokenize("Big-Sur RETREAT, 2020!"));
+    }
+
+    @Test
+    void dropsStopWordsAndSingleCharacters() {
+        assertEquals(List.of("hike", "coast"), TourTokenizer.tokenize("A hike to the coast & b"));
+    }
+
+    @Test
+    void keepsDuplicates() {
+        assertEquals(List.of("wine", "tasting", "wine"), TourTokenizer.tokenize("wine tasting, wine"));
+    }
+
+    @Test
+    void nullAndBlankTextHaveNoTerms() {
+        assertTrue(TourTokenizer.tokenize(null).isEmpty());
+        assertTrue(TourTokenizer.tokenize("  ,; ").isEmpty());
+    }
+}
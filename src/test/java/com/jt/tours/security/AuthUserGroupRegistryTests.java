@@ -0,0 +1,105 @@
+package com.jt.tours.security;
+
+import com.jt.tours.repository.AuthUserGroupRepository;
+import com.jt.tours.security.domain.AuthUserGroup;
+import com.jt.tours.security.domain.AuthUserGroupEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies the lookups of the authority group registry against a mocked table, and its refresh.
+ *
+ * Created by Jason Tao on 7/9/2020
+ */
+class AuthUserGroupRegistryTests {
+
+    private AuthUserGroupRepository authUserGroupRepository;
+
+    private AuthUserGroupRegistry authUserGroupRegistry;
+
+    @BeforeEach
+    void setUp() {
+        authUserGroupRepository = mock(AuthUserGroupRepository.class);
+        when(authUserGroupRepository.findAll()).thenReturn(List.of(
+                group(AuthUserGroupEnum.CSR_ADMIN, "CSR Administrator group access"),
+                group(AuthUserGroupEnum.CSR_USER, "CSR User group access")));
+        authUserGroupRegistry = new AuthUserGroupRegistry(authUserGroupRepository);
+        authUserGroupRegistry.load();
+    }
+
+    @Test
+    void findsLoadedGroups() {
+        assertEquals("CSR User group access",
+                authUserGroupRegistry.findAuthUserGroup(AuthUserGroupEnum.CSR_USER).orElseThrow().getDescription());
+        assertEquals(2, authUserGroupRegistry.getAuthUserGroups().size());
+    }
+
+    @Test
+    void groupMissingFromTableIsEmpty() {
+        assertTrue(authUserGroupRegistry.findAuthUserGroup(AuthUserGroupEnum.VIEWER).isEmpty());
+    }
+
+    @Test
+    void refreshReplacesGroups() {
+        Collection<AuthUserGroup> before = authUserGroupRegistry.getAuthUserGroups();
+        when(authUserGroupRepository.findAll()).thenReturn(List.of(
+                group(AuthUserGroupEnum.CSR_USER, "Renamed"),
+                group(AuthUserGroupEnum.VIEWER, "Viewer has only viewing access")));
+
+        Collection<AuthUserGroup> refreshed = authUserGroupRegistry.refresh();
+
+        assertEquals(2, refreshed.size());
+        assertEquals("Renamed", authUserGroupRegistry.findAuthUserGroup(AuthUserGroupEnum.CSR_USER).orElseThrow().getDescription());
+        assertTrue(authUserGroupRegistry.findAuthUserGroup(AuthUserGroupEnum.VIEWER).isPresent());
+        assertTrue(authUserGroupRegistry.findAuthUserGroup(AuthUserGroupEnum.CSR_ADMIN).isEmpty());
+        // The groups handed out before the refresh are left as they were.
+        assertEquals(2, before.size());
+        assertTrue(before.stream().anyMatch(authUserGroup -> authUserGroup.getAuthGroup() == AuthUserGroupEnum.CSR_ADMIN));
+    }
+
+    @Test
+    void authoritiesAreShared() {
+        for(AuthUserGroupEnum authGroup : AuthUserGroupEnum.values()) {
+            GrantedAuthority authority = authUserGroupRegistry.getAuthority(authGroup);
+            GrantedAuthority roleAuthority = authUserGroupRegistry.getRoleAuthority(authGroup);
+
+            assertEquals(authGroup.getLabel(), authority.getAuthority());
+            assertEquals("ROLE_" + authGroup.getLabel(), roleAuthority.getAuthority());
+            assertSame(authority, authUserGroupRegistry.getAuthority(authGroup));
+            assertSame(roleAuthority, authUserGroupRegistry.getRoleAuthority(roleAuthority.getAuthority()));
+        }
+    }
+
+    @Test
+    void unknownRoleNameGetsNewAuthority() {
+        GrantedAuthority authority = authUserGroupRegistry.getRoleAuthority("ROLE_AUDITOR");
+
+        assertEquals("ROLE_AUDITOR", authority.getAuthority());
+        assertNotSame(authority, authUserGroupRegistry.getRoleAuthority("ROLE_AUDITOR"));
+    }
+
+    @Test
+    void nameWithoutPrefixIsNotRole() {
+        // Role names are matched exactly: CSR_USER and role_csr_user are not ROLE_CSR_USER.
+        GrantedAuthority roleAuthority = authUserGroupRegistry.getRoleAuthority(AuthUserGroupEnum.CSR_USER);
+
+        assertEquals("CSR_USER", authUserGroupRegistry.getRoleAuthority("CSR_USER").getAuthority());
+        assertNotSame(roleAuthority, authUserGroupRegistry.getRoleAuthority("role_csr_user"));
+        assertEquals("role_csr_user", authUserGroupRegistry.getRoleAuthority("role_csr_user").getAuthority());
+    }
+
+    private AuthUserGroup group(AuthUserGroupEnum authGroup, String description) {
+        return AuthUserGroup.builder().authGroup(authGroup).description(description).build();
+    }
+}
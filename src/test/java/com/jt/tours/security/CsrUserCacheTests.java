@@ -0,0 +1,134 @@
+package com.jt.tours.security;
+
+import com.jt.tours.repository.UserRepository;
+import com.jt.tours.security.domain.User;
+import com.jt.tours.security.jwt.JwtTokenProvider;
+import com.jt.tours.service.impl.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies that the cached users are dropped by every change of a user or of the authority groups, so no user
+ * keeps authenticating with its old password or roles. A user is cached once loaded by CsrUserDetailsService; a
+ * lookup that reaches the loader again shows it was dropped.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+@SpringBootTest(properties = "spring.datasource.generate-unique-name=true")
+@AutoConfigureMockMvc
+class CsrUserCacheTests {
+
+    private static final String USERNAME = "csr_tom";
+
+    // Returned by the loader of the lookups, when the user is no longer cached.
+    private static final UserDetails RELOADED = org.springframework.security.core.userdetails.User
+            .withUsername(USERNAME).password("reloaded").authorities("CSR_USER").build();
+
+    @Autowired
+    private CsrUserCache csrUserCache;
+
+    @Autowired
+    private CsrUserDetailsService csrUserDetailsService;
+
+    @Autowired
+    private CsrUserCacheEventHandler csrUserCacheEventHandler;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.findByUsername(USERNAME).orElseThrow();
+        csrUserCache.invalidateAll();
+        csrUserDetailsService.loadUserByUsername(USERNAME);
+    }
+
+    @Test
+    void userIsCached() {
+        assertNotSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+    }
+
+    @Test
+    void linkSaveEvictsUser() {
+        csrUserCacheEventHandler.onLinkSave(user, user.getAuthUserGroups());
+
+        assertSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+    }
+
+    @Test
+    void linkDeleteEvictsUser() {
+        csrUserCacheEventHandler.onLinkDelete(user, user.getAuthUserGroups());
+
+        assertSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+    }
+
+    @Test
+    void deleteEvictsUser() {
+        csrUserCacheEventHandler.onDelete(user);
+
+        assertSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+    }
+
+    @Test
+    void saveEvictsEveryUser() {
+        csrUserDetailsService.loadUserByUsername("jacky");
+
+        csrUserCacheEventHandler.onSave(user);
+
+        assertSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+        assertSame(RELOADED, csrUserCache.getUser("jacky", username -> RELOADED));
+    }
+
+    @Test
+    void registerEvictsUserCachedBeforeIt() {
+        String username = "cache_newbie";
+        UserDetails stale = org.springframework.security.core.userdetails.User
+                .withUsername(username).password("stale").authorities("VIEWER").build();
+        csrUserCache.getUser(username, name -> stale);
+
+        userService.register(username, "password", "Cache", "Newbie", "cache.newbie@example.com");
+
+        UserDetails registered = csrUserDetailsService.loadUserByUsername(username);
+        assertNotSame(stale, registered);
+        assertEquals(userRepository.findByUsername(username).orElseThrow().getPassword(), registered.getPassword());
+    }
+
+    @Test
+    void authGroupRefreshEvictsEveryUser() throws Exception {
+        csrUserDetailsService.loadUserByUsername("jacky");
+
+        mockMvc.perform(post("/api/v1/auth-groups/refresh").header(HttpHeaders.AUTHORIZATION, bearer("csr_admin")))
+                .andExpect(status().isOk());
+
+        assertSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+        assertSame(RELOADED, csrUserCache.getUser("jacky", username -> RELOADED));
+    }
+
+    private String bearer(String username) {
+        return "Bearer " + jwtTokenProvider.createToken(username,
+                userRepository.findByUsername(username).orElseThrow().getAuthUserGroups());
+    }
+}
@@ -0,0 +1,94 @@
+package com.jt.tours.security;
+
+import com.jt.tours.repository.UserRepository;
+import com.jt.tours.security.domain.User;
+import com.jt.tours.service.impl.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder.BCryptVersion;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that a login re-encodes the stored hash made with another BCrypt cost or without the {bcrypt} prefix,
+ * through CsrUserDetailsService.updatePassword, and leaves a hash at the configured strength alone. The strength
+ * is lowered to 4 for the tests, so the 12 of the seed users is a downgrade.
+ *
+ * Created by Jason Tao on 7/4/2020
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.generate-unique-name=true",
+        "security.password.bcrypt-strength=4"})
+class CsrUserDetailsServiceTests {
+
+    private static final String USERNAME = "rehash_user";
+    private static final String PASSWORD = "password";
+
+    // The hash the encoder stores at the configured strength
+    private static final String CONFIGURED_PREFIX = "{bcrypt}$2a$04$";
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CsrUserCache csrUserCache;
+
+    @BeforeEach
+    void register() {
+        if(userRepository.findByUsername(USERNAME).isEmpty()) {
+            userService.register(USERNAME, PASSWORD, "Rehash", "User", "rehash.user@example.com");
+        }
+    }
+
+    @Test
+    void seedHashIsReEncodedAfterSignin() {
+        // Stored as the seed users, without the prefix.
+        storeHash(new BCryptPasswordEncoder(BCryptVersion.$2Y, 12).encode(PASSWORD));
+
+        assertTrue(userService.signin(USERNAME, PASSWORD).isPresent());
+
+        assertTrue(storedHash().startsWith(CONFIGURED_PREFIX), storedHash());
+        // The new hash works for the next login.
+        assertTrue(userService.signin(USERNAME, PASSWORD).isPresent());
+    }
+
+    @Test
+    void hashAtStrengthIsLeftAlone() {
+        userService.signin(USERNAME, PASSWORD);
+        String hash = storedHash();
+        assertTrue(hash.startsWith(CONFIGURED_PREFIX), hash);
+
+        userService.signin(USERNAME, PASSWORD);
+
+        assertEquals(hash, storedHash());
+    }
+
+    @Test
+    void loweredStrengthDowngradesHash() {
+        // Hashed before the strength was lowered from 6 to 4.
+        storeHash("{bcrypt}" + new BCryptPasswordEncoder(6).encode(PASSWORD));
+
+        userService.signin(USERNAME, PASSWORD);
+
+        assertTrue(storedHash().startsWith(CONFIGURED_PREFIX), storedHash());
+    }
+
+    private void storeHash(String hash) {
+        User user = userRepository.findByUsername(USERNAME).orElseThrow();
+        user.setPassword(hash);
+        userRepository.save(user);
+        // As updatePassword does: the cached user holds the old hash.
+        csrUserCache.invalidate(USERNAME);
+    }
+
+    private String storedHash() {
+        return userRepository.findByUsername(USERNAME).orElseThrow().getPassword();
+    }
+}
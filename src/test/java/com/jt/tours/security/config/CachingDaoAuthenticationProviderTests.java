@@ -0,0 +1,106 @@
+package com.jt.tours.security.config;
+
+import com.jt.tours.security.CsrUserCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that the credential cache only skips BCrypt for the very password and stored hash that matched.
+ *
+ * Created by Jason Tao on 7/8/2020
+ */
+class CachingDaoAuthenticationProviderTests {
+
+    private static final String USERNAME = "csr_tom";
+    private static final String PASSWORD = "secret";
+
+    // Lowest cost BCrypt accepts, the tests only count the checks.
+    private static final int STRENGTH = 4;
+
+    private final AtomicInteger bcryptChecks = new AtomicInteger();
+
+    private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder(STRENGTH) {
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            bcryptChecks.incrementAndGet();
+            return super.matches(rawPassword, encodedPassword);
+        }
+    };
+
+    // username -> user with its stored hash, as in the user table
+    private final Map<String, UserDetails> users = new HashMap<>();
+
+    private CachingDaoAuthenticationProvider provider;
+
+    @BeforeEach
+    void setUp() {
+        CsrUserCache csrUserCache = new CsrUserCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5), Duration.ofMinutes(5));
+        provider = new CachingDaoAuthenticationProvider(csrUserCache);
+        provider.setPasswordEncoder(passwordEncoder);
+        provider.setUserDetailsService(users::get);
+        storeHash(passwordEncoder.encode(PASSWORD));
+    }
+
+    @Test
+    void cachedSuccessSkipsBcrypt() {
+        assertNotNull(authenticate(PASSWORD));
+        assertNotNull(authenticate(PASSWORD));
+
+        assertEquals(1, bcryptChecks.get());
+    }
+
+    @Test
+    void wrongPasswordAfterCachedSuccessFails() {
+        authenticate(PASSWORD);
+
+        assertThrows(BadCredentialsException.class, () -> authenticate("wrong"));
+        assertThrows(BadCredentialsException.class, () -> authenticate(PASSWORD + " "));
+        // Failures are never cached: every attempt is checked.
+        assertThrows(BadCredentialsException.class, () -> authenticate("wrong"));
+        assertEquals(4, bcryptChecks.get());
+    }
+
+    @Test
+    void reEncodedHashMissesCache() {
+        authenticate(PASSWORD);
+
+        // Same password, new salt or cost, e.g. after the upgrade of the hash.
+        storeHash(passwordEncoder.encode(PASSWORD));
+        authenticate(PASSWORD);
+
+        assertEquals(2, bcryptChecks.get());
+    }
+
+    @Test
+    void changedPasswordMissesCache() {
+        authenticate(PASSWORD);
+
+        storeHash(passwordEncoder.encode("changed"));
+
+        assertThrows(BadCredentialsException.class, () -> authenticate(PASSWORD));
+        assertNotNull(authenticate("changed"));
+    }
+
+    private Object authenticate(String password) {
+        return provider.authenticate(new UsernamePasswordAuthenticationToken(USERNAME, password));
+    }
+
+    private void storeHash(String hash) {
+        users.put(USERNAME, User.withUsername(USERNAME).password(hash).authorities("CSR_USER").build());
+    }
+}
@@ -0,0 +1,59 @@
+package com.jt.tours.security.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder.BCryptVersion;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that a hash is re-encoded whenever its cost differs from the configured strength, and that the $2y$
+ * hashes of the seed users still match.
+ *
+ * Created by Jason Tao on 7/4/2020
+ */
+class CostAwareBCryptPasswordEncoderTests {
+
+    private static final String PASSWORD = "password";
+
+    private static final int STRENGTH = 5;
+
+    private final CostAwareBCryptPasswordEncoder passwordEncoder = new CostAwareBCryptPasswordEncoder(STRENGTH);
+
+    @Test
+    void hashAtStrengthIsKept() {
+        String hash = passwordEncoder.encode(PASSWORD);
+
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertFalse(passwordEncoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void weakerHashIsUpgraded() {
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD)));
+    }
+
+    @Test
+    void strongerHashIsDowngraded() {
+        assertTrue(passwordEncoder.upgradeEncoding(new BCryptPasswordEncoder(6).encode(PASSWORD)));
+    }
+
+    @Test
+    void seedHashMatchesAndIsReEncoded() {
+        // The seed users are $2y$12$ hashes, as generated by PHP or htpasswd.
+        String hash = new BCryptPasswordEncoder(BCryptVersion.$2Y, 12).encode(PASSWORD);
+
+        assertTrue(hash.startsWith("$2y$12$"));
+        assertTrue(passwordEncoder.matches(PASSWORD, hash));
+        assertFalse(passwordEncoder.matches("wrong", hash));
+        assertTrue(passwordEncoder.upgradeEncoding(hash));
+    }
+
+    @Test
+    void otherHashesAreLeftAlone() {
+        assertFalse(passwordEncoder.upgradeEncoding(null));
+        assertFalse(passwordEncoder.upgradeEncoding(""));
+        assertFalse(passwordEncoder.upgradeEncoding("plain text"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.jt.tours.security.config;
+
+import com.jt.tours.security.jwt.JwtKey;
+import com.jt.tours.security.jwt.JwtKeyProperties;
+import com.jt.tours.security.jwt.JwtKeyRing;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that the key ring loads the PEM keys from their files or from their text, and falls back to the HS512
+ * secret only when it is configured.
+ *
+ * Created by Jason Tao on 7/7/2020
+ */
+class JwtKeyConfigurationTests {
+
+    private static final String KID = "es256-1";
+
+    private static KeyPair keyPair;
+
+    @TempDir
+    Path keyDirectory;
+
+    private final JwtKeyConfiguration jwtKeyConfiguration = new JwtKeyConfiguration();
+
+    @BeforeAll
+    static void generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        keyPair = generator.generateKeyPair();
+    }
+
+    @Test
+    void loadsPemFiles() throws IOException {
+        Path privateKey = Files.writeString(keyDirectory.resolve("jwt.key"), pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+        Path publicKey = Files.writeString(keyDirectory.resolve("jwt.pub"), pem("PUBLIC KEY", keyPair.getPublic().getEncoded()));
+
+        JwtKeyRing keyRing = keyRing(entry(KID, privateKey.toUri().toString(), publicKey.toUri().toString()), "");
+
+        assertKeyPair(keyRing.getActiveKey());
+        // No secret, no HS512 key.
+        assertEquals(1, keyRing.getKeys().size());
+    }
+
+    @Test
+    void loadsPemText() {
+        // As given by an environment variable, possibly with a trailing newline.
+        JwtKeyRing keyRing = keyRing(entry(KID,
+                pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()),
+                pem("PUBLIC KEY", keyPair.getPublic().getEncoded())), "");
+
+        assertKeyPair(keyRing.getActiveKey());
+    }
+
+    @Test
+    void keyWithoutPrivateKeyOnlyVerifies() {
+        JwtKeyProperties properties = properties(entry(KID, null, pem("PUBLIC KEY", keyPair.getPublic().getEncoded())));
+        properties.setActive(JwtKeyRing.DEFAULT_KID);
+
+        JwtKeyRing keyRing = jwtKeyConfiguration.jwtKeyRing(properties, new DefaultResourceLoader(), "a secret for the older tokens");
+
+        assertFalse(keyRing.findKey(KID).orElseThrow().canSign());
+        assertEquals(SignatureAlgorithm.HS512, keyRing.getActiveKey().getAlgorithm());
+    }
+
+    @Test
+    void missingFileFailsStartup() {
+        JwtKeyProperties.Entry entry = entry(KID, null, keyDirectory.resolve("missing.pub").toUri().toString());
+
+        assertThrows(IllegalStateException.class, () -> keyRing(entry, ""));
+    }
+
+    @Test
+    void missingPublicKeyFailsStartup() {
+        JwtKeyProperties.Entry entry = entry(KID, pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()), null);
+
+        assertThrows(IllegalStateException.class, () -> keyRing(entry, ""));
+    }
+
+    @Test
+    void noKeyFailsStartup() {
+        assertThrows(IllegalStateException.class, () ->
+                jwtKeyConfiguration.jwtKeyRing(new JwtKeyProperties(), new DefaultResourceLoader(), ""));
+    }
+
+    private JwtKeyRing keyRing(JwtKeyProperties.Entry entry, String secretKey) {
+        JwtKeyProperties properties = properties(entry);
+        properties.setActive(entry.getKid());
+        return jwtKeyConfiguration.jwtKeyRing(properties, new DefaultResourceLoader(), secretKey);
+    }
+
+    private void assertKeyPair(JwtKey key) {
+        assertEquals(KID, key.getKid());
+        assertEquals(SignatureAlgorithm.ES256, key.getAlgorithm());
+        assertTrue(key.canSign());
+        assertEquals(keyPair.getPrivate(), key.getSigningKey());
+        assertEquals(keyPair.getPublic(), key.getVerificationKey());
+    }
+
+    private static JwtKeyProperties properties(JwtKeyProperties.Entry entry) {
+        JwtKeyProperties properties = new JwtKeyProperties();
+        properties.setEntries(List.of(entry));
+        return properties;
+    }
+
+    private static JwtKeyProperties.Entry entry(String kid, String privateKey, String publicKey) {
+        JwtKeyProperties.Entry entry = new JwtKeyProperties.Entry();
+        entry.setKid(kid);
+        entry.setAlgorithm(SignatureAlgorithm.ES256.getValue());
+        entry.setPrivateKey(privateKey);
+        entry.setPublicKey(publicKey);
+        return entry;
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder().encodeToString(der)
+                + "\n-----END " + type + "-----\n";
+    }
+}
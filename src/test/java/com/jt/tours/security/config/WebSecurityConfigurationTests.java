@@ -0,0 +1,88 @@
+package com.jt.tours.security.config;
+
+import com.jt.tours.metrics.SqlStatementMonitor;
+import com.jt.tours.repository.UserRepository;
+import com.jt.tours.security.jwt.JwtTokenProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies that the actuator endpoints other than health are reserved to the administrators. A denied request is
+ * answered by RestAccessDeniedHandler with an "Access Denied" body.
+ *
+ * Created by Jason Tao on 7/14/2020
+ */
+@SpringBootTest(properties = "spring.datasource.generate-unique-name=true")
+@AutoConfigureMockMvc
+class WebSecurityConfigurationTests {
+
+    private static final String ACCESS_DENIED = "Access Denied";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SqlStatementMonitor sqlStatementMonitor;
+
+    @Test
+    void userCannotReadSqlStats() throws Exception {
+        mockMvc.perform(get("/actuator/sqlstats").header(HttpHeaders.AUTHORIZATION, bearer("csr_tom")))
+                .andExpect(content().string(containsString(ACCESS_DENIED)));
+    }
+
+    @Test
+    void userCannotResetSqlStats() throws Exception {
+        // Issues a few statements, so there is something to reset.
+        bearer("csr_tom");
+
+        mockMvc.perform(delete("/actuator/sqlstats").header(HttpHeaders.AUTHORIZATION, bearer("csr_tom")))
+                .andExpect(content().string(containsString(ACCESS_DENIED)));
+
+        assertFalse(sqlStatementMonitor.topStatements(1, null).isEmpty());
+    }
+
+    @Test
+    void userCannotReadMetrics() throws Exception {
+        mockMvc.perform(get("/actuator/metrics").header(HttpHeaders.AUTHORIZATION, bearer("csr_tom")))
+                .andExpect(content().string(containsString(ACCESS_DENIED)));
+        mockMvc.perform(get("/actuator/prometheus").header(HttpHeaders.AUTHORIZATION, bearer("csr_tom")))
+                .andExpect(content().string(containsString(ACCESS_DENIED)));
+    }
+
+    @Test
+    void adminReadsSqlStats() throws Exception {
+        mockMvc.perform(get("/actuator/sqlstats").header(HttpHeaders.AUTHORIZATION, bearer("csr_admin")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(not(containsString(ACCESS_DENIED))));
+    }
+
+    @Test
+    void userChecksHealth() throws Exception {
+        mockMvc.perform(get("/actuator/health").header(HttpHeaders.AUTHORIZATION, bearer("csr_tom")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("UP")));
+    }
+
+    private String bearer(String username) {
+        return "Bearer " + jwtTokenProvider.createToken(username,
+                userRepository.findByUsername(username).orElseThrow().getAuthUserGroups());
+    }
+}
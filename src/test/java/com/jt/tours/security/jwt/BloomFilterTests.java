@@ -0,0 +1,91 @@
+package com.jt.tours.security.jwt;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that the Bloom filter never misses an added value and keeps close to its false positive probability.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+class BloomFilterTests {
+
+    private static final int ENTRIES = 10_000;
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    @Test
+    void emptyFilterContainsNothing() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_PROBABILITY);
+
+        assertFalse(filter.mightContain("jti"));
+        assertFalse(filter.mightContain(""));
+    }
+
+    @Test
+    void noFalseNegatives() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_PROBABILITY);
+        List<String> values = jtis(ENTRIES);
+        values.forEach(filter::add);
+
+        values.forEach(value -> assertTrue(filter.mightContain(value), value));
+    }
+
+    @Test
+    void noFalseNegativesWithConcurrentAdds() throws Exception {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_PROBABILITY);
+        List<String> values = jtis(ENTRIES);
+
+        // Threads setting bits of the same words must not drop each other's bits.
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> adds = new ArrayList<>();
+        for(int thread = 0; thread < threads; thread++) {
+            int first = thread;
+            adds.add(executor.submit(() -> {
+                for(int i = first; i < values.size(); i += threads) {
+                    filter.add(values.get(i));
+                }
+            }));
+        }
+        for(Future<?> add : adds) {
+            add.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        values.forEach(value -> assertTrue(filter.mightContain(value), value));
+    }
+
+    @Test
+    void falsePositiveRateNearTargetAtExpectedEntries() {
+        BloomFilter filter = new BloomFilter(ENTRIES, FALSE_POSITIVE_PROBABILITY);
+        jtis(ENTRIES).forEach(filter::add);
+
+        int probes = 100_000;
+        int falsePositives = 0;
+        for(String absent : jtis(probes)) {
+            if(filter.mightContain(absent)) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / probes;
+        assertTrue(rate < FALSE_POSITIVE_PROBABILITY * 1.5, "false positive rate " + rate);
+    }
+
+    private List<String> jtis(int count) {
+        List<String> jtis = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            jtis.add(UUID.randomUUID().toString());
+        }
+        return jtis;
+    }
+}
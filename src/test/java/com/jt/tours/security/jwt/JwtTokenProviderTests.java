@@ -0,0 +1,134 @@
+package com.jt.tours.security.jwt;
+
+import com.jt.tours.security.AuthUserGroupRegistry;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SignatureException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Verifies that a token is only verified with the key of the ring named by its "kid" header, and only with the
+ * algorithm of that key.
+ *
+ * Created by Jason Tao on 7/7/2020
+ */
+class JwtTokenProviderTests {
+
+    private static final String ACTIVE_KID = "es256-2";
+    private static final String RETIRED_KID = "es256-1";
+    private static final String SECRET = "a secret long enough for the tokens issued before the key ring";
+
+    private static KeyPair activeKeyPair;
+    private static KeyPair retiredKeyPair;
+
+    private JwtTokenProvider jwtTokenProvider;
+
+    @BeforeAll
+    static void generateKeyPairs() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        activeKeyPair = generator.generateKeyPair();
+        retiredKeyPair = generator.generateKeyPair();
+    }
+
+    @BeforeEach
+    void setUp() {
+        JwtKeyRing keyRing = new JwtKeyRing(ACTIVE_KID, List.of(
+                JwtKey.asymmetric(ACTIVE_KID, SignatureAlgorithm.ES256, activeKeyPair),
+                // retired: verify only
+                new JwtKey(RETIRED_KID, SignatureAlgorithm.ES256, null, retiredKeyPair.getPublic()),
+                JwtKey.hmac(JwtKeyRing.DEFAULT_KID, SECRET)));
+        jwtTokenProvider = new JwtTokenProvider(keyRing, mock(AuthUserGroupRegistry.class), Duration.ofMinutes(15));
+    }
+
+    @Test
+    void verifiesTokenOfActiveKey() {
+        String token = jwtTokenProvider.createToken("csr_tom", Collections.emptySet());
+
+        assertEquals("csr_tom", jwtTokenProvider.getUserNameFromToken(token));
+    }
+
+    @Test
+    void verifiesTokenOfRetiredKey() {
+        String token = token(RETIRED_KID, SignatureAlgorithm.ES256, retiredKeyPair.getPrivate());
+
+        assertEquals("csr_tom", jwtTokenProvider.getUserNameFromToken(token));
+    }
+
+    @Test
+    void verifiesTokenWithoutKidWithDefaultKey() {
+        String token = Jwts.builder()
+                .setSubject("csr_tom")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(SignatureAlgorithm.HS512, SECRET.getBytes(StandardCharsets.UTF_8))
+                .compact();
+
+        assertEquals("csr_tom", jwtTokenProvider.getUserNameFromToken(token));
+    }
+
+    @Test
+    void rejectsUnknownKid() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(256);
+        String token = token("es256-unknown", SignatureAlgorithm.ES256, generator.generateKeyPair().getPrivate());
+
+        assertThrows(SignatureException.class, () -> jwtTokenProvider.getClaimsFromToken(token));
+    }
+
+    @Test
+    void rejectsAlgorithmOtherThanKey() {
+        // The public key of an ES256 key used as a HMAC secret, as an attacker knowing it would.
+        String token = token(ACTIVE_KID, SignatureAlgorithm.HS256, activeKeyPair.getPublic().getEncoded());
+
+        assertThrows(SignatureException.class, () -> jwtTokenProvider.getClaimsFromToken(token));
+    }
+
+    @Test
+    void rejectsHmacTokenNamingAsymmetricKey() {
+        String token = token(ACTIVE_KID, SignatureAlgorithm.HS512, SECRET.getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(SignatureException.class, () -> jwtTokenProvider.getClaimsFromToken(token));
+    }
+
+    @Test
+    void rejectsTokenSignedWithOtherKeyOfSameKid() {
+        String token = token(ACTIVE_KID, SignatureAlgorithm.ES256, retiredKeyPair.getPrivate());
+
+        assertThrows(SignatureException.class, () -> jwtTokenProvider.getClaimsFromToken(token));
+    }
+
+    private static String token(String kid, SignatureAlgorithm algorithm, Key signingKey) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, kid)
+                .setSubject("csr_tom")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(algorithm, signingKey)
+                .compact();
+    }
+
+    private static String token(String kid, SignatureAlgorithm algorithm, byte[] secret) {
+        return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, kid)
+                .setSubject("csr_tom")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(algorithm, secret)
+                .compact();
+    }
+}
@@ -0,0 +1,116 @@
+package com.jt.tours.security.jwt;
+
+import com.jt.tours.repository.RevokedTokenRepository;
+import com.jt.tours.security.domain.RevokedToken;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Verifies the revocation list against a mocked table: local revocations, revocations synced from the other
+ * instances and the purge of the expired ones.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+class TokenRevocationListTests {
+
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationList tokenRevocationList;
+
+    @BeforeEach
+    void setUp() {
+        revokedTokenRepository = mock(RevokedTokenRepository.class);
+        when(revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(any(), any()))
+                .thenReturn(Collections.emptyList());
+        tokenRevocationList = new TokenRevocationList(revokedTokenRepository, 1000);
+        tokenRevocationList.load();
+    }
+
+    @Test
+    void revokedTokenIsRevoked() {
+        Claims claims = claims("jti-1", Duration.ofMinutes(15));
+
+        assertFalse(tokenRevocationList.isRevoked(claims));
+        tokenRevocationList.revoke(claims);
+
+        assertTrue(tokenRevocationList.isRevoked(claims));
+        assertFalse(tokenRevocationList.isRevoked(claims("jti-2", Duration.ofMinutes(15))));
+        verify(revokedTokenRepository).save(any(RevokedToken.class));
+    }
+
+    @Test
+    void tokenWithoutIdIsNeverRevoked() {
+        Claims claims = claims(null, Duration.ofMinutes(15));
+        tokenRevocationList.revoke(claims);
+
+        assertFalse(tokenRevocationList.isRevoked(claims));
+        verify(revokedTokenRepository, never()).save(any());
+    }
+
+    @Test
+    void syncPicksUpRevocationsOfOtherInstances() {
+        Claims claims = claims("jti-other", Duration.ofMinutes(15));
+        assertFalse(tokenRevocationList.isRevoked(claims));
+
+        when(revokedTokenRepository.findByRevokedAtGreaterThanEqualAndExpiresAtAfter(any(), any()))
+                .thenReturn(List.of(revokedToken("jti-other", Duration.ofMinutes(15))));
+        tokenRevocationList.sync();
+
+        assertTrue(tokenRevocationList.isRevoked(claims));
+    }
+
+    @Test
+    void purgeDropsExpiredTokensAndKeepsTheOthers() {
+        Claims expired = claims("jti-expired", Duration.ofMinutes(-1));
+        Claims live = claims("jti-live", Duration.ofMinutes(15));
+        tokenRevocationList.revoke(expired);
+        tokenRevocationList.revoke(live);
+        assertEquals(2, tokenRevocationList.size());
+
+        tokenRevocationList.purgeExpired();
+
+        assertEquals(1, tokenRevocationList.size());
+        assertFalse(tokenRevocationList.isRevoked(expired));
+        // The rebuilt Bloom filter still holds the live revocation.
+        assertTrue(tokenRevocationList.isRevoked(live));
+        verify(revokedTokenRepository).deleteExpiredBefore(any());
+    }
+
+    @Test
+    void revocationsAfterPurgeAreFound() {
+        tokenRevocationList.revoke(claims("jti-expired", Duration.ofMinutes(-1)));
+        tokenRevocationList.purgeExpired();
+
+        Claims claims = claims("jti-new", Duration.ofMinutes(15));
+        tokenRevocationList.revoke(claims);
+
+        assertTrue(tokenRevocationList.isRevoked(claims));
+    }
+
+    private Claims claims(String jti, Duration expiresIn) {
+        Claims claims = Jwts.claims().setSubject("csr_tom").setExpiration(Date.from(Instant.now().plus(expiresIn)));
+        return jti != null ? claims.setId(jti) : claims;
+    }
+
+    private RevokedToken revokedToken(String jti, Duration expiresIn) {
+        return RevokedToken.builder()
+                .jti(jti)
+                .revokedAt(Instant.now())
+                .expiresAt(Instant.now().plus(expiresIn))
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package com.jt.tours.service.impl;
+
+import com.jt.tours.repository.UserRepository;
+import com.jt.tours.security.domain.AuthTokens;
+import com.jt.tours.web.rest.exceptions.CustomException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Verifies the rotation of the refresh tokens, the revocation of a family on reuse and the expiry.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.generate-unique-name=true",
+        "security.jwt.refresh-token.reuse-grace-period=PT10S"})
+class RefreshTokenServiceTests {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AuthTokens login;
+
+    @BeforeEach
+    void login() {
+        login = refreshTokenService.issueTokens(userRepository.findByUsername("csr_tom").orElseThrow());
+    }
+
+    @Test
+    void refreshRotatesTheToken() {
+        AuthTokens refreshed = refreshTokenService.refresh(login.getRefreshToken());
+
+        assertNotNull(refreshed.getAccessToken());
+        assertNotEquals(login.getRefreshToken(), refreshed.getRefreshToken());
+        // The rotated token keeps working, and can itself be rotated.
+        assertNotNull(refreshTokenService.refresh(refreshed.getRefreshToken()).getRefreshToken());
+    }
+
+    @Test
+    void reuseWithinGracePeriodKeepsTheFamily() {
+        AuthTokens refreshed = refreshTokenService.refresh(login.getRefreshToken());
+
+        // A second tab or a retry presenting the token just rotated.
+        assertUnauthorized(() -> refreshTokenService.refresh(login.getRefreshToken()));
+        assertNotNull(refreshTokenService.refresh(refreshed.getRefreshToken()).getRefreshToken());
+    }
+
+    @Test
+    void reuseAfterGracePeriodRevokesTheFamily() {
+        AuthTokens refreshed = refreshTokenService.refresh(login.getRefreshToken());
+        backdateRevocations(Duration.ofMinutes(1));
+
+        assertUnauthorized(() -> refreshTokenService.refresh(login.getRefreshToken()));
+        // The replay ended the session: the token issued by the legitimate rotation is revoked too.
+        assertUnauthorized(() -> refreshTokenService.refresh(refreshed.getRefreshToken()));
+    }
+
+    @Test
+    void deletingUserDeletesItsTokens() {
+        AuthTokens jackyLogin = refreshTokenService.issueTokens(userRepository.findByUsername("jacky").orElseThrow());
+
+        userRepository.delete(userRepository.findByUsername("jacky").orElseThrow());
+
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from refresh_token where username = ?", Integer.class, "jacky"));
+        assertUnauthorized(() -> refreshTokenService.refresh(jackyLogin.getRefreshToken()));
+    }
+
+    @Test
+    void expiredTokenIsRefused() {
+        jdbcTemplate.update("update refresh_token set expires_at = ? where revoked_at is null",
+                Timestamp.from(Instant.now().minusSeconds(1)));
+
+        CustomException exception = assertUnauthorized(() -> refreshTokenService.refresh(login.getRefreshToken()));
+        assertEquals("Refresh token expired.", exception.getMessage());
+    }
+
+    @Test
+    void unknownTokenIsRefused() {
+        assertUnauthorized(() -> refreshTokenService.refresh("not-a-refresh-token"));
+    }
+
+    @Test
+    void revokeEndsTheFamily() {
+        AuthTokens refreshed = refreshTokenService.refresh(login.getRefreshToken());
+        refreshTokenService.revoke(refreshed.getRefreshToken());
+
+        assertUnauthorized(() -> refreshTokenService.refresh(refreshed.getRefreshToken()));
+    }
+
+    private void backdateRevocations(Duration age) {
+        jdbcTemplate.update("update refresh_token set revoked_at = ? where revoked_at is not null",
+                Timestamp.from(Instant.now().minus(age)));
+    }
+
+    private CustomException assertUnauthorized(Runnable refresh) {
+        CustomException exception = assertThrows(CustomException.class, refresh::run);
+        assertEquals(HttpStatus.UNAUTHORIZED, exception.getHttpStatus());
+        return exception;
+    }
+}
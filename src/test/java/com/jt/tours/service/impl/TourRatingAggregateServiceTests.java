@@ -0,0 +1,171 @@
+package com.jt.tours.service.impl;
+
+import com.jt.tours.domain.TourRatingAggregate;
+import com.jt.tours.repository.TourRatingAggregateRepository;
+import com.jt.tours.repository.TourRatingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that every rating write leaves the rating aggregate of its tour equal to the aggregate computed from the
+ * tour ratings, and that the reconciliation repairs a drifted aggregate. Each test rates tours of its own, on a pool
+ * of two connections.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.generate-unique-name=true",
+        // Smaller than the concurrent ratings: a rating write must never need a second connection.
+        "tour.datasource.pool.maximum-size=2"})
+class TourRatingAggregateServiceTests {
+
+    @Autowired
+    private TourRatingService tourRatingService;
+
+    @Autowired
+    private TourRatingAggregateService tourRatingAggregateService;
+
+    @Autowired
+    private TourRatingAggregateRepository tourRatingAggregateRepository;
+
+    @Autowired
+    private TourRatingRepository tourRatingRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void createNewRatingKeepsAggregate() {
+        tourRatingService.createNewRating(10L, 1L, 5, "Great");
+        tourRatingService.createNewRating(10L, 2L, 2, "Meh");
+
+        assertAggregateMatchesRatings(10L);
+        assertEquals(3.5, tourRatingService.getAverageRatingScore(10L));
+    }
+
+    @Test
+    void createNewRatingsKeepsAggregate() {
+        tourRatingService.createNewRating(11L, 1L, 4, null);
+        // Customer 1 already rated the tour and is reported as a duplicate.
+        tourRatingService.createNewRatings(11L, new Long[]{1L, 2L, 3L}, 3);
+
+        assertAggregateMatchesRatings(11L);
+        assertEquals(3, aggregateOf(11L).getRatingCount());
+    }
+
+    @Test
+    void updateRatingKeepsAggregate() {
+        tourRatingService.createNewRating(12L, 1L, 1, "Bad");
+        tourRatingService.updateRating(12L, 1L, 4, "Better");
+
+        assertAggregateMatchesRatings(12L);
+        assertEquals(1, aggregateOf(12L).getScoreFourCount());
+    }
+
+    @Test
+    void updateSomeRatingKeepsAggregate() {
+        tourRatingService.createNewRating(13L, 1L, 2, "Bad");
+        tourRatingService.updateSomeRating(13L, 1L, 5, null);
+        tourRatingService.updateSomeRating(13L, 1L, null, "Changed my mind");
+
+        assertAggregateMatchesRatings(13L);
+        assertEquals(5.0, tourRatingService.getAverageRatingScore(13L));
+    }
+
+    @Test
+    void deleteKeepsAggregate() {
+        tourRatingService.createNewRating(14L, 1L, 3, null);
+        tourRatingService.createNewRating(14L, 2L, 5, null);
+        tourRatingService.delete(14L, 1L);
+
+        assertAggregateMatchesRatings(14L);
+        tourRatingService.delete(14L, 2L);
+        assertEquals(0, aggregateOf(14L).getRatingCount());
+    }
+
+    @Test
+    void concurrentFirstRatingsCreateAggregateOnce() throws Exception {
+        int customers = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(customers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> ratings = new ArrayList<>();
+        for(long customerId = 1; customerId <= customers; customerId++) {
+            long customer = customerId;
+            ratings.add(executor.submit(() -> {
+                start.await();
+                return tourRatingService.createNewRating(15L, customer, 4, null);
+            }));
+        }
+        start.countDown();
+        try {
+            for(Future<?> rating : ratings) {
+                rating.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertAggregateMatchesRatings(15L);
+        assertEquals(customers, aggregateOf(15L).getRatingCount());
+    }
+
+    @Test
+    void concurrentFirstRatingsOfToursShareSmallPool() throws Exception {
+        List<Long> tourIds = List.of(17L, 18L, 19L, 20L);
+        int customers = 2;
+        ExecutorService executor = Executors.newFixedThreadPool(tourIds.size() * customers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> ratings = new ArrayList<>();
+        for(Long tourId : tourIds) {
+            for(long customerId = 1; customerId <= customers; customerId++) {
+                long customer = customerId;
+                ratings.add(executor.submit(() -> {
+                    start.await();
+                    return tourRatingService.createNewRating(tourId, customer, 3, null);
+                }));
+            }
+        }
+        start.countDown();
+        try {
+            for(Future<?> rating : ratings) {
+                rating.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for(Long tourId : tourIds) {
+            assertAggregateMatchesRatings(tourId);
+            assertEquals(customers, aggregateOf(tourId).getRatingCount());
+        }
+    }
+
+    @Test
+    void reconcileRepairsDriftedAggregate() {
+        tourRatingService.createNewRating(16L, 1L, 4, null);
+        jdbcTemplate.update("update tour_rating_aggregate set rating_count = 42, score_one_count = 7 where tour_id = ?", 16L);
+
+        assertTrue(tourRatingAggregateService.reconcile() >= 1);
+        assertAggregateMatchesRatings(16L);
+        assertEquals(0, tourRatingAggregateService.reconcile());
+    }
+
+    private void assertAggregateMatchesRatings(Long tourId) {
+        TourRatingAggregate computed = tourRatingRepository.computeAggregate(tourId)
+                .orElseGet(() -> TourRatingAggregate.builder().tourId(tourId).build());
+        assertEquals(computed, aggregateOf(tourId));
+    }
+
+    private TourRatingAggregate aggregateOf(Long tourId) {
+        return tourRatingAggregateRepository.findById(tourId).orElseThrow();
+    }
+}
@@ -0,0 +1,62 @@
+package com.jt.tours.service.impl;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies the streamed exports: one line per rating, NDJSON rows written as root values of a single generator.
+ *
+ * Created by Jason Tao on 6/25/2020
+ */
+@SpringBootTest(properties = "spring.datasource.generate-unique-name=true")
+class TourRatingExportServiceTests {
+
+    @Autowired
+    private TourRatingExportService tourRatingExportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void exportsOneJsonObjectPerLine() throws Exception {
+        String export = export(TourRatingExportService.Format.NDJSON);
+
+        assertTrue(export.endsWith("\n"));
+        String[] lines = export.split("\n");
+        assertEquals(ratingCount(), lines.length);
+        for(String line : lines) {
+            JsonNode rating = objectMapper.readTree(line);
+            assertTrue(rating.get("id").isNumber());
+            assertTrue(rating.get("tourId").isNumber());
+        }
+    }
+
+    @Test
+    void exportsCsvWithHeader() {
+        String[] lines = export(TourRatingExportService.Format.CSV).split("\n");
+
+        assertEquals("id,tourId,customerId,ratingScore,comment", lines[0]);
+        assertEquals(ratingCount() + 1, lines.length);
+    }
+
+    private String export(TourRatingExportService.Format format) {
+        StringWriter writer = new StringWriter();
+        tourRatingExportService.exportRatings(format, writer);
+        return writer.toString();
+    }
+
+    private int ratingCount() {
+        return jdbcTemplate.queryForObject("select count(*) from tour_rating", Integer.class);
+    }
+}
@@ -0,0 +1,91 @@
+package com.jt.tours.service.impl;
+
+import com.jt.tours.domain.DifficultyEnum;
+import com.jt.tours.domain.RegionEnum;
+import com.jt.tours.domain.Tour;
+import com.jt.tours.repository.TourPackageRepository;
+import com.jt.tours.repository.TourRepository;
+import com.jt.tours.search.TourSearchHit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that the search index is built at startup and follows the committed tour writes.
+ *
+ * Created by Jason Tao on 7/15/2020
+ */
+@SpringBootTest(properties = "spring.datasource.generate-unique-name=true")
+class TourSearchServiceTests {
+
+    @Autowired
+    private TourSearchService tourSearchService;
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private TourPackageRepository tourPackageRepository;
+
+    @BeforeEach
+    void authenticate() {
+        // The tour writes are restricted to the CSR roles.
+        SecurityContextHolder.getContext().setAuthentication(
+                new TestingAuthenticationToken("admin", null, "ROLE_CSR_ADMIN"));
+    }
+
+    @AfterEach
+    void clearAuthentication() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void indexesTheCatalogAtStartup() {
+        assertTrue(tourSearchService.search("california", PageRequest.of(0, 10)).getTotalElements() > 0);
+    }
+
+    @Test
+    void followsSavedUpdatedAndDeletedTours() {
+        Tour tour = tourRepository.save(Tour.builder()
+                .tourTitle("Zipline Adventure")
+                .description("Fly over the redwoods")
+                .blurb("Zipline")
+                .keyBullets("Harness, helmet")
+                .price(300)
+                .duration("1 day")
+                .difficulty(DifficultyEnum.Medium)
+                .region(RegionEnum.Central_Coast)
+                .tourPackage(tourPackageRepository.findById("BC").orElseThrow())
+                .keywords("zipline")
+                .build());
+        assertEquals(List.of(tour.getId()), search("zipline"));
+
+        tour.setKeywords("canopy");
+        tour.setBlurb("Canopy");
+        tour.setTourTitle("Canopy Adventure");
+        tour = tourRepository.save(tour);
+        assertTrue(search("zipline").isEmpty());
+        assertEquals(List.of(tour.getId()), search("canopy"));
+
+        tourRepository.deleteById(tour.getId());
+        assertTrue(search("canopy").isEmpty());
+    }
+
+    private List<Long> search(String query) {
+        return tourSearchService.search(query, PageRequest.of(0, 10)).getContent().stream()
+                .map(TourSearchHit::getTour)
+                .map(Tour::getId)
+                .collect(Collectors.toList());
+    }
+}
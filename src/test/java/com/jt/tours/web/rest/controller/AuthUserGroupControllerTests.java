@@ -0,0 +1,96 @@
+package com.jt.tours.web.rest.controller;
+
+import com.jt.tours.repository.UserRepository;
+import com.jt.tours.security.CsrUserCache;
+import com.jt.tours.security.CsrUserDetailsService;
+import com.jt.tours.security.jwt.JwtTokenProvider;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Verifies that the authority groups are reserved to the administrators, and that their refresh drops the cached
+ * users. A user is cached once loaded by CsrUserDetailsService; a lookup that reaches the loader again shows it
+ * was dropped.
+ *
+ * Created by Jason Tao on 7/9/2020
+ */
+@SpringBootTest(properties = "spring.datasource.generate-unique-name=true")
+@AutoConfigureMockMvc
+class AuthUserGroupControllerTests {
+
+    private static final String USERNAME = "jacky";
+
+    // Returned by the loader of the lookups, when the user is no longer cached.
+    private static final UserDetails RELOADED = User.withUsername(USERNAME).password("reloaded").authorities("VIEWER").build();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CsrUserCache csrUserCache;
+
+    @Autowired
+    private CsrUserDetailsService csrUserDetailsService;
+
+    @BeforeEach
+    void cacheUser() {
+        csrUserCache.invalidateAll();
+        csrUserDetailsService.loadUserByUsername(USERNAME);
+    }
+
+    @Test
+    void userCannotListGroups() throws Exception {
+        mockMvc.perform(get("/api/v1/auth-groups").header(HttpHeaders.AUTHORIZATION, bearer("csr_tom")))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void userCannotRefreshGroups() throws Exception {
+        mockMvc.perform(post("/api/v1/auth-groups/refresh").header(HttpHeaders.AUTHORIZATION, bearer("csr_tom")))
+                .andExpect(status().isForbidden());
+
+        assertNotSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+    }
+
+    @Test
+    void adminListsGroups() throws Exception {
+        mockMvc.perform(get("/api/v1/auth-groups").header(HttpHeaders.AUTHORIZATION, bearer("csr_admin")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("CSR_USER")));
+    }
+
+    @Test
+    void adminRefreshInvalidatesCachedUsers() throws Exception {
+        mockMvc.perform(post("/api/v1/auth-groups/refresh").header(HttpHeaders.AUTHORIZATION, bearer("csr_admin")))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("VIEWER")));
+
+        assertSame(RELOADED, csrUserCache.getUser(USERNAME, username -> RELOADED));
+    }
+
+    private String bearer(String username) {
+        return "Bearer " + jwtTokenProvider.createToken(username,
+                userRepository.findByUsername(username).orElseThrow().getAuthUserGroups());
+    }
+}